@@ -20,13 +20,19 @@ import javafx.stage.WindowEvent;
  */
 public class AppStarter extends Application {
 
+	/**
+	 * the model of the application
+	 */
+	private MountainModel pm;
+
 	/**
 	 * (non-Javadoc)
 	 * @see javafx.application.Application#start(javafx.stage.Stage)
 	 */
     @Override
     public void start(Stage primaryStage) throws Exception {
-        MountainModel pm = new MountainModel();
+        pm = new MountainModel(MountainModel.LoadMode.BACKGROUND);
+        pm.setAutosave(true);
         Parent rootPanel = new MountainUI(pm);
         Scene scene = new Scene(rootPanel);
 
@@ -37,8 +43,6 @@ public class AppStarter extends Application {
         primaryStage.setMinWidth(820);
         primaryStage.show();
         
-        pm.setSelectedMountainID(pm.getData().get(0).getId());
-        
         primaryStage.setOnCloseRequest(e -> { 
         	Alert alert = new Alert(AlertType.CONFIRMATION);
         	Image img = new Image("file:./src/main/java/ch/fhnw/oop2/swissmountainsfx/ownresources/cow.png");
@@ -54,6 +58,16 @@ public class AppStarter extends Application {
         );   
     }
 
+	/**
+	 * Closes the model when the application exits normally, which discards the write ahead log of the edits.
+	 */
+    @Override
+    public void stop() {
+        if (pm != null) {
+            pm.close();
+        }
+    }
+
 	public static void main(String[] args) {
 
 		launch(args);
@@ -0,0 +1,78 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainAggregates {
+
+	ObservableList<Mountain> data;
+	MountainAggregates total;
+	MountainAggregates regions;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, 4545.0, "Wallis", 1046.0),
+				mountain(2, 4506.0, "Wallis", 1235.0), mountain(3, 3967.0, "Berner Alpen", 359.0));
+		MountainSlots slots = new MountainSlots(data);
+		total = new MountainAggregates(slots, null);
+		regions = new MountainAggregates(slots, Mountain.Field.REGION);
+	}
+
+	Mountain mountain(int id, double height, String region, double prominence) {
+		return new Mountain(id, "Berg " + id, height, "", region, "", "", 0.0, "", prominence, "", "");
+	}
+
+	@Test
+	void testSummaries() {
+		MountainSummary all = total.getSummary(null);
+		assertEquals(3, all.getCount());
+		assertEquals(3967.0, all.minProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(4545.0, all.maxProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(13018.0, all.sumProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(880.0, all.averageProperty(Mountain.Field.PROMINENCE).get(), 1e-9);
+
+		MountainSummary wallis = regions.getSummary("Wallis");
+		assertEquals(2, wallis.getCount());
+		assertEquals(4525.5, wallis.averageProperty(Mountain.Field.HEIGHT).get(), 1e-9);
+		assertEquals(2, regions.getSummaries().size());
+		assertThrows(IllegalArgumentException.class, () -> wallis.minProperty(Mountain.Field.NAME));
+	}
+
+	@Test
+	void testUpdate() {
+		MountainSummary all = total.getSummary(null);
+		MountainSummary wallis = regions.getSummary("Wallis");
+
+		data.get(0).setHeight(4634.0);
+		assertEquals(4634.0, all.maxProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(4634.0, wallis.maxProperty(Mountain.Field.HEIGHT).get());
+
+		data.add(mountain(4, 3614.0, "Glarner Alpen", 1570.0));
+		assertEquals(4, all.getCount());
+		assertEquals(3614.0, all.minProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(3, regions.getSummaries().size());
+
+		data.get(2).setRegion("Wallis");
+		assertEquals(3, wallis.getCount());
+		assertEquals(3967.0, wallis.minProperty(Mountain.Field.HEIGHT).get());
+		assertNull(regions.getSummary("Berner Alpen"));
+
+		data.remove(3);
+		assertEquals(3967.0, all.minProperty(Mountain.Field.HEIGHT).get());
+		assertNull(regions.getSummary("Glarner Alpen"));
+
+		data.clear();
+		assertEquals(0, all.getCount());
+		assertEquals(0.0, all.sumProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(Double.NaN, all.averageProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(Double.NaN, all.minProperty(Mountain.Field.HEIGHT).get());
+		assertEquals(0, regions.getSummaries().size());
+	}
+}
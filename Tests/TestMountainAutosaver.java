@@ -0,0 +1,101 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TestMountainAutosaver {
+
+	@Test
+	void testDelay() {
+		MountainAutosaver autosaver = new MountainAutosaver(() -> { }, Runnable::run);
+		assertEquals(-1, autosaver.getDelay(0));
+
+		autosaver.changed(1, 0);
+		assertEquals(MountainAutosaver.MIN_IDLE_DELAY, autosaver.getDelay(0));
+
+		// slow edits need a longer pause before the user counts as idle
+		autosaver.changed(2, 2000);
+		assertEquals(6000, autosaver.getDelay(2000));
+
+		// a burst of edits never postpones the save beyond the maximal time
+		for (long now = 2000; now < 40000; now += 100) {
+			autosaver.changed(3, now);
+		}
+		assertEquals(0, autosaver.getDelay(40000));
+
+		// slow saves are started less often
+		autosaver.saveStarted();
+		autosaver.saveFinished(2000);
+		autosaver.changed(1, 50000);
+		assertEquals(8000, autosaver.getDelay(50000));
+	}
+
+	@Test
+	void testManyChanges() {
+		MountainAutosaver autosaver = new MountainAutosaver(() -> { }, Runnable::run);
+		autosaver.changed(1, 0);
+		autosaver.changed(2, 3000);
+		assertEquals(9000, autosaver.getDelay(3000));
+
+		autosaver.changed(MountainAutosaver.MAX_DIRTY_COUNT, 3100);
+		assertEquals(MountainAutosaver.MIN_IDLE_DELAY, autosaver.getDelay(3100));
+	}
+
+	@Test
+	void testRetryDelay() {
+		MountainAutosaver autosaver = new MountainAutosaver(() -> { }, Runnable::run);
+		autosaver.changed(1, 0);
+		autosaver.saveStarted();
+		autosaver.saveFailed(1, 1000);
+		assertEquals(MountainAutosaver.MIN_IDLE_DELAY, autosaver.getDelay(1000));
+
+		// every further failure doubles the time until the retry
+		autosaver.saveStarted();
+		autosaver.saveFailed(1, 2000);
+		assertEquals(2 * MountainAutosaver.MIN_IDLE_DELAY, autosaver.getDelay(2000));
+
+		autosaver.saveStarted();
+		autosaver.saveFinished(0);
+		autosaver.changed(1, 10000);
+		assertEquals(MountainAutosaver.MIN_IDLE_DELAY, autosaver.getDelay(10000));
+	}
+
+	@Test
+	void testSaveAfterFailure() throws Exception {
+		CountDownLatch failed = new CountDownLatch(1);
+		CountDownLatch saved = new CountDownLatch(1);
+		MountainAutosaver[] autosaver = new MountainAutosaver[1];
+		autosaver[0] = new MountainAutosaver(() -> {
+			autosaver[0].saveStarted();
+			if (failed.getCount() > 0) {
+				autosaver[0].saveFailed(1);
+				failed.countDown();
+			} else {
+				autosaver[0].saveFinished(0);
+				saved.countDown();
+			}
+		}, Runnable::run);
+		autosaver[0].changed(1);
+		assertTrue(failed.await(10, TimeUnit.SECONDS));
+
+		// the edit after the failed save is still saved
+		autosaver[0].changed(2);
+		assertTrue(saved.await(10, TimeUnit.SECONDS));
+		autosaver[0].stop();
+	}
+
+	@Test
+	void testSave() throws Exception {
+		CountDownLatch saved = new CountDownLatch(1);
+		MountainAutosaver autosaver = new MountainAutosaver(saved::countDown, Runnable::run);
+		autosaver.changed(1);
+
+		assertTrue(saved.await(5, TimeUnit.SECONDS));
+		autosaver.stop();
+	}
+}
@@ -0,0 +1,77 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TestMountainBitmap {
+
+	MountainBitmap bitmap(BitSet bits) {
+		MountainBitmap bitmap = new MountainBitmap();
+		bits.stream().forEach(bitmap::add);
+		return bitmap;
+	}
+
+	BitSet random(Random random, int bound, double density) {
+		BitSet bits = new BitSet();
+		for (int i = 0; i < bound; i++) {
+			if (random.nextDouble() < density) {
+				bits.set(i);
+			}
+		}
+		return bits;
+	}
+
+	@Test
+	void testAddAndRemove() {
+		MountainBitmap bitmap = new MountainBitmap();
+		assertTrue(bitmap.isEmpty());
+		assertTrue(bitmap.add(70000));
+		assertTrue(bitmap.add(3));
+		assertFalse(bitmap.add(3));
+		assertTrue(bitmap.contains(70000));
+		assertFalse(bitmap.contains(4));
+		assertArrayEquals(new int[] { 3, 70000 }, bitmap.toArray());
+
+		// a dense chunk is stored as a bitmap and as an array again once it gets sparse
+		for (int i = 0; i < 10000; i++) {
+			bitmap.add(i * 2);
+		}
+		assertEquals(10002, bitmap.cardinality());
+		for (int i = 0; i < 10000; i++) {
+			assertTrue(bitmap.remove(i * 2));
+		}
+		assertFalse(bitmap.remove(0));
+		assertArrayEquals(new int[] { 3, 70000 }, bitmap.toArray());
+
+		bitmap.remove(3);
+		bitmap.remove(70000);
+		assertTrue(bitmap.isEmpty());
+	}
+
+	@Test
+	void testAndOr() {
+		Random random = new Random(7);
+		double[] densities = { 0.001, 0.05, 0.5 };
+		for (double lhsDensity : densities) {
+			for (double rhsDensity : densities) {
+				BitSet lhs = random(random, 200000, lhsDensity);
+				BitSet rhs = random(random, 150000, rhsDensity);
+				BitSet and = (BitSet) lhs.clone();
+				and.and(rhs);
+				BitSet or = (BitSet) lhs.clone();
+				or.or(rhs);
+
+				assertArrayEquals(and.stream().toArray(), bitmap(lhs).and(bitmap(rhs)).toArray());
+				assertArrayEquals(or.stream().toArray(), bitmap(lhs).or(bitmap(rhs)).toArray());
+				assertEquals(or.cardinality(), bitmap(lhs).or(bitmap(rhs)).cardinality());
+			}
+		}
+	}
+}
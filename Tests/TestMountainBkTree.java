@@ -0,0 +1,65 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainBkTree {
+
+	ObservableList<Mountain> data;
+	MountainBkTree tree;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, "Eiger"), mountain(2, "Moench"), mountain(3, "Jungfrau"),
+				mountain(4, "Eiger"));
+		tree = new MountainBkTree(new MountainSlots(data));
+	}
+
+	Mountain mountain(int id, String name) {
+		return new Mountain(id, name, 0.0, "", "", "", "", 0.0, "", 0.0, "", "");
+	}
+
+	@Test
+	void testFindFirst() {
+		assertSame(data.get(0), tree.findFirst("EIGR", 2));
+		assertSame(data.get(2), tree.findFirst("jungfra", 2));
+		assertSame(data.get(1), tree.findFirst("monch", 2));
+		assertNull(tree.findFirst("matterhorn", 2));
+	}
+
+	@Test
+	void testUpdate() {
+		data.get(0).setName("Dom");
+		assertSame(data.get(3), tree.findFirst("eiger", 2));
+		assertSame(data.get(0), tree.findFirst("dom", 0));
+
+		data.remove(3);
+		assertNull(tree.findFirst("eiger", 2));
+
+		for (int i = 0; i < 100; i++) {
+			data.add(mountain(10 + i, "Gipfel " + i));
+		}
+		data.remove(3, data.size());
+		assertNull(tree.findFirst("gipfel 1", 2));
+		data.add(mountain(5, "Weisshorn"));
+		assertSame(data.get(3), tree.findFirst("weishorn", 1));
+	}
+
+	@Test
+	void testFindBest() {
+		data.get(3).setHeight(3970.0);
+		assertEquals(List.of(data.get(3), data.get(0)), tree.findBest("eiger", 0, 10));
+		assertEquals(List.of(data.get(3), data.get(0), data.get(1)), tree.findBest("eiger", 6, 3));
+		assertEquals(List.of(data.get(3), data.get(0), data.get(2)), tree.findBest("jngfr", 3, 10));
+		assertEquals(List.of(), tree.findBest("jngfr", 2, 10));
+	}
+}
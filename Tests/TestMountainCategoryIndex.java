@@ -0,0 +1,62 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainCategoryIndex {
+
+	ObservableList<Mountain> data;
+	MountainCategoryIndex index;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, "Hauptgipfel", "Wallis"),
+				mountain(2, "Nebengipfel", "Wallis"), mountain(3, "Hauptgipfel", "Berner Alpen"),
+				mountain(4, "Hauptgipfel", "Wallis"), mountain(5, "Nebengipfel", "Graubuenden"));
+		index = new MountainCategoryIndex(new MountainSlots(data));
+	}
+
+	Mountain mountain(int id, String type, String region) {
+		return new Mountain(id, "Berg " + id, 3000.0, type, region, "", "", 0.0, "", 0.0, "", "");
+	}
+
+	List<Mountain> mountains(int... indexes) {
+		return Arrays.stream(indexes).mapToObj(data::get).collect(Collectors.toList());
+	}
+
+	List<Mountain> find(String type, String region) {
+		return index.mountains(index.find(Mountain.Field.TYPE, type).and(index.find(Mountain.Field.REGION, region)));
+	}
+
+	@Test
+	void testFind() {
+		assertEquals(mountains(0, 2, 3), index.mountains(index.find(Mountain.Field.TYPE, "Hauptgipfel")));
+		assertEquals(mountains(0, 3), find("Hauptgipfel", "Wallis"));
+		assertEquals(mountains(), find("Nebengipfel", "Berner Alpen"));
+		assertEquals(mountains(), index.mountains(index.find(Mountain.Field.RANGE, "Unbekannt")));
+		assertEquals(mountains(2, 4), index.mountains(index.findAny(Mountain.Field.REGION, "Berner Alpen", "Graubuenden")));
+	}
+
+	@Test
+	void testUpdate() {
+		data.get(1).setType("Hauptgipfel");
+		assertEquals(mountains(0, 1, 3), find("Hauptgipfel", "Wallis"));
+
+		data.add(mountain(6, "Hauptgipfel", "Wallis"));
+		data.remove(0);
+		assertEquals(mountains(0, 2, 4), find("Hauptgipfel", "Wallis"));
+
+		data.add(0, mountain(7, "Nebengipfel", "Wallis"));
+		assertEquals(mountains(0), find("Nebengipfel", "Wallis"));
+		assertEquals(mountains(1, 3, 5), find("Hauptgipfel", "Wallis"));
+	}
+}
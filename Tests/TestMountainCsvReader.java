@@ -0,0 +1,78 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TestMountainCsvReader {
+
+	static final String HEADER = "#id;name;height;type;region;cantons;range;isolation;isolationPoint;prominence;prominencePoint;caption";
+
+	@Test
+	void testRead() throws Exception {
+		String csv = HEADER + "\r\n"
+				+ "0;Albis, B\u00fcrglen;916.0;Hauptgipfel;Mittelland;;Albiskette;12.0;Wilerberg;376.0;Sihlbrugg Punkt 540;Albiskette vom Uetliberg\r\n"
+				+ "1;Aletschhorn;4193.5;Hauptgipfel;Wallis;VS;Aletschgebiet;13.3;Finsteraarhorn;-1020.25;L\u00f6tschenl\u00fccke;\r\n";
+		List<Mountain> mountains = MountainCsvReader.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(2, mountains.size());
+		assertEquals("0;Albis, B\u00fcrglen;916.0;Hauptgipfel;Mittelland;;Albiskette;12.0;Wilerberg;376.0;Sihlbrugg Punkt 540;Albiskette vom Uetliberg",
+				mountains.get(0).infoAsLine());
+		assertEquals("1;Aletschhorn;4193.5;Hauptgipfel;Wallis;VS;Aletschgebiet;13.3;Finsteraarhorn;-1020.25;L\u00f6tschenl\u00fccke;",
+				mountains.get(1).infoAsLine());
+	}
+
+	@Test
+	void testReadChunked() throws Exception {
+		StringBuilder csv = new StringBuilder(HEADER).append('\n');
+		int count = 50000;
+		for (int i = 0; i < count; i++) {
+			csv.append(i).append(";Berg ").append(i).append(';').append(i * 0.5).append(";Hauptgipfel;Wallis;VS;Gebiet;")
+					.append(i % 100).append(".1;Punkt;1.0E7;Scharte;Bild\n");
+		}
+		List<Mountain> mountains = MountainCsvReader.read(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(count, mountains.size());
+		for (int i = 0; i < count; i++) {
+			Mountain mountain = mountains.get(i);
+			assertEquals(i, mountain.getId());
+			assertEquals("Berg " + i, mountain.getName());
+			assertEquals(i * 0.5, mountain.getHeight());
+			assertEquals(Double.parseDouble((i % 100) + ".1"), mountain.getIsolation());
+			assertEquals(1.0E7, mountain.getProminence());
+		}
+	}
+
+	@Test
+	void testReadInBatches() throws Exception {
+		StringBuilder csv = new StringBuilder(HEADER).append('\n');
+		int count = 20000;
+		for (int i = 0; i < count; i++) {
+			csv.append(i).append(";Berg ").append(i).append(";1000.0;Hauptgipfel;Wallis;VS;Gebiet;1.5;Punkt;100.0;Scharte;Bild\n");
+		}
+		byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+		List<Integer> batchSizes = new ArrayList<>();
+		List<Mountain> mountains = new ArrayList<>();
+		long[] lastBytesRead = new long[1];
+		MountainCsvReader.readInBatches(new ByteArrayInputStream(bytes), (batch, bytesRead) -> {
+			batchSizes.add(batch.size());
+			mountains.addAll(batch);
+			assertTrue(bytesRead >= lastBytesRead[0]);
+			lastBytesRead[0] = bytesRead;
+		});
+
+		assertTrue(batchSizes.size() > 1);
+		assertTrue(batchSizes.get(0) < 200);
+		assertEquals(bytes.length, lastBytesRead[0]);
+		assertEquals(count, mountains.size());
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, mountains.get(i).getId());
+		}
+	}
+}
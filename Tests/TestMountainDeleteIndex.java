@@ -0,0 +1,80 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainDeleteIndex {
+
+	ObservableList<Mountain> data;
+	MountainDeleteIndex index;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, "Eiger"), mountain(2, "Moench"), mountain(3, "Jungfrau"),
+				mountain(4, "Eiger"));
+		index = new MountainDeleteIndex(new MountainSlots(data));
+	}
+
+	Mountain mountain(int id, String name) {
+		return mountain(id, name, 0.0);
+	}
+
+	Mountain mountain(int id, String name, double height) {
+		return new Mountain(id, name, height, "", "", "", "", 0.0, "", 0.0, "", "");
+	}
+
+	@Test
+	void testDeletions() {
+		assertEquals(Set.of("dom"), MountainDeleteIndex.deletions("dom", 0));
+		assertEquals(Set.of("dom", "om", "dm", "do"), MountainDeleteIndex.deletions("dom", 1));
+		assertEquals(Set.of("dom", "om", "dm", "do", "m", "o", "d"), MountainDeleteIndex.deletions("dom", 2));
+		assertEquals(Set.of("aa", "a", ""), MountainDeleteIndex.deletions("aa", 2));
+	}
+
+	@Test
+	void testFindBest() {
+		assertEquals(List.of(data.get(0), data.get(3)), index.findBest("EIGR", 2, 5));
+		assertEquals(List.of(data.get(2)), index.findBest("jungfra", 2, 5));
+		assertEquals(List.of(data.get(1)), index.findBest("monch", 2, 5));
+		assertEquals(List.of(), index.findBest("matterhorn", 2, 5));
+	}
+
+	@Test
+	void testRanking() {
+		data.setAll(mountain(1, "Piz Palue", 3905.0), mountain(2, "Piz Pali", 2800.0), mountain(3, "Piz Palu", 3900.0),
+				mountain(4, "Piz Palu", 3000.0), mountain(5, "Piz Pal", 2000.0));
+		assertEquals(List.of(data.get(2), data.get(3), data.get(0), data.get(1), data.get(4)),
+				index.findBest("piz palu", 2, 10));
+
+		// only the best ones are kept
+		assertEquals(List.of(data.get(2), data.get(3)), index.findBest("piz palu", 2, 2));
+		assertEquals(List.of(data.get(2), data.get(3), data.get(0)), index.findBest("piz palu", 2, 3));
+		assertEquals(List.of(), index.findBest("piz palu", 2, 0));
+	}
+
+	@Test
+	void testUpdate() {
+		data.get(0).setName("Dom");
+		assertEquals(List.of(data.get(3)), index.findBest("eiger", 2, 5));
+		assertEquals(List.of(data.get(0)), index.findBest("dom", 0, 5));
+
+		data.remove(3);
+		assertEquals(List.of(), index.findBest("eiger", 2, 5));
+
+		for (int i = 0; i < 100; i++) {
+			data.add(mountain(10 + i, "Gipfel " + i));
+		}
+		data.remove(3, data.size());
+		assertEquals(List.of(), index.findBest("gipfel 1", 2, 5));
+		data.add(mountain(5, "Weisshorn"));
+		assertEquals(List.of(data.get(3)), index.findBest("weishorn", 1, 5));
+	}
+}
@@ -0,0 +1,64 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TestMountainDictionary {
+
+	@Test
+	void testAcquireAndRelease() {
+		MountainDictionary dictionary = new MountainDictionary();
+		int wallis = dictionary.acquire(new String("Wallis"));
+
+		assertEquals(wallis, dictionary.acquire(new String("Wallis")));
+		assertEquals(wallis, dictionary.code(new String("Wallis")));
+		assertNotEquals(wallis, dictionary.acquire("Bern"));
+		assertSame(dictionary.value(wallis), dictionary.value(dictionary.code("Wallis")));
+		assertEquals(2, dictionary.size());
+		assertEquals(MountainDictionary.NO_CODE, dictionary.acquire(null));
+		assertEquals(MountainDictionary.NO_CODE, dictionary.code(null));
+
+		// a value is removed with its last reference, and its code is given to the next new value
+		dictionary.release(wallis);
+		assertEquals(2, dictionary.size());
+		dictionary.release(wallis);
+		assertEquals(1, dictionary.size());
+		assertEquals(MountainDictionary.NO_CODE, dictionary.code("Wallis"));
+		assertEquals(wallis, dictionary.acquire("Uri"));
+		assertEquals("Uri", dictionary.value(wallis));
+	}
+
+	@Test
+	void testEditedValuesReleased() {
+		Mountain mountain = new Mountain(1, "Eins", 1.0, "", "", "", "", 0.0, "", 0.0, "", "");
+		int size = MountainDictionary.REGION.size();
+
+		// the values typed while editing don't stay in the dictionary
+		for (String region : new String[] { "G", "Gr", "Gra", "Grau", "Graub\u00fcnden" }) {
+			mountain.setRegion(region);
+		}
+		assertEquals(MountainDictionary.NO_CODE, MountainDictionary.REGION.code("Grau"));
+		assertEquals(mountain.getRegionCode(), MountainDictionary.REGION.code("Graub\u00fcnden"));
+		assertTrue(MountainDictionary.REGION.size() <= size + 1);
+	}
+
+	@Test
+	void testMountain() {
+		Mountain first = new Mountain(1, "Eins", 1.0, new String("Hauptgipfel"), new String("Wallis"), "VS", "",
+				0.0, "", 0.0, "", "");
+		Mountain second = new Mountain(2, "Zwei", 2.0, new String("Hauptgipfel"), new String("Bern"), "BE", "",
+				0.0, "", 0.0, "", "");
+
+		assertSame(first.getType(), second.getType());
+		assertEquals(first.getTypeCode(), second.getTypeCode());
+		assertNotEquals(first.getRegionCode(), second.getRegionCode());
+
+		second.setRegion(new String("Wallis"));
+		assertSame(first.getRegion(), second.getRegion());
+		assertEquals(first.getRegionCode(), second.getRegionCode());
+	}
+}
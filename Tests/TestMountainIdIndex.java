@@ -0,0 +1,72 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainIdIndex {
+
+	ObservableList<Mountain> data;
+	MountainIdIndex index;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		data = FXCollections.observableArrayList();
+		for (int i = 0; i < 100; i++) {
+			data.add(new Mountain(i, "Berg" + i, 1000.0 + i, "Testberg", "Test Region",
+					"Aargau", "Flachland", 300.0, "Isolationspunkt", 500.0,
+					"Scharte123", "Eine Bildunterschrift"));
+		}
+		index = new MountainIdIndex(data);
+	}
+
+	@Test
+	void testGet() {
+		for (Mountain mountain : data) {
+			assertSame(mountain, index.get(mountain.getId()));
+		}
+		assertNull(index.get(MountainModel.NO_SELECTION));
+	}
+
+	@Test
+	void testAddAndRemove() {
+		Mountain mountain = new Mountain(100000, "NBergname", 1000.0, "Testberg", "Test Region",
+				"Aargau", "Flachland", 300.0, "Isolationspunkt", 500.0,
+				"Scharte123", "Eine Bildunterschrift");
+		data.add(mountain);
+		assertSame(mountain, index.get(100000));
+
+		data.remove(mountain);
+		assertNull(index.get(100000));
+
+		data.remove(0, 50);
+		assertNull(index.get(10));
+		assertSame(data.get(0), index.get(50));
+	}
+
+	@Test
+	void testIdChange() {
+		Mountain mountain = data.get(5);
+		mountain.setId(4711);
+		assertNull(index.get(5));
+		assertSame(mountain, index.get(4711));
+	}
+
+	@Test
+	void testDuplicateId() {
+		Mountain duplicate = new Mountain(7, "Doppelberg", 1000.0, "Testberg", "Test Region",
+				"Aargau", "Flachland", 300.0, "Isolationspunkt", 500.0,
+				"Scharte123", "Eine Bildunterschrift");
+		Mountain original = data.get(7);
+		data.add(duplicate);
+		assertSame(original, index.get(7));
+
+		data.remove(original);
+		assertSame(duplicate, index.get(7));
+	}
+}
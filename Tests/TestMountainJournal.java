@@ -0,0 +1,179 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainJournal {
+
+	Path directory;
+	Path csvFile;
+	MountainJournal journal;
+	ObservableList<Mountain> data;
+	MountainChangeTracker tracker;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		directory = Files.createTempDirectory("journal");
+		csvFile = directory.resolve("mountains.csv");
+		Files.write(csvFile, Arrays.asList("#id;name",
+				"1;Eins;1.0;;;;;0.0;;0.0;;",
+				"2;Zwei;2.0;;;;;0.0;;0.0;;",
+				"3;Drei;3.0;;;;;0.0;;0.0;;"), StandardCharsets.UTF_8);
+		journal = new MountainJournal(directory.resolve("mountains.journal"), csvFile);
+		data = FXCollections.observableArrayList();
+		tracker = new MountainChangeTracker(data);
+		tracker.addWithoutTracking(MountainCsvReader.read(Files.newInputStream(csvFile)));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		for (Path file : Files.list(directory).toArray(Path[]::new)) {
+			Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	void testTracking() {
+		assertFalse(tracker.isDirty());
+
+		data.get(0).setName("Uno");
+		data.get(0).setHeight(1.5);
+		data.remove(1);
+		data.add(new Mountain(4, "Vier", 4.0, "", "", "", "", 0.0, "", 0.0, "", ""));
+
+		assertEquals(3, tracker.getDirtyCount());
+		assertEquals(Arrays.asList("D;2", "U;1;Uno;1.5;;;;;0.0;;0.0;;", "U;4;Vier;4.0;;;;;0.0;;0.0;;"),
+				tracker.getJournalRecords());
+
+		tracker.markSaved();
+		assertFalse(tracker.isDirty());
+	}
+
+	@Test
+	void testReplayAndCompact() throws Exception {
+		data.get(0).setName("Uno");
+		data.get(2).setId(30);
+		data.remove(1);
+		data.add(new Mountain(4, "Vier", 4.0, "", "", "", "", 0.0, "", 0.0, "", ""));
+		journal.append(tracker.getJournalRecords());
+		tracker.markSaved();
+		assertTrue(journal.size() > 0);
+
+		MountainJournal.Replay replay = journal.replay();
+		List<Mountain> loaded = replay.apply(MountainCsvReader.read(Files.newInputStream(csvFile)));
+		loaded.addAll(replay.remaining());
+		assertLines(loaded);
+
+		journal.compact();
+		assertEquals(0, journal.size());
+		assertLines(MountainCsvReader.read(Files.newInputStream(csvFile)));
+	}
+
+	void assertLines(List<Mountain> mountains) {
+		assertEquals(data.size(), mountains.size());
+		for (int i = 0; i < data.size(); i++) {
+			assertEquals(data.get(i).infoAsLine(), mountains.get(i).infoAsLine());
+		}
+	}
+
+	@Test
+	void testSaveService() throws Exception {
+		MountainSaveService saveService = new MountainSaveService(journal, csvFile, () -> { });
+		for (int i = 0; i < 100; i++) {
+			data.get(0).setHeight(i);
+			saveService.save(tracker.getJournalRecords(), () -> { }, () -> { });
+			tracker.markSaved();
+		}
+		saveService.awaitIdle();
+
+		assertFalse(saveService.savingProperty().get());
+		assertEquals(null, saveService.saveErrorProperty().get());
+		MountainJournal.Replay replay = journal.replay();
+		List<Mountain> loaded = replay.apply(MountainCsvReader.read(Files.newInputStream(csvFile)));
+		assertLines(loaded);
+	}
+
+	@Test
+	void testSaveServiceRetry() throws Exception {
+		// the journal can't be written while a directory is in its place
+		Path journalFile = directory.resolve("mountains.journal");
+		Files.createDirectory(journalFile);
+		MountainSaveService saveService = new MountainSaveService(journal, csvFile, () -> { });
+		List<String> failures = new ArrayList<>();
+
+		data.get(0).setName("Uno");
+		long version = tracker.getVersion();
+		saveService.save(tracker.getJournalRecords(), () -> tracker.markSaved(version), () -> failures.add("Uno"));
+		saveService.awaitIdle();
+
+		assertEquals(Arrays.asList("Uno"), failures);
+		assertTrue(tracker.isDirty());
+		assertTrue(saveService.hasPending());
+		assertNotNull(saveService.saveErrorProperty().get());
+
+		// the next save writes the changes of the failed one as well
+		Files.delete(journalFile);
+		data.remove(1);
+		long nextVersion = tracker.getVersion();
+		saveService.save(tracker.getJournalRecords(), () -> tracker.markSaved(nextVersion), () -> failures.add("Zwei"));
+		saveService.awaitIdle();
+
+		assertEquals(Arrays.asList("Uno"), failures);
+		assertFalse(tracker.isDirty());
+		assertFalse(saveService.hasPending());
+		assertEquals(null, saveService.saveErrorProperty().get());
+		assertLines(journal.replay().apply(MountainCsvReader.read(Files.newInputStream(csvFile))));
+	}
+
+	@Test
+	void testTrackingWhileSaving() {
+		data.get(0).setName("Uno");
+		data.add(new Mountain(4, "Vier", 4.0, "", "", "", "", 0.0, "", 0.0, "", ""));
+		long version = tracker.getVersion();
+		tracker.getJournalRecords();
+
+		// changes made while the save is written stay unsaved, and the added mountain needs a delete record now
+		data.get(1).setName("Due");
+		data.remove(3);
+		tracker.markSaved(version);
+
+		assertEquals(Arrays.asList("D;4", "U;2;Due;2.0;;;;;0.0;;0.0;;"), tracker.getJournalRecords());
+	}
+
+	@Test
+	void testEditLogRecovery() throws Exception {
+		MountainEditLog editLog = new MountainEditLog(directory.resolve("mountains.wal"));
+		editLog.recover();
+		tracker.setEditLog(editLog);
+		data.get(0).setName("Uno");
+		int segment = editLog.rotate();
+		data.remove(1);
+		editLog.discard(segment);
+		data.add(new Mountain(4, "Vier", 4.0, "", "", "", "", 0.0, "", 0.0, "", ""));
+		editLog.awaitIdle();
+
+		Map<Integer, Mountain> recovered = MountainJournal.parseRecords(
+				new MountainEditLog(directory.resolve("mountains.wal")).recover());
+		assertEquals(2, recovered.size());
+		assertEquals(null, recovered.get(2));
+		assertEquals("4;Vier;4.0;;;;;0.0;;0.0;;", recovered.get(4).infoAsLine());
+	}
+}
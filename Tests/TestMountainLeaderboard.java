@@ -0,0 +1,102 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainLeaderboard {
+
+	ObservableList<Mountain> data;
+	MountainLeaderboard heights;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, 4545.0), mountain(2, 4506.0), mountain(3, 3967.0),
+				mountain(4, 4506.0), mountain(5, 3614.0));
+		heights = new MountainLeaderboard(data, Mountain.Field.HEIGHT);
+	}
+
+	Mountain mountain(int id, double height) {
+		return new Mountain(id, "Berg " + id, height, "", "", "", "", 0.0, "", 0.0, "", "");
+	}
+
+	List<Mountain> mountains(int... indexes) {
+		return Arrays.stream(indexes).mapToObj(data::get).collect(Collectors.toList());
+	}
+
+	@Test
+	void testTopAndRank() {
+		assertEquals(5, heights.size());
+		assertEquals(mountains(0, 1, 3), heights.top(3));
+		assertEquals(mountains(0, 1, 3, 2, 4), heights.top(10));
+		assertEquals(mountains(), heights.top(0));
+		assertSame(data.get(2), heights.get(3));
+		assertNull(heights.get(5));
+
+		assertEquals(1, heights.rank(data.get(0)));
+		assertEquals(2, heights.rank(data.get(1)));
+		assertEquals(2, heights.rank(data.get(3)));
+		assertEquals(4, heights.rank(data.get(2)));
+		assertEquals(0, heights.rank(mountain(6, 5000.0)));
+		assertEquals(0, heights.rank(null));
+	}
+
+	@Test
+	void testUpdate() {
+		data.get(4).setHeight(4600.0);
+		assertEquals(mountains(4, 0), heights.top(2));
+		assertEquals(1, heights.rank(data.get(4)));
+
+		data.add(mountain(6, 4000.0));
+		assertEquals(5, heights.rank(data.get(5)));
+
+		data.remove(0);
+		assertEquals(mountains(3, 0, 2), heights.top(3));
+		assertEquals(5, heights.size());
+
+		heights.close();
+		data.get(1).setHeight(100.0);
+		assertSame(data.get(1), heights.get(4));
+	}
+
+	@Test
+	void testRandom() {
+		Random random = new Random(3);
+		ObservableList<Mountain> mountains = FXCollections.observableArrayList();
+		MountainLeaderboard leaderboard = new MountainLeaderboard(mountains, Mountain.Field.PROMINENCE);
+		for (int i = 0; i < 2000; i++) {
+			int action = random.nextInt(3);
+			if (action == 0 || mountains.isEmpty()) {
+				mountains.add(new Mountain(i, "Berg", 0.0, "", "", "", "", 0.0, "", random.nextInt(100), "", ""));
+			} else if (action == 1) {
+				mountains.remove(random.nextInt(mountains.size()));
+			} else {
+				mountains.get(random.nextInt(mountains.size())).setProminence(random.nextInt(100));
+			}
+		}
+		List<Mountain> sorted = new ArrayList<>(mountains);
+		sorted.sort(Comparator.comparingDouble(Mountain::getProminence).reversed());
+		List<Mountain> top = leaderboard.top(mountains.size());
+		assertEquals(mountains.size(), leaderboard.size());
+		for (int i = 0; i < sorted.size(); i++) {
+			assertEquals(sorted.get(i).getProminence(), top.get(i).getProminence());
+			assertSame(top.get(i), leaderboard.get(i));
+			double prominence = top.get(i).getProminence();
+			long larger = sorted.stream().filter(m -> m.getProminence() > prominence).count();
+			assertEquals(larger + 1, leaderboard.rank(top.get(i)));
+		}
+	}
+}
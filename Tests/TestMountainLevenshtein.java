@@ -0,0 +1,82 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TestMountainLevenshtein {
+
+	@Test
+	void testDistance() {
+		assertEquals(0, MountainLevenshtein.distance("eiger", "eiger"));
+		assertEquals(1, MountainLevenshtein.distance("eiger", "eigr"));
+		assertEquals(3, MountainLevenshtein.distance("kitten", "sitting"));
+		assertEquals(5, MountainLevenshtein.distance("", "domes"));
+		assertEquals(1, MountainLevenshtein.distance("m\u00f6nch", "monch"));
+		assertEquals(1, MountainLevenshtein.distance("\u0110om", "dom"));
+	}
+
+	@Test
+	void testBound() {
+		assertEquals(3, MountainLevenshtein.distance("kitten", "sitting", 3));
+		assertEquals(3, MountainLevenshtein.distance("kitten", "sitting", 2));
+		assertEquals(2, MountainLevenshtein.distance("eiger", "jungfrau", 1));
+		assertEquals(1, MountainLevenshtein.distance("dom", "", 0));
+	}
+
+	@Test
+	void testRandom() {
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			String lhs = random(random, random.nextInt(90));
+			String rhs = random.nextBoolean() ? random(random, random.nextInt(90)) : mutate(random, lhs);
+			int expected = reference(lhs, rhs);
+			assertEquals(expected, MountainLevenshtein.distance(lhs, rhs));
+			for (int max = 0; max <= 4; max++) {
+				assertEquals(Math.min(expected, max + 1), MountainLevenshtein.distance(lhs, rhs, max));
+			}
+		}
+	}
+
+	String random(Random random, int length) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			text.append(letter(random));
+		}
+		return text.toString();
+	}
+
+	String mutate(Random random, String text) {
+		StringBuilder mutated = new StringBuilder(text);
+		for (int edits = random.nextInt(5); edits > 0; edits--) {
+			int position = random.nextInt(mutated.length() + 1);
+			if (position < mutated.length() && random.nextBoolean()) {
+				mutated.deleteCharAt(position);
+			} else {
+				mutated.insert(position, letter(random));
+			}
+		}
+		return mutated.toString();
+	}
+
+	char letter(Random random) {
+		return random.nextInt(20) == 0 ? '\u0153' : (char) ('a' + random.nextInt(4));
+	}
+
+	int reference(String lhs, String rhs) {
+		int[][] cost = new int[lhs.length() + 1][rhs.length() + 1];
+		for (int i = 0; i <= lhs.length(); i++) {
+			for (int j = 0; j <= rhs.length(); j++) {
+				if (i == 0 || j == 0) {
+					cost[i][j] = i + j;
+				} else {
+					int match = lhs.charAt(i - 1) == rhs.charAt(j - 1) ? 0 : 1;
+					cost[i][j] = Math.min(cost[i - 1][j - 1] + match, Math.min(cost[i - 1][j], cost[i][j - 1]) + 1);
+				}
+			}
+		}
+		return cost[lhs.length()][rhs.length()];
+	}
+}
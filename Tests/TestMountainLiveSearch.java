@@ -0,0 +1,127 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainLiveSearch {
+
+	ObservableList<Mountain> data;
+	MountainLiveSearch search;
+	Semaphore applied;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, "Eiger"), mountain(2, "Moench"), mountain(3, "Jungfrau"),
+				mountain(4, "Kleiner Eiger"));
+		applied = new Semaphore(0);
+		search = new MountainLiveSearch(data, new MountainSlots(data), runnable -> {
+			synchronized (this) {
+				runnable.run();
+			}
+			applied.release();
+		}, 10);
+	}
+
+	@AfterEach
+	void tearDown() {
+		search.stop();
+	}
+
+	Mountain mountain(int id, String name) {
+		return new Mountain(id, name, 0.0, "", "", "", "", 0.0, "", 0.0, "", "");
+	}
+
+	void searchAndWait(String text) throws Exception {
+		synchronized (this) {
+			search.search(text);
+		}
+		assertTrue(applied.tryAcquire(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testSearch() throws Exception {
+		assertEquals(data, search.getResults());
+
+		searchAndWait("EI");
+		assertEquals(List.of(data.get(0), data.get(3)), search.getResults());
+
+		// narrows the previous result
+		searchAndWait("eige");
+		assertEquals(List.of(data.get(0), data.get(3)), search.getResults());
+		searchAndWait("kleiner");
+		assertEquals(List.of(data.get(3)), search.getResults());
+
+		// no name contains it, so the close names are shown
+		searchAndWait("jungfra");
+		assertEquals(List.of(data.get(2)), search.getResults());
+
+		synchronized (this) {
+			search.search("");
+		}
+		assertEquals(data, search.getResults());
+	}
+
+	@Test
+	void testStaleSearch() throws Exception {
+		synchronized (this) {
+			search.search("m");
+			search.search("mo");
+			search.search("ju");
+		}
+		assertTrue(applied.tryAcquire(5, TimeUnit.SECONDS));
+		assertEquals(List.of(data.get(2)), search.getResults());
+	}
+
+	@Test
+	void testUpdate() throws Exception {
+		searchAndWait("horn");
+		assertEquals(List.of(), search.getResults());
+
+		// the changed name is searched again
+		synchronized (this) {
+			data.get(1).setName("Matterhorn");
+		}
+		assertTrue(applied.tryAcquire(5, TimeUnit.SECONDS));
+		assertTrue(applied.tryAcquire(5, TimeUnit.SECONDS));
+		assertEquals(List.of(data.get(1)), search.getResults());
+	}
+
+	@Test
+	void testRejectedRescan() throws Exception {
+		search.stop();
+		boolean[] reject = new boolean[1];
+		search = new MountainLiveSearch(data, new MountainSlots(data), runnable -> {
+			if (reject[0]) {
+				throw new IllegalStateException("rejected");
+			}
+			synchronized (this) {
+				runnable.run();
+			}
+			applied.release();
+		}, 10);
+		searchAndWait("horn");
+
+		// a change, whose search is rejected, doesn't keep the next change from being searched
+		reject[0] = true;
+		assertThrows(IllegalStateException.class, () -> data.get(0).setName("Eigerhorn"));
+		reject[0] = false;
+		synchronized (this) {
+			data.get(1).setName("Matterhorn");
+		}
+		assertTrue(applied.tryAcquire(5, TimeUnit.SECONDS));
+		assertTrue(applied.tryAcquire(5, TimeUnit.SECONDS));
+		assertEquals(List.of(data.get(0), data.get(1)), search.getResults());
+	}
+}
@@ -3,8 +3,14 @@ package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -32,7 +38,7 @@ class TestMountainModel {
 
 	@BeforeEach
 	void setUp() throws Exception {
-		model = new MountainModel();
+		model = new MountainModel(MountainModel.LoadMode.SYNCHRONOUS, Runnable::run);
 		mountain = new Mountain(100000, "NBergname", 1000.0, "Testberg", "Test Region", 
 				"Aargau", "Flachland", 300.0, "Isolationspunkt", 500.0, 
 				"Scharte123", "Eine Bildunterschrift");
@@ -48,6 +54,7 @@ class TestMountainModel {
 	void tearDown() throws Exception {
 		model.getData().remove(mountain);
 		model.getData().remove(mountain2);
+		model.close();
 
 	}
 
@@ -63,6 +70,11 @@ class TestMountainModel {
 
         model.getData().get(0).setName(nameBefore);
         model.save();
+
+        //the mountains added by setUp have been saved, so they are removed from the journal again
+        model.getData().remove(mountain);
+        model.getData().remove(mountain2);
+        model.save();
 	}
 	
 	
@@ -106,6 +118,20 @@ class TestMountainModel {
 		
 	}
 	
+	@Test
+	void testSearchScharfPrevious() {
+		model.add(); //to select a different mountain
+		model.setSearchContent("nbergname");
+		model.searchScharfPrevious();
+		assertEquals(mountain2.getId(), model.getMountain(model.getSelectedMountainID()).getId());
+		
+		model.searchScharfPrevious();
+		assertEquals(mountain.getId(), model.getMountain(model.getSelectedMountainID()).getId());
+		
+		model.searchScharf();
+		assertEquals(mountain2.getId(), model.getMountain(model.getSelectedMountainID()).getId());
+	}
+	
 	@Test
 	void testSearchUnscharf() {
 		model.add(); //to select a different mountain
@@ -122,4 +148,114 @@ class TestMountainModel {
 	}
 	
 
+	@Test
+	void testSearchUnscharfDistance() {
+		model.add(); //to select a different mountain
+		//3 characters wrong, beyond the deletion dictionary
+		model.setSearchContent("nbrgnm");
+		model.searchUnscharf();
+		assertNotEquals(mountain.getId(), model.getSelectedMountainID());
+
+		model.searchUnscharf(3);
+		assertEquals(mountain.getId(), model.getSelectedMountainID());
+		assertSame(mountain, model.getFuzzyMatches().get(0));
+	}
+	
+
+	@Test
+	void testSearchUnscharfRanked() {
+		Mountain higher = new Mountain(300000, "NBerxname", 4000.0, "Testberg", "Test Region", 
+				"Bern", "Oberland", 400.0, "Isolationspunkt", 300.0, 
+				"Scharte123", "Eine Bildunterschrift");
+		model.getData().add(higher);
+		model.setSearchContent("nbergname");
+		model.searchUnscharf();
+		assertEquals(mountain.getId(), model.getSelectedMountainID());
+		assertSame(mountain, model.getFuzzyMatches().get(0));
+		assertSame(higher, model.getFuzzyMatches().get(1));
+		
+		//the next best match without searching again
+		model.searchUnscharf();
+		assertEquals(higher.getId(), model.getSelectedMountainID());
+		model.getData().remove(higher);
+	}
+
+
+	@Test
+	void testFilterByHeight() {
+		model.filterByHeight(100.0, 110.0);
+		assertTrue(model.isRangeFiltered());
+		assertTrue(model.getRangeResults().contains(mountain2));
+		assertFalse(model.getRangeResults().contains(mountain));
+		double last = 100.0;
+		for (Mountain result : model.getRangeResults()) {
+			assertTrue(result.getHeight() >= last && result.getHeight() <= 110.0);
+			last = result.getHeight();
+		}
+
+		Mountain lower = new Mountain(300000, "Filterberg", 105.0, "Testberg", "Test Region", 
+				"Bern", "Oberland", 400.0, "Isolationspunkt", 300.0, 
+				"Scharte123", "Eine Bildunterschrift");
+		model.getData().add(lower);
+		assertSame(lower, model.getRangeResults().get(model.getRangeResults().indexOf(mountain2) - 1));
+		model.getData().remove(lower);
+		assertFalse(model.getRangeResults().contains(lower));
+
+		model.clearRangeFilter();
+		assertFalse(model.isRangeFiltered());
+		assertTrue(model.getRangeResults().isEmpty());
+	}
+
+
+	@Test
+	void testTopAndSelectedRank() {
+		List<Mountain> top = model.getTop(Mountain.Field.HEIGHT, 3);
+		assertEquals(3, top.size());
+		assertTrue(top.get(0).getHeight() >= top.get(1).getHeight() && top.get(1).getHeight() >= top.get(2).getHeight());
+		model.setSelectedMountainID(top.get(0).getId());
+		assertEquals(1, model.getSelectedRank(Mountain.Field.HEIGHT));
+
+		model.filterByHeight(100.0, 1000.0);
+		model.setSelectedMountainID(mountain2.getId());
+		assertEquals(model.getRangeResults().size(), model.getSelectedRank(Mountain.Field.HEIGHT)
+				+ model.getRangeResults().indexOf(mountain2));
+		assertSame(mountain, model.getTop(Mountain.Field.HEIGHT, 1).get(0));
+		model.clearRangeFilter();
+	}
+
+
+	@Test
+	void testTopAfterEditOutOfRange() {
+		model.filterByHeight(100.0, 200.0);
+		assertTrue(model.getRangeResults().contains(mountain2));
+
+		//the edit moves the mountain out of the filter, so it isn't ranked among the results anymore
+		mountain2.setHeight(99999.0);
+		assertFalse(model.getRangeResults().contains(mountain2));
+		List<Mountain> top = model.getTop(Mountain.Field.HEIGHT, 1);
+		assertTrue(top.isEmpty() || top.get(0).getHeight() <= 200.0);
+		model.clearRangeFilter();
+	}
+
+
+	@Test
+	void testEditLogOwnedByOneModel() throws Exception {
+		Mountain logged = new Mountain(400000, "Logberg", 2000.0, "Testberg", "Test Region", 
+				"Bern", "Oberland", 400.0, "Isolationspunkt", 300.0, 
+				"Scharte123", "Eine Bildunterschrift");
+		model.getData().add(logged);
+		model.awaitSaved();
+
+		//a second model of the same data doesn't replay the live edit log of the first one
+		MountainModel other = new MountainModel(MountainModel.LoadMode.SYNCHRONOUS, Runnable::run);
+		assertNull(other.getMountain(logged.getId()));
+		other.dispose();
+
+		//the edit log survives disposing, so the next model recovers the unsaved mountain
+		model.dispose();
+		model = new MountainModel(MountainModel.LoadMode.SYNCHRONOUS, Runnable::run);
+		assertNotNull(model.getMountain(logged.getId()));
+		model.getData().remove(model.getMountain(logged.getId()));
+	}
+
 }
@@ -0,0 +1,45 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class TestMountainParallelScan {
+
+	static final int SIZE = 100 * MountainParallelScan.CHUNK_SIZE;
+
+	@Test
+	void testFindFirst() {
+		assertEquals(SIZE - 3, MountainParallelScan.findFirst(0, SIZE, i -> i >= SIZE - 3,
+				MountainParallelScan.NEVER_CANCELLED));
+		// the first match in order wins, even if a later chunk finds its match earlier
+		assertEquals(5000, MountainParallelScan.findFirst(0, SIZE, i -> i % 5000 == 0 && i > 0,
+				MountainParallelScan.NEVER_CANCELLED));
+		assertEquals(-1, MountainParallelScan.findFirst(0, SIZE, i -> false, MountainParallelScan.NEVER_CANCELLED));
+		assertEquals(12, MountainParallelScan.findFirst(10, 20, i -> i > 11, MountainParallelScan.NEVER_CANCELLED));
+	}
+
+	@Test
+	void testFindAll() {
+		int[] expected = IntStream.range(0, SIZE).filter(i -> i % 7 == 3).toArray();
+		assertArrayEquals(expected, MountainParallelScan.findAll(0, SIZE, i -> i % 7 == 3,
+				MountainParallelScan.NEVER_CANCELLED));
+		assertArrayEquals(new int[] { 10, 12 }, MountainParallelScan.findAll(10, 14, i -> i % 2 == 0,
+				MountainParallelScan.NEVER_CANCELLED));
+		assertArrayEquals(new int[0], MountainParallelScan.findAll(0, 0, i -> true,
+				MountainParallelScan.NEVER_CANCELLED));
+	}
+
+	@Test
+	void testCancel() {
+		AtomicInteger checked = new AtomicInteger();
+		assertNull(MountainParallelScan.findAll(0, SIZE, i -> checked.incrementAndGet() < 0,
+				() -> checked.get() > 1000));
+		assertEquals(-1, MountainParallelScan.findFirst(0, SIZE, i -> checked.incrementAndGet() < 0, () -> true));
+	}
+}
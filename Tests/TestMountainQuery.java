@@ -0,0 +1,141 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainQuery {
+
+	ObservableList<Mountain> data;
+	MountainSlots slots;
+	MountainQueryPlanner planner;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, "Dom", 4545.0, "Hauptgipfel", "Wallis"),
+				mountain(2, "Weisshorn", 4506.0, "Hauptgipfel", "Wallis"),
+				mountain(3, "Eiger", 3967.0, "Hauptgipfel", "Berner Alpen"),
+				mountain(4, "Nadelhorn", 4327.0, "Nebengipfel", "Wallis"),
+				mountain(5, "T\u00f6di", 3614.0, "Hauptgipfel", "Glarner Alpen"));
+		slots = new MountainSlots(data);
+		MountainIdIndex idIndex = new MountainIdIndex(data);
+		planner = new MountainQueryPlanner(slots, idIndex, new MountainTrigramIndex(slots));
+	}
+
+	Mountain mountain(int id, String name, double height, String type, String region) {
+		return new Mountain(id, name, height, type, region, "", "", 0.0, "", 0.0, "", "");
+	}
+
+	MountainQuery query() {
+		return new MountainQuery(slots, planner);
+	}
+
+	List<Mountain> mountains(int... indexes) {
+		return Arrays.stream(indexes).mapToObj(data::get).collect(Collectors.toList());
+	}
+
+	@Test
+	void testPlan() {
+		assertEquals("scan (5)", query().explain());
+		assertEquals("id (1)", query().whereEquals(Mountain.Field.ID, 3).explain());
+		assertEquals("range HEIGHT (1)", query().whereEquals(Mountain.Field.REGION, "Wallis")
+				.whereBetween(Mountain.Field.HEIGHT, 4000.0, 4400.0).explain());
+		assertEquals("bitmap (1)", query().whereEquals(Mountain.Field.TYPE, "Hauptgipfel")
+				.whereEquals(Mountain.Field.REGION, "Berner Alpen").explain());
+		assertEquals("trigram (2)", query().whereContains(Mountain.Field.NAME, "horn")
+				.whereBetween(Mountain.Field.HEIGHT, 4000.0, 5000.0).explain());
+		assertEquals("scan (5)", query().whereContains(Mountain.Field.NAME, "do").explain());
+	}
+
+	@Test
+	void testList() {
+		assertEquals(mountains(2), query().whereEquals(Mountain.Field.ID, 3).list());
+		assertEquals(mountains(0, 1), query().whereEquals(Mountain.Field.TYPE, "Hauptgipfel")
+				.whereEquals(Mountain.Field.REGION, "Wallis").list());
+		assertEquals(mountains(3, 1, 0), query().whereEquals(Mountain.Field.REGION, "Wallis")
+				.orderBy(Mountain.Field.HEIGHT, false).list());
+		assertEquals(mountains(1), query().whereContains(Mountain.Field.NAME, "HORN")
+				.whereEquals(Mountain.Field.TYPE, "Hauptgipfel").list());
+		assertEquals(mountains(1, 3), query().whereContains(Mountain.Field.NAME, "ho").list());
+		assertEquals(mountains(0, 1), query().orderBy(Mountain.Field.HEIGHT, true).limit(2).list());
+		assertEquals(mountains(2, 4), query().where(Mountain.Field.REGION, region -> ((String) region).endsWith("Alpen"))
+				.list());
+		assertEquals(mountains(), query().whereEquals(Mountain.Field.ID, 42).list());
+
+		List<Object[]> rows = query().whereBetween(Mountain.Field.HEIGHT, 4500.0, Double.POSITIVE_INFINITY)
+				.select(Mountain.Field.NAME, Mountain.Field.HEIGHT);
+		assertEquals(2, rows.size());
+		assertArrayEquals(new Object[] { "Dom", 4545.0 }, rows.get(0));
+		assertArrayEquals(new Object[] { "Weisshorn", 4506.0 }, rows.get(1));
+	}
+
+	@Test
+	void testLiveResults() {
+		MountainQuery query = query().whereEquals(Mountain.Field.REGION, "Wallis").orderBy(Mountain.Field.HEIGHT,
+				true);
+		ObservableList<Mountain> results = query.getResults();
+		assertEquals(mountains(0, 1, 3), results);
+
+		data.add(mountain(6, "Lenzspitze", 4294.0, "Hauptgipfel", "Wallis"));
+		assertEquals(mountains(0, 1, 3, 5), results);
+
+		data.get(3).setHeight(4600.0);
+		data.get(2).setRegion("Wallis");
+		assertEquals(mountains(3, 0, 1, 5, 2), results);
+
+		data.remove(0);
+		assertEquals(mountains(2, 0, 4, 1), results);
+
+		query.limit(2);
+		assertEquals(mountains(2, 0), results);
+		data.remove(2);
+		assertEquals(mountains(0, 3), results);
+
+		query.close();
+		data.remove(0);
+		assertEquals(2, results.size());
+	}
+
+	@Test
+	void testDuplicateId() {
+		data.add(mountain(3, "Jungfrau", 4158.0, "Hauptgipfel", "Berner Alpen"));
+		assertEquals("scan (6)", query().whereEquals(Mountain.Field.ID, 3).explain());
+		assertEquals(mountains(2, 5), query().whereEquals(Mountain.Field.ID, 3).list());
+
+		data.get(5).setId(7);
+		assertEquals("id (1)", query().whereEquals(Mountain.Field.ID, 3).explain());
+		assertEquals(mountains(2), query().whereEquals(Mountain.Field.ID, 3).list());
+	}
+
+	@Test
+	void testLimitedLiveResults() {
+		MountainQuery query = query().orderBy(Mountain.Field.HEIGHT, true).limit(3);
+		ObservableList<Mountain> results = query.getResults();
+		assertEquals(mountains(0, 1, 3), results);
+
+		// mountains after the last one aren't taken, the ones before it push the last one out
+		data.addAll(mountain(6, "Pilatus", 2128.0, "Hauptgipfel", "Luzern"),
+				mountain(7, "Dufourspitze", 4634.0, "Hauptgipfel", "Wallis"));
+		assertEquals(mountains(6, 0, 1), results);
+
+		// an edited mountain moves within the list or drops out of it
+		data.get(1).setHeight(4700.0);
+		assertEquals(mountains(1, 6, 0), results);
+		data.get(6).setHeight(1000.0);
+		assertEquals(mountains(1, 0, 3), results);
+
+		// the next mountain fills the place of a removed one
+		data.remove(1);
+		assertEquals(mountains(0, 2, 1), results);
+		query.close();
+	}
+}
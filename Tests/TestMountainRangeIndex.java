@@ -0,0 +1,69 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainRangeIndex {
+
+	ObservableList<Mountain> data;
+	MountainRangeIndex heights;
+	MountainRangeIndex prominences;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, 3970.0, 1200.0), mountain(2, 4107.0, 200.0),
+				mountain(3, 4158.0, 700.0), mountain(4, 3970.0, 50.0), mountain(5, 2200.0, 900.0));
+		MountainSlots slots = new MountainSlots(data);
+		heights = new MountainRangeIndex(slots, Mountain.Field.HEIGHT);
+		prominences = new MountainRangeIndex(slots, Mountain.Field.PROMINENCE);
+	}
+
+	Mountain mountain(int id, double height, double prominence) {
+		return new Mountain(id, "Berg " + id, height, "", "", "", "", 0.0, "", prominence, "", "");
+	}
+
+	List<Mountain> mountains(int... indexes) {
+		return Arrays.stream(indexes).mapToObj(data::get).collect(Collectors.toList());
+	}
+
+	@Test
+	void testFind() {
+		assertEquals(mountains(0, 3, 1), heights.findMountains(3970.0, 4107.0));
+		assertEquals(mountains(4, 0, 3), heights.findMountains(Double.NEGATIVE_INFINITY, 4000.0));
+		assertEquals(mountains(2), heights.findMountains(Math.nextUp(4107.0), Double.POSITIVE_INFINITY));
+		assertEquals(mountains(), heights.findMountains(4200.0, 5000.0));
+		assertEquals(mountains(), heights.findMountains(4000.0, 3000.0));
+		assertEquals(mountains(1, 2, 4), prominences.findMountains(100.0, 1000.0));
+	}
+
+	@Test
+	void testUpdate() {
+		data.get(4).setHeight(4000.0);
+		assertEquals(mountains(0, 3, 4, 1), heights.findMountains(3900.0, 4150.0));
+
+		data.add(mountain(6, 4100.0, 10.0));
+		data.add(mountain(7, 1000.0, 10.0));
+		assertEquals(mountains(0, 3, 4, 5, 1), heights.findMountains(3900.0, 4150.0));
+
+		// changed while added mountains are pending
+		data.add(mountain(8, 3980.0, 10.0));
+		data.get(0).setHeight(4500.0);
+		assertEquals(mountains(3, 7, 4, 5, 1), heights.findMountains(3900.0, 4150.0));
+
+		data.remove(3);
+		assertEquals(mountains(6, 3, 4, 1), heights.findMountains(3900.0, 4150.0));
+
+		data.add(0, mountain(9, 4000.0, 10.0));
+		assertEquals(mountains(7, 0, 4, 5, 2), heights.findMountains(3900.0, 4150.0));
+		assertEquals(mountains(0, 5, 6, 7), prominences.findMountains(0.0, 10.0));
+	}
+}
@@ -0,0 +1,60 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainSearchCursor {
+
+	ObservableList<Mountain> data;
+	MountainSearchCursor cursor;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(mountain(1, "Eiger"), mountain(2, "Moench"), mountain(3, "Jungfrau"),
+				mountain(4, "Kleiner Eiger"), mountain(5, "Eigerjoch"));
+		MountainSlots slots = new MountainSlots(data);
+		cursor = new MountainSearchCursor(slots, new MountainTrigramIndex(slots));
+	}
+
+	Mountain mountain(int id, String name) {
+		return new Mountain(id, name, 0.0, "", "", "", "", 0.0, "", 0.0, "", "");
+	}
+
+	@Test
+	void testNextAndPrevious() {
+		assertSame(data.get(0), cursor.next("eiger", null));
+		assertSame(data.get(3), cursor.next("eiger", data.get(0)));
+		assertSame(data.get(4), cursor.next("eiger", data.get(3)));
+		assertNull(cursor.next("eiger", data.get(4)));
+
+		assertSame(data.get(4), cursor.previous("eiger", null));
+		assertSame(data.get(3), cursor.previous("eiger", data.get(4)));
+		assertSame(data.get(0), cursor.previous("eiger", data.get(3)));
+		assertNull(cursor.previous("eiger", data.get(0)));
+
+		// starts next to a mountain which doesn't match
+		assertSame(data.get(3), cursor.next("eiger", data.get(2)));
+		assertSame(data.get(0), cursor.previous("eiger", data.get(1)));
+		assertSame(data.get(2), cursor.next("JUNG", data.get(1)));
+	}
+
+	@Test
+	void testUpdate() {
+		assertSame(data.get(0), cursor.next("eiger", null));
+
+		data.add(1, mountain(6, "Eiger Nordwand"));
+		assertSame(data.get(1), cursor.next("eiger", data.get(0)));
+
+		data.remove(4);
+		assertSame(data.get(4), cursor.next("eiger", data.get(1)));
+
+		data.get(2).setName("Eiger Mittellegi");
+		assertSame(data.get(2), cursor.previous("eiger", data.get(4)));
+	}
+}
@@ -0,0 +1,45 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainSearchKey {
+
+	@Test
+	void testOf() {
+		assertEquals("burglen", MountainSearchKey.of("B\u00fcrglen"));
+		assertEquals("glarnisch", MountainSearchKey.of("GL\u00c4RNISCH"));
+		assertEquals("piz palu ostgipfel", MountainSearchKey.of("  Piz Pal\u00fc - Ostgipfel."));
+		assertEquals("gross fiescherhorn", MountainSearchKey.of("Gross-Fiescherhorn"));
+		assertEquals("grossstrubel", MountainSearchKey.of("Gro\u00dfstrubel"));
+		assertEquals("", MountainSearchKey.of(null));
+	}
+
+	@Test
+	void testMountain() {
+		Mountain mountain = new Mountain(1, "Gl\u00e4rnisch", 0.0, "", "", "", "", 0.0, "", 0.0, "", "");
+		assertEquals("glarnisch", mountain.getSearchKey());
+
+		mountain.setName("B\u00fcrglen");
+		assertEquals("burglen", mountain.getSearchKey());
+
+		mountain.nameProperty().set("Sch\u00e4chentaler Windg\u00e4llen");
+		assertEquals("schachentaler windgallen", mountain.getSearchKey());
+	}
+
+	@Test
+	void testSearch() {
+		ObservableList<Mountain> data = FXCollections.observableArrayList(
+				new Mountain(1, "B\u00fcrglen", 0.0, "", "", "", "", 0.0, "", 0.0, "", ""),
+				new Mountain(2, "Gl\u00e4rnisch", 0.0, "", "", "", "", 0.0, "", 0.0, "", ""));
+		MountainSlots slots = new MountainSlots(data);
+		assertSame(data.get(0), new MountainTrigramIndex(slots).findNext("burglen", null));
+		assertSame(data.get(1), new MountainDeleteIndex(slots).findBest("glarnish", 2, 1).get(0));
+		assertSame(data.get(1), new MountainBkTree(slots).findFirst("GLARNISCH", 0));
+	}
+}
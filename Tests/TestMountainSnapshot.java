@@ -0,0 +1,75 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestMountainSnapshot {
+
+	Path file;
+	List<Mountain> mountains;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		file = Files.createTempFile("mountains", ".snapshot");
+		mountains = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			mountains.add(new Mountain(i, "Berg " + i, 1000.0 + i, "Hauptgipfel", i % 2 == 0 ? "Wallis" : "Bern",
+					"", "Gebiet", i / 10.0, "Isolationspunkt", 500.5, "L\u00f6tschenl\u00fccke", "Bild " + i));
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void testWriteAndRead() throws Exception {
+		new MountainSnapshot.Writer().add(mountains.subList(0, 1000)).add(mountains.subList(1000, 3000)).write(file);
+		MountainSnapshot snapshot = MountainSnapshot.open(file);
+
+		assertEquals(mountains.size(), snapshot.size());
+		List<Mountain> read = new ArrayList<>(snapshot.read(0, 10));
+		read.addAll(snapshot.read(10, snapshot.size()));
+		for (int i = 0; i < mountains.size(); i++) {
+			assertEquals(mountains.get(i).infoAsLine(), read.get(i).infoAsLine());
+		}
+		assertSame(read.get(0).getRegion(), read.get(2).getRegion());
+	}
+
+	@Test
+	void testInvalidFile() throws Exception {
+		Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17 });
+		assertThrows(IOException.class, () -> MountainSnapshot.open(file));
+	}
+
+	@Test
+	void testCorruptFile() throws Exception {
+		new MountainSnapshot.Writer().add(mountains.subList(0, 10)).write(file);
+		byte[] content = Files.readAllBytes(file);
+
+		// the name of the first mountain refers to a string after the end of the string table
+		byte[] corrupt = content.clone();
+		ByteBuffer.wrap(corrupt).putInt(16 + 10 * (4 + 3 * 8), 1000);
+		Files.write(file, corrupt);
+		assertThrows(IOException.class, () -> MountainSnapshot.open(file));
+
+		// the row count points beyond the end of the file
+		corrupt = content.clone();
+		ByteBuffer.wrap(corrupt).putInt(8, Integer.MAX_VALUE);
+		Files.write(file, corrupt);
+		assertThrows(IOException.class, () -> MountainSnapshot.open(file));
+	}
+}
@@ -0,0 +1,64 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestMountainStore {
+
+	MountainStore store;
+	Mountain first;
+	Mountain second;
+	List<String> changes;
+
+	@BeforeEach
+	void setUp() {
+		store = new MountainStore(1);
+		first = store.add(1, "Eins", 1.0, "Hauptgipfel", "Wallis", "VS", "", 0.0, "", 0.0, "", "");
+		second = store.add(2, "Zwei", 2.0, "Hauptgipfel", "Bern", "BE", "", 0.0, "", 0.0, "", "");
+		changes = new ArrayList<>();
+		second.addListener((mountain, field, oldValue, newValue) -> changes.add(field + ":" + oldValue + ">" + newValue));
+	}
+
+	@Test
+	void testRows() {
+		assertEquals(2, store.size());
+		assertEquals("1;Eins;1.0;Hauptgipfel;Wallis;VS;;0.0;;0.0;;", first.infoAsLine());
+		assertEquals("2;Zwei;2.0;Hauptgipfel;Bern;BE;;0.0;;0.0;;", second.infoAsLine());
+		assertEquals(first.getTypeCode(), second.getTypeCode());
+	}
+
+	@Test
+	void testSetWithoutProperty() {
+		second.setHeight(2.5);
+		second.setRegion("Wallis");
+		second.setRegion("Wallis");
+
+		assertEquals(2.5, store.getHeight(1));
+		assertEquals(first.getRegionCode(), second.getRegionCode());
+		assertEquals(List.of("HEIGHT:2.0>2.5", "REGION:Bern>Wallis"), changes);
+	}
+
+	@Test
+	void testProperty() {
+		List<Object> propertyChanges = new ArrayList<>();
+		second.nameProperty().addListener((observable, oldValue, newValue) -> propertyChanges.add(newValue));
+		assertSame(second, second.nameProperty().getBean());
+		assertEquals("name", second.nameProperty().getName());
+		assertEquals("Zwei", second.nameProperty().get());
+
+		second.setName("Deux");
+		second.nameProperty().set("Due");
+		second.idProperty().set(20);
+
+		assertEquals("Due", store.getName(1));
+		assertEquals(20, second.getId());
+		assertEquals(List.of("Deux", "Due"), propertyChanges);
+		assertEquals(List.of("NAME:Zwei>Deux", "NAME:Deux>Due", "ID:2>20"), changes);
+	}
+}
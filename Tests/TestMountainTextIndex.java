@@ -0,0 +1,70 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainTextIndex {
+
+	ObservableList<Mountain> data;
+	MountainTextIndex index;
+
+	@BeforeEach
+	void setUp() {
+		data = FXCollections.observableArrayList(
+				new Mountain(1, "Eiger", 3967.0, "Gipfel", "Berner Oberland", "BE", "Berner Alpen", 0.0, "Moench",
+						0.0, "Moench", "Die Eiger Nordwand"),
+				new Mountain(2, "Moench", 4107.0, "Gipfel", "Berner Oberland", "BE", "Berner Alpen", 0.0, "Jungfrau",
+						0.0, "Jungfraujoch", "Der Moench vom Eiger aus"),
+				new Mountain(3, "Piz Bernina", 4048.0, "Gipfel", "Engadin", "GR", "Bernina Alpen", 0.0, "Mont Blanc",
+						0.0, "Mont Blanc", "Der Biancograt"));
+		index = new MountainTextIndex(new MountainSlots(data));
+	}
+
+	@Test
+	void testTokenize() {
+		assertArrayEquals(new String[] { "piz", "palu", "ostgipfel" }, MountainTextIndex.tokenize("Piz Pal\u00fc - Ostgipfel"));
+		assertArrayEquals(new String[0], MountainTextIndex.tokenize(" - "));
+	}
+
+	@Test
+	void testSearch() {
+		// the name counts more than the caption and the isolation point
+		assertEquals(List.of(data.get(0), data.get(1)), index.search("EIGER", 10));
+		assertEquals(List.of(data.get(1), data.get(0)), index.search("moench", 10));
+
+		// every field is searched
+		assertEquals(List.of(data.get(2)), index.search("biancograt", 10));
+		assertEquals(List.of(data.get(2)), index.search("engadin", 10));
+		assertEquals(List.of(data.get(1)), index.search("jungfraujoch", 10));
+
+		// mountains with more of the words rank first
+		assertEquals(List.of(data.get(0), data.get(1), data.get(2)), index.search("eiger nordwand alpen", 10));
+		assertEquals(List.of(data.get(0)), index.search("eiger nordwand alpen", 1));
+		assertEquals(List.of(), index.search("matterhorn", 10));
+	}
+
+	@Test
+	void testUpdate() {
+		data.get(2).setCaption("Die Eiger Nordwand");
+		assertEquals(List.of(), index.search("biancograt", 10));
+		assertEquals(List.of(data.get(0), data.get(2), data.get(1)), index.search("eiger", 10));
+
+		data.get(2).regionProperty().set("Wallis");
+		assertEquals(List.of(data.get(2)), index.search("wallis", 10));
+		assertEquals(List.of(), index.search("engadin", 10));
+
+		data.remove(0);
+		assertEquals(List.of(data.get(1), data.get(0)), index.search("eiger", 10));
+		data.add(new Mountain(4, "Matterhorn", 4478.0, "Gipfel", "Wallis", "VS", "Walliser Alpen", 0.0, "Weisshorn",
+				0.0, "Dent Blanche", "Das Horu"));
+		assertEquals(List.of(data.get(1), data.get(2)), index.search("wallis", 10));
+	}
+}
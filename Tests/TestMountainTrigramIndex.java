@@ -0,0 +1,69 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+class TestMountainTrigramIndex {
+
+	ObservableList<Mountain> data;
+	MountainTrigramIndex index;
+	Mountain eiger;
+	Mountain moench;
+	Mountain jungfrau;
+
+	@BeforeEach
+	void setUp() {
+		eiger = mountain(1, "Eiger");
+		moench = mountain(2, "M\u00f6nch");
+		jungfrau = mountain(3, "Jungfrau");
+		data = FXCollections.observableArrayList(eiger, moench, jungfrau);
+		index = new MountainTrigramIndex(new MountainSlots(data));
+	}
+
+	Mountain mountain(int id, String name) {
+		return new Mountain(id, name, 0.0, "", "", "", "", 0.0, "", 0.0, "", "");
+	}
+
+	@Test
+	void testFind() {
+		assertSame(eiger, index.findNext("EIG", null));
+		assertSame(jungfrau, index.findNext("gfra", null));
+		assertSame(jungfrau, index.findNext("u", null));
+		assertSame(jungfrau, index.findNext("n", moench));
+		assertNull(index.findNext("eig", eiger));
+		assertNull(index.findNext("xyz", null));
+		assertEquals(Arrays.asList(moench, jungfrau), index.findAll("n"));
+	}
+
+	@Test
+	void testUpdate() {
+		eiger.setName("Titlis");
+		assertNull(index.findNext("eiger", null));
+		assertSame(eiger, index.findNext("itli", null));
+
+		Mountain dom = mountain(4, "Dom");
+		data.add(dom);
+		data.remove(moench);
+		assertSame(dom, index.findNext("dom", null));
+		assertNull(index.findNext("m\u00f6n", null));
+
+		data.add(0, mountain(5, "Grosser Mythen"));
+		assertEquals(Arrays.asList(data.get(0), jungfrau), index.findAll("r"));
+
+		FXCollections.sort(data, (a, b) -> a.getName().compareTo(b.getName()));
+		Collections.reverse(data);
+		assertEquals(Arrays.asList(eiger, data.get(2)), index.findAll("t"));
+		assertEquals(Arrays.asList(data.get(2)), index.findAll("the"));
+		assertSame(data.get(2), index.findNext("ser", jungfrau));
+	}
+}
@@ -1,15 +1,20 @@
 package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.DoublePropertyBase;
 import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.IntegerPropertyBase;
+import javafx.beans.property.Property;
 import javafx.beans.property.StringProperty;
+import javafx.beans.property.StringPropertyBase;
 
 
 /**
  * A mountain object that contains all the information that was loaded from the data stored in properties.
+ * The values are kept in a columnar store and the properties are only created when they are asked for.
  * 
  * @author Benjamin Huber
  * @author Tabea Eggler
@@ -18,64 +23,69 @@ import javafx.beans.property.StringProperty;
 public class Mountain {
 	
 	/**
-	 *  the ID of this mountain
-	 */
-	private final IntegerProperty id = new SimpleIntegerProperty();
-	
-	/**
-	 * the name of this mountain
+	 * the fields of a mountain
 	 */
-	private final StringProperty name = new SimpleStringProperty();
-	
-	/**
-	 * the height of this mountain
-	 */
-	private final DoubleProperty height = new SimpleDoubleProperty();
-	
-	/**
-	 * the type this mountain is of
-	 */
-	private final StringProperty type = new SimpleStringProperty();
-	
-	/**
-	 * the region, which contains this mountain
-	 */
-	private final StringProperty region = new SimpleStringProperty();
-	
-	/**
-	 * cantons the cantons in which this mountain is
-	 */
-	private final StringProperty cantons = new SimpleStringProperty();
-	
+	public enum Field {
+		ID("id"), NAME("name"), HEIGHT("height"), TYPE("type"), REGION("region"), CANTONS("cantons"), RANGE("range"),
+		ISOLATION("isolation"), ISOLATION_POINT("isolationPoint"), PROMINENCE("prominence"),
+		PROMINENCE_POINT("prominencePoint"), CAPTION("caption");
+
+		/**
+		 * the name of the property of this field
+		 */
+		private final String propertyName;
+
+
+		/**
+		 * Constructs a new field.
+		 * 
+		 * @param propertyName the name of the property of this field
+		 */
+		Field(String propertyName) {
+			this.propertyName = propertyName;
+		}
+	}
+
 	/**
-	 * the area in which this mountain is
+	 * observes all fields of a mountain, without creating its properties
 	 */
-	private final StringProperty range = new SimpleStringProperty();
-	
+	interface Listener {
+
+		/**
+		 * Is called after a field of a mountain has changed.
+		 * 
+		 * @param mountain the changed mountain
+		 * @param field the changed field
+		 * @param oldValue the old value of the field
+		 * @param newValue the new value of the field
+		 */
+		void changed(Mountain mountain, Field field, Object oldValue, Object newValue);
+	}
+
 	/**
-	 * the dominance of this mountain
+	 * the listeners of a mountain without any listeners
 	 */
-	private final DoubleProperty isolation = new SimpleDoubleProperty();
-	
+	private static final Listener[] NO_LISTENERS = new Listener[0];
+
 	/**
-	 * the isolation point from which the isolation of this mountain is measured from
+	 * the store which contains the values of this mountain
 	 */
-	private final StringProperty isolationPoint = new SimpleStringProperty();
-	
+	private final MountainStore store;
+
 	/**
-	 * the prominence of this mountain
+	 * the row of this mountain in the store
 	 */
-	private final DoubleProperty prominence = new SimpleDoubleProperty();
-	
+	private final int row;
+
 	/**
-	 * the prominence point from which the prominence of this mountain is measured from
+	 * the properties which have been asked for, by the ordinal of their field, null until the first one is asked for
 	 */
-	private final StringProperty prominencePoint = new SimpleStringProperty();
-	
+	private Property<?>[] properties;
+
 	/**
-	 * the caption of the picture of this mountain
+	 * the listeners which observe all fields of this mountain
 	 */
-	private final StringProperty caption = new SimpleStringProperty();
+	private Listener[] listeners = NO_LISTENERS;
 	
 	/**
 	 * Constructs a new mountain object.
@@ -96,23 +106,26 @@ public class Mountain {
 	public Mountain(int id, String name, double height, String type, String region,
 			String cantons, String range, double isolation, String isolationPoint,
 			double prominence, String prominencePoint, String caption) {
-		this.id.set(id);
-		this.name.set(name);
-		this.height.set(height);
-		this.type.set(type);
-		this.region.set(region);
-		this.cantons.set(cantons);
-		this.range.set(range);
-		this.isolation.set(isolation);
-		this.isolationPoint.set(isolationPoint);
-		this.prominence.set(prominence);
-		this.prominencePoint.set(prominencePoint);
-		this.caption.set(caption);
+		this.store = new MountainStore(1);
+		this.row = store.append(id, name, height, type, region, cantons, range, isolation, isolationPoint, prominence,
+				prominencePoint, caption);
 	}
 	
 	
 	public Mountain() {
-		// TODO Auto-generated constructor stub
+		this(0, null, 0.0, null, null, null, null, 0.0, null, 0.0, null, null);
+	}
+
+
+	/**
+	 * Constructs a view of a row of a store.
+	 * 
+	 * @param store the store which contains the values of this mountain
+	 * @param row the row of this mountain in the store
+	 */
+	Mountain(MountainStore store, int row) {
+		this.store = store;
+		this.row = row;
 	}
 
 
@@ -145,7 +158,7 @@ public class Mountain {
 	 * @return id the ID property of this mountain
 	 */
 	public IntegerProperty idProperty() {
-		return this.id;
+		return (IntegerProperty) property(Field.ID);
 	}
 	
 
@@ -155,7 +168,7 @@ public class Mountain {
 	 * @return id returns the ID of this mountain
 	 */
 	public int getId() {
-		return this.idProperty().get();
+		return store.getId(row);
 	}
 	
 	
@@ -165,7 +178,7 @@ public class Mountain {
 	 * @param id the ID of this mountain
 	 */
 	public void setId(final int id) {
-		this.idProperty().set(id);
+		set(Field.ID, id);
 	}
 	
 	
@@ -175,7 +188,7 @@ public class Mountain {
 	 * @return name the name property of this mountain
 	 */
 	public StringProperty nameProperty() {
-		return this.name;
+		return (StringProperty) property(Field.NAME);
 	}
 	
 	
@@ -185,7 +198,17 @@ public class Mountain {
 	 * @return name the name of this mountain 
 	 */
 	public String getName() {
-		return this.nameProperty().get();
+		return store.getName(row);
+	}
+	
+	
+	/**
+	 * Returns the search key of the name of this mountain, which is lower case and without diacritics and punctuation.
+	 * 
+	 * @return String the search key of the name of this mountain
+	 */
+	String getSearchKey() {
+		return store.getSearchKey(row);
 	}
 	
 	
@@ -195,7 +218,7 @@ public class Mountain {
 	 * @param name the name of this mountain
 	 */
 	public void setName(final String name) {
-		this.nameProperty().set(name);
+		set(Field.NAME, name);
 	}
 	
 	
@@ -205,7 +228,7 @@ public class Mountain {
 	 * @return height the height property of this mountain
 	 */
 	public DoubleProperty heightProperty() {
-		return this.height;
+		return (DoubleProperty) property(Field.HEIGHT);
 	}
 	
 	
@@ -215,7 +238,7 @@ public class Mountain {
 	 * @return height the height of this mountain 
 	 */
 	public double getHeight() {
-		return this.heightProperty().get();
+		return store.getHeight(row);
 	}
 	
 	
@@ -225,7 +248,7 @@ public class Mountain {
 	 * @param height the height of this mountain
 	 */
 	public void setHeight(final double height) {
-		this.heightProperty().set(height);
+		set(Field.HEIGHT, height);
 	}
 	
 	
@@ -235,7 +258,7 @@ public class Mountain {
 	 * @return type the type property of this mountain
 	 */
 	public StringProperty typeProperty() {
-		return this.type;
+		return (StringProperty) property(Field.TYPE);
 	}
 	
 
@@ -245,7 +268,17 @@ public class Mountain {
 	 * @return type the type of this mountain
 	 */
 	public String getType() {
-		return this.typeProperty().get();
+		return store.getType(row);
+	}
+	
+
+	/**
+	 * Returns the dictionary code of the type of this mountain, which is equal for mountains with an equal type.
+	 * 
+	 * @return int the dictionary code of the type of this mountain
+	 */
+	int getTypeCode() {
+		return store.getTypeCode(row);
 	}
 	
 
@@ -255,7 +288,7 @@ public class Mountain {
 	 * @param type the type of this mountain
 	 */
 	public void setType(final String type) {
-		this.typeProperty().set(type);
+		set(Field.TYPE, type);
 	}
 	
 
@@ -265,7 +298,7 @@ public class Mountain {
 	 * @return region the region property of this mountain
 	 */
 	public StringProperty regionProperty() {
-		return this.region;
+		return (StringProperty) property(Field.REGION);
 	}
 	
 
@@ -275,7 +308,17 @@ public class Mountain {
 	 * @return region the region of this mountain
 	 */
 	public String getRegion() {
-		return this.regionProperty().get();
+		return store.getRegion(row);
+	}
+	
+
+	/**
+	 * Returns the dictionary code of the region of this mountain, which is equal for mountains with an equal region.
+	 * 
+	 * @return int the dictionary code of the region of this mountain
+	 */
+	int getRegionCode() {
+		return store.getRegionCode(row);
 	}
 	
 
@@ -285,7 +328,7 @@ public class Mountain {
 	 * @param region the region of this mountain
 	 */
 	public void setRegion(final String region) {
-		this.regionProperty().set(region);
+		set(Field.REGION, region);
 	}
 	
 
@@ -295,7 +338,7 @@ public class Mountain {
 	 * @return cantons the cantons property of this mountain
 	 */
 	public StringProperty cantonsProperty() {
-		return this.cantons;
+		return (StringProperty) property(Field.CANTONS);
 	}
 	
 
@@ -305,7 +348,17 @@ public class Mountain {
 	 * @return cantons the cantons of this mountain.
 	 */
 	public String getCantons() {
-		return this.cantonsProperty().get();
+		return store.getCantons(row);
+	}
+	
+
+	/**
+	 * Returns the dictionary code of the cantons of this mountain, which is equal for mountains with an equal cantons.
+	 * 
+	 * @return int the dictionary code of the cantons of this mountain
+	 */
+	int getCantonsCode() {
+		return store.getCantonsCode(row);
 	}
 	
 	
@@ -315,7 +368,7 @@ public class Mountain {
 	 * @param cantons the cantons of this mountain
 	 */
 	public void setCantons(final String cantons) {
-		this.cantonsProperty().set(cantons);
+		set(Field.CANTONS, cantons);
 	}
 	
 
@@ -325,7 +378,7 @@ public class Mountain {
 	 * @return range the range property of this mountain
 	 */
 	public StringProperty rangeProperty() {
-		return this.range;
+		return (StringProperty) property(Field.RANGE);
 	}
 	
 
@@ -335,7 +388,17 @@ public class Mountain {
 	 * @return range the range of this mountain
 	 */
 	public String getRange() {
-		return this.rangeProperty().get();
+		return store.getRange(row);
+	}
+	
+
+	/**
+	 * Returns the dictionary code of the range of this mountain, which is equal for mountains with an equal range.
+	 * 
+	 * @return int the dictionary code of the range of this mountain
+	 */
+	int getRangeCode() {
+		return store.getRangeCode(row);
 	}
 	
 
@@ -345,7 +408,7 @@ public class Mountain {
 	 * @param range the range of this mountain
 	 */
 	public void setRange(final String range) {
-		this.rangeProperty().set(range);
+		set(Field.RANGE, range);
 	}
 	
 
@@ -355,7 +418,7 @@ public class Mountain {
 	 * @return isolation the isolation property of this mountain
 	 */
 	public DoubleProperty isolationProperty() {
-		return this.isolation;
+		return (DoubleProperty) property(Field.ISOLATION);
 	}
 	
 
@@ -365,7 +428,7 @@ public class Mountain {
 	 * @return isolation the isolation of this mountain
 	 */
 	public double getIsolation() {
-		return this.isolationProperty().get();
+		return store.getIsolation(row);
 	}
 	
 
@@ -375,7 +438,7 @@ public class Mountain {
 	 * @param isolation the isolation of this mountain
 	 */
 	public void setIsolation(final double isolation) {
-		this.isolationProperty().set(isolation);
+		set(Field.ISOLATION, isolation);
 	}
 	
 
@@ -385,7 +448,7 @@ public class Mountain {
 	 * @return isolationPoint the isolation point property of this mountain
 	 */
 	public StringProperty isolationPointProperty() {
-		return this.isolationPoint;
+		return (StringProperty) property(Field.ISOLATION_POINT);
 	}
 	
 
@@ -395,7 +458,17 @@ public class Mountain {
 	 * @return isolationPoint the isolation point of this mountain
 	 */
 	public String getIsolationPoint() {
-		return this.isolationPointProperty().get();
+		return store.getIsolationPoint(row);
+	}
+	
+
+	/**
+	 * Returns the dictionary code of the isolation point of this mountain, which is equal for mountains with an equal isolation point.
+	 * 
+	 * @return int the dictionary code of the isolation point of this mountain
+	 */
+	int getIsolationPointCode() {
+		return store.getIsolationPointCode(row);
 	}
 	
 
@@ -405,7 +478,7 @@ public class Mountain {
 	 * @param isolationPoint the isolationpoint of this mountain
 	 */
 	public void setIsolationPoint(final String isolationPoint) {
-		this.isolationPointProperty().set(isolationPoint);
+		set(Field.ISOLATION_POINT, isolationPoint);
 	}
 	
 
@@ -415,7 +488,7 @@ public class Mountain {
 	 * @return prominence the prominence property of this mountain
 	 */
 	public DoubleProperty prominenceProperty() {
-		return this.prominence;
+		return (DoubleProperty) property(Field.PROMINENCE);
 	}
 	
 
@@ -425,7 +498,7 @@ public class Mountain {
 	 * @return prominence the prominence of this mountain
 	 */
 	public double getProminence() {
-		return this.prominenceProperty().get();
+		return store.getProminence(row);
 	}
 	
 
@@ -435,7 +508,7 @@ public class Mountain {
 	 * @param promience the prominence of this mountain
 	 */
 	public void setProminence(final double promience) {
-		this.prominenceProperty().set(promience);
+		set(Field.PROMINENCE, promience);
 	}
 	
 
@@ -445,7 +518,7 @@ public class Mountain {
 	 * @return prominencePoint the prominence point property of this mountain
 	 */
 	public StringProperty prominencePointProperty() {
-		return this.prominencePoint;
+		return (StringProperty) property(Field.PROMINENCE_POINT);
 	}
 	
 
@@ -455,7 +528,17 @@ public class Mountain {
 	 * @return prominencePoint returns the prominence point of this mountain
 	 */
 	public String getProminencePoint() {
-		return this.prominencePointProperty().get();
+		return store.getProminencePoint(row);
+	}
+	
+
+	/**
+	 * Returns the dictionary code of the prominence point of this mountain, which is equal for mountains with an equal prominence point.
+	 * 
+	 * @return int the dictionary code of the prominence point of this mountain
+	 */
+	int getProminencePointCode() {
+		return store.getProminencePointCode(row);
 	}
 	
 
@@ -465,7 +548,7 @@ public class Mountain {
 	 * @param promiencePoint the prominence point of this mountain
 	 */
 	public void setProminencePoint(final String promiencePoint) {
-		this.prominencePointProperty().set(promiencePoint);
+		set(Field.PROMINENCE_POINT, promiencePoint);
 	}
 	
 
@@ -475,7 +558,7 @@ public class Mountain {
 	 * @return caption the caption property of this mountain
 	 */
 	public StringProperty captionProperty() {
-		return this.caption;
+		return (StringProperty) property(Field.CAPTION);
 	}
 	
 
@@ -485,7 +568,7 @@ public class Mountain {
 	 * @return caption the caption of this mountain
 	 */
 	public String getCaption() {
-		return this.captionProperty().get();
+		return store.getCaption(row);
 	}
 	
 
@@ -495,7 +578,297 @@ public class Mountain {
 	 * @param caption the caption of this mountain
 	 */
 	public void setCaption(final String caption) {
-		this.captionProperty().set(caption);
-	}	
-	
+		set(Field.CAPTION, caption);
+	}
+
+
+	/**
+	 * Adds a listener, which observes all fields of this mountain without creating its properties.
+	 * 
+	 * @param listener the listener to add
+	 */
+	void addListener(Listener listener) {
+		listeners = Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+	}
+
+
+	/**
+	 * Removes a listener, which observes all fields of this mountain.
+	 * 
+	 * @param listener the listener to remove
+	 */
+	void removeListener(Listener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				Listener[] remaining = listeners.length == 1 ? NO_LISTENERS : new Listener[listeners.length - 1];
+				System.arraycopy(listeners, 0, remaining, 0, i);
+				System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+				listeners = remaining;
+				return;
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the value of a field, without creating its property.
+	 * 
+	 * @param field the field
+	 * @return Object the value of the field, a number for the numeric fields
+	 */
+	Object get(Field field) {
+		return store.get(field, row);
+	}
+
+
+	/**
+	 * Returns the property of a field, creating it on first use. The property reads its value from the store and
+	 * writes every change back.
+	 * 
+	 * @param field the field of the property
+	 * @return Property the property of the field
+	 */
+	private Property<?> property(Field field) {
+		if (properties == null) {
+			properties = new Property<?>[Field.values().length];
+		}
+		Property<?> property = properties[field.ordinal()];
+		if (property == null) {
+			switch (field) {
+			case ID:
+				property = new RowIntegerProperty(this, field);
+				break;
+			case HEIGHT:
+			case ISOLATION:
+			case PROMINENCE:
+				property = new RowDoubleProperty(this, field);
+				break;
+			default:
+				property = new RowStringProperty(this, field);
+			}
+			properties[field.ordinal()] = property;
+		}
+		return property;
+	}
+
+
+	/**
+	 * Sets a field through its property if it has been created, so its listeners are notified, or directly in the
+	 * store otherwise.
+	 * 
+	 * @param field the field to set
+	 * @param value the new value
+	 */
+	@SuppressWarnings("unchecked")
+	private void set(Field field, Object value) {
+		Property<?> property = properties == null ? null : properties[field.ordinal()];
+		if (property != null) {
+			((Property<Object>) property).setValue(value);
+		} else {
+			write(field, value);
+		}
+	}
+
+
+	/**
+	 * Writes a new value into the store and notifies the listeners, if the value has changed.
+	 * 
+	 * @param field the field to write
+	 * @param value the new value
+	 */
+	private void write(Field field, Object value) {
+		Object oldValue = store.get(field, row);
+		if (Objects.equals(oldValue, value)) {
+			return;
+		}
+		store.set(field, row, value);
+		Object newValue = store.get(field, row);
+		for (Listener listener : listeners) {
+			listener.changed(this, field, oldValue, newValue);
+		}
+	}
+
+
+	/**
+	 * An integer property of a mountain, which is backed by the store.
+	 */
+	private static class RowIntegerProperty extends IntegerPropertyBase {
+
+		/**
+		 * the mountain this property belongs to
+		 */
+		private final Mountain mountain;
+
+		/**
+		 * the field of this property
+		 */
+		private final Field field;
+
+
+		/**
+		 * Constructs a new property with the current value of the field.
+		 * 
+		 * @param mountain the mountain this property belongs to
+		 * @param field the field of this property
+		 */
+		RowIntegerProperty(Mountain mountain, Field field) {
+			super(((Number) mountain.store.get(field, mountain.row)).intValue());
+			this.mountain = mountain;
+			this.field = field;
+		}
+
+
+		/**
+		 * Writes the new value into the store.
+		 */
+		@Override
+		protected void invalidated() {
+			mountain.write(field, get());
+		}
+
+
+		/**
+		 * Returns the mountain this property belongs to.
+		 * 
+		 * @return Object the mountain this property belongs to
+		 */
+		@Override
+		public Object getBean() {
+			return mountain;
+		}
+
+
+		/**
+		 * Returns the name of the field of this property.
+		 * 
+		 * @return String the name of the field
+		 */
+		@Override
+		public String getName() {
+			return field.propertyName;
+		}
+	}
+
+
+	/**
+	 * A double property of a mountain, which is backed by the store.
+	 */
+	private static class RowDoubleProperty extends DoublePropertyBase {
+
+		/**
+		 * the mountain this property belongs to
+		 */
+		private final Mountain mountain;
+
+		/**
+		 * the field of this property
+		 */
+		private final Field field;
+
+
+		/**
+		 * Constructs a new property with the current value of the field.
+		 * 
+		 * @param mountain the mountain this property belongs to
+		 * @param field the field of this property
+		 */
+		RowDoubleProperty(Mountain mountain, Field field) {
+			super(((Number) mountain.store.get(field, mountain.row)).doubleValue());
+			this.mountain = mountain;
+			this.field = field;
+		}
+
+
+		/**
+		 * Writes the new value into the store.
+		 */
+		@Override
+		protected void invalidated() {
+			mountain.write(field, get());
+		}
+
+
+		/**
+		 * Returns the mountain this property belongs to.
+		 * 
+		 * @return Object the mountain this property belongs to
+		 */
+		@Override
+		public Object getBean() {
+			return mountain;
+		}
+
+
+		/**
+		 * Returns the name of the field of this property.
+		 * 
+		 * @return String the name of the field
+		 */
+		@Override
+		public String getName() {
+			return field.propertyName;
+		}
+	}
+
+
+	/**
+	 * A string property of a mountain, which is backed by the store.
+	 */
+	private static class RowStringProperty extends StringPropertyBase {
+
+		/**
+		 * the mountain this property belongs to
+		 */
+		private final Mountain mountain;
+
+		/**
+		 * the field of this property
+		 */
+		private final Field field;
+
+
+		/**
+		 * Constructs a new property with the current value of the field.
+		 * 
+		 * @param mountain the mountain this property belongs to
+		 * @param field the field of this property
+		 */
+		RowStringProperty(Mountain mountain, Field field) {
+			super((String) mountain.store.get(field, mountain.row));
+			this.mountain = mountain;
+			this.field = field;
+		}
+
+
+		/**
+		 * Writes the new value into the store.
+		 */
+		@Override
+		protected void invalidated() {
+			mountain.write(field, get());
+		}
+
+
+		/**
+		 * Returns the mountain this property belongs to.
+		 * 
+		 * @return Object the mountain this property belongs to
+		 */
+		@Override
+		public Object getBean() {
+			return mountain;
+		}
+
+
+		/**
+		 * Returns the name of the field of this property.
+		 * 
+		 * @return String the name of the field
+		 */
+		@Override
+		public String getName() {
+			return field.propertyName;
+		}
+	}
 }
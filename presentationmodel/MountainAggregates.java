@@ -0,0 +1,139 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableMap;
+
+/**
+ * The summaries of the mountains grouped by the value of a field, e.g. one summary per region. The summaries are
+ * updated from the changes of the slots: an added or removed mountain is added to or removed from the summary of
+ * its group, a changed value is replaced in the summary of its group, and a mountain whose group changes moves to
+ * the summary of the new group. The summaries are never recomputed from all mountains, and don't depend on the
+ * slot numbers, so renumbering the mountains doesn't change them.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainAggregates {
+
+	/**
+	 * the field the mountains are grouped by, null for one group of all mountains
+	 */
+	private final Mountain.Field groupField;
+
+	/**
+	 * the summary of every group, empty groups are removed
+	 */
+	private final ObservableMap<String, MountainSummary> summaries = FXCollections.observableHashMap();
+
+
+	/**
+	 * Constructs the summaries of the mountains in the given slots.
+	 *
+	 * @param slots the slots of the summarized mountains
+	 * @param groupField the field the mountains are grouped by, null for one group of all mountains
+	 */
+	MountainAggregates(MountainSlots slots, Mountain.Field groupField) {
+		this.groupField = groupField;
+		if (groupField == null) {
+			summaries.put(null, new MountainSummary());
+		}
+		for (int slot = 0; slot < slots.end(); slot++) {
+			if (slots.get(slot) != null) {
+				add(group(slots.get(slot)), slots.get(slot));
+			}
+		}
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				add(group(slots.get(slot)), slots.get(slot));
+			}
+
+			@Override
+			public void removed(int slot) {
+				remove(group(slots.get(slot)), slots.get(slot));
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				Mountain mountain = slots.get(slot);
+				if (field == groupField) {
+					remove((String) oldValue, mountain);
+					add(group(mountain), mountain);
+				} else {
+					summaries.get(group(mountain)).change(field, oldValue, mountain.get(field));
+				}
+			}
+
+			@Override
+			public void renumbered() {
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the summary of every group.
+	 *
+	 * @return ObservableMap the summary of every group with at least one mountain, by the value of the group field
+	 */
+	ObservableMap<String, MountainSummary> getSummaries() {
+		return FXCollections.unmodifiableObservableMap(summaries);
+	}
+
+
+	/**
+	 * Returns the summary of a group.
+	 *
+	 * @param group the value of the group field, null for the group of all mountains
+	 * @return MountainSummary the summary of the group, null if the group is empty
+	 */
+	MountainSummary getSummary(String group) {
+		return summaries.get(group);
+	}
+
+
+	/**
+	 * Adds a mountain to the summary of a group, creating the summary of a new group.
+	 *
+	 * @param group the value of the group field
+	 * @param mountain the mountain
+	 */
+	private void add(String group, Mountain mountain) {
+		MountainSummary summary = summaries.get(group);
+		if (summary == null) {
+			summary = new MountainSummary();
+			summary.add(mountain);
+			summaries.put(group, summary);
+		} else {
+			summary.add(mountain);
+		}
+	}
+
+
+	/**
+	 * Removes a mountain from the summary of a group, removing the summary of an empty group.
+	 *
+	 * @param group the value of the group field
+	 * @param mountain the mountain
+	 */
+	private void remove(String group, Mountain mountain) {
+		MountainSummary summary = summaries.get(group);
+		summary.remove(mountain);
+		if (summary.getCount() == 0 && groupField != null) {
+			summaries.remove(group);
+		}
+	}
+
+
+	/**
+	 * Returns the group of a mountain.
+	 *
+	 * @param mountain the mountain
+	 * @return String the value of the group field, null if all mountains are in one group
+	 */
+	private String group(Mountain mountain) {
+		return groupField == null ? null : (String) mountain.get(groupField);
+	}
+}
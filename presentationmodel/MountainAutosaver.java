@@ -0,0 +1,293 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when unsaved changes are saved automatically. A save is started as soon as the user has been idle for a
+ * while. How long counts as idle adapts to the rate of the edits, so a burst of typing is not interrupted by saves,
+ * and to the duration of the last save, so slow saves are started less often. Changes are never left unsaved longer
+ * than a maximal time, and many unsaved changes are saved after the minimal idle time even during a burst. A failed
+ * save is retried, waiting twice as long after every further failure.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainAutosaver {
+
+	/**
+	 * the minimal time without edits in milliseconds, before a save is started
+	 */
+	static final long MIN_IDLE_DELAY = 1000;
+
+	/**
+	 * the maximal time without edits in milliseconds, before a save is started
+	 */
+	static final long MAX_IDLE_DELAY = 10000;
+
+	/**
+	 * the maximal time in milliseconds a change is left unsaved, unless the saves themselves take longer
+	 */
+	static final long MAX_DIRTY_TIME = 30000;
+
+	/**
+	 * the maximal time in milliseconds between a failed save and its retry
+	 */
+	static final long MAX_RETRY_DELAY = 60000;
+
+	/**
+	 * the number of unsaved mountains, from which on they are saved after the minimal idle time
+	 */
+	static final int MAX_DIRTY_COUNT = 1000;
+
+	/**
+	 * the factor between the time without edits, which counts as idle, and the average time between two edits
+	 */
+	private static final int IDLE_INTERVALS = 3;
+
+	/**
+	 * the factor between the time without edits and the duration of the last save, so saves take at most a fraction
+	 * of the time
+	 */
+	private static final int SAVE_DURATIONS = 4;
+
+	/**
+	 * the weight of the latest time between two edits in the average
+	 */
+	private static final double INTERVAL_WEIGHT = 0.3;
+
+	/**
+	 * starts the save, called on the save executor
+	 */
+	private final Runnable save;
+
+	/**
+	 * the executor the save is started on
+	 */
+	private final Executor saveExecutor;
+
+	/**
+	 * the timer thread, which is a daemon, so it doesn't keep the application running
+	 */
+	private final ScheduledExecutorService timer;
+
+	/**
+	 * the scheduled check for a due save, null if none is scheduled
+	 */
+	private ScheduledFuture<?> scheduled;
+
+	/**
+	 * the number of unsaved mountains
+	 */
+	private int dirtyCount;
+
+	/**
+	 * the time of the first unsaved change in milliseconds
+	 */
+	private long firstEdit;
+
+	/**
+	 * the time of the last change in milliseconds
+	 */
+	private long lastEdit;
+
+	/**
+	 * the moving average of the time between two edits in milliseconds, 0 if there haven't been two edits yet
+	 */
+	private double averageInterval;
+
+	/**
+	 * the duration of the last save in milliseconds
+	 */
+	private long lastSaveDuration;
+
+	/**
+	 * true while a started save hasn't been written yet
+	 */
+	private boolean saveRunning;
+
+	/**
+	 * the number of saves which have failed since the last written save
+	 */
+	private int failures;
+
+	/**
+	 * the time of the last failed save in milliseconds
+	 */
+	private long lastFailure;
+
+	/**
+	 * true as soon as the autosaver has been stopped
+	 */
+	private boolean stopped;
+
+
+	/**
+	 * Constructs a new autosaver.
+	 *
+	 * @param save starts the save, is called on the save executor
+	 * @param saveExecutor the executor the save is started on
+	 */
+	MountainAutosaver(Runnable save, Executor saveExecutor) {
+		this.save = save;
+		this.saveExecutor = saveExecutor;
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "mountain-autosave");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		timer = executor;
+	}
+
+
+	/**
+	 * Records an edit and schedules a save.
+	 *
+	 * @param dirtyCount the number of unsaved mountains after the edit
+	 */
+	void changed(int dirtyCount) {
+		changed(dirtyCount, System.currentTimeMillis());
+		schedule();
+	}
+
+
+	/**
+	 * Records an edit at the given time.
+	 *
+	 * @param dirtyCount the number of unsaved mountains after the edit
+	 * @param now the time of the edit in milliseconds
+	 */
+	synchronized void changed(int dirtyCount, long now) {
+		if (this.dirtyCount == 0) {
+			firstEdit = now;
+		} else {
+			double interval = Math.min(MAX_IDLE_DELAY, now - lastEdit);
+			averageInterval = averageInterval == 0 ? interval : averageInterval + (interval - averageInterval) * INTERVAL_WEIGHT;
+		}
+		this.dirtyCount = dirtyCount;
+		lastEdit = now;
+	}
+
+
+	/**
+	 * Records that a save has been started, so all changes up to now are saved.
+	 */
+	synchronized void saveStarted() {
+		dirtyCount = 0;
+		saveRunning = true;
+	}
+
+
+	/**
+	 * Records that a save has been written and schedules the next save, if there have been edits in the meantime.
+	 *
+	 * @param duration the duration of the save in milliseconds
+	 */
+	void saveFinished(long duration) {
+		synchronized (this) {
+			lastSaveDuration = duration;
+			saveRunning = false;
+			failures = 0;
+		}
+		schedule();
+	}
+
+
+	/**
+	 * Records that a save has failed and schedules its retry.
+	 *
+	 * @param dirtyCount the number of unsaved mountains, including the ones of the failed save
+	 */
+	void saveFailed(int dirtyCount) {
+		saveFailed(dirtyCount, System.currentTimeMillis());
+		schedule();
+	}
+
+
+	/**
+	 * Records that a save has failed at the given time, so its changes are unsaved again.
+	 *
+	 * @param dirtyCount the number of unsaved mountains, including the ones of the failed save
+	 * @param now the time of the failure in milliseconds
+	 */
+	synchronized void saveFailed(int dirtyCount, long now) {
+		saveRunning = false;
+		failures++;
+		lastFailure = now;
+		this.dirtyCount = Math.max(1, dirtyCount);
+	}
+
+
+	/**
+	 * Returns the time until the next save should be started.
+	 *
+	 * @param now the current time in milliseconds
+	 * @return long the delay in milliseconds, 0 if a save is due, -1 if there is nothing to save
+	 */
+	synchronized long getDelay(long now) {
+		if (dirtyCount == 0) {
+			return -1;
+		}
+		long idleDelay = (long) Math.min(MAX_IDLE_DELAY, Math.max(MIN_IDLE_DELAY, averageInterval * IDLE_INTERVALS));
+		idleDelay = Math.max(idleDelay, lastSaveDuration * SAVE_DURATIONS);
+		long due = lastEdit + idleDelay;
+		if (dirtyCount >= MAX_DIRTY_COUNT) {
+			due = Math.min(due, lastEdit + MIN_IDLE_DELAY);
+		}
+		due = Math.min(due, firstEdit + Math.max(MAX_DIRTY_TIME, lastSaveDuration * SAVE_DURATIONS));
+		if (saveRunning) {
+			due = Math.max(due, now + Math.max(MIN_IDLE_DELAY, lastSaveDuration));
+		}
+		if (failures > 0) {
+			due = Math.max(due, lastFailure + Math.min(MAX_RETRY_DELAY, MIN_IDLE_DELAY << Math.min(failures - 1, 16)));
+		}
+		return Math.max(0, due - now);
+	}
+
+
+	/**
+	 * Stops saving automatically and shuts the timer thread down. Changes recorded afterwards aren't saved anymore.
+	 */
+	synchronized void stop() {
+		stopped = true;
+		dirtyCount = 0;
+		scheduled = null;
+		timer.shutdownNow();
+	}
+
+
+	/**
+	 * Schedules a check for a due save, if none is scheduled already. The check is delayed only until the save
+	 * would have been due without further edits, and schedules itself again if the save has been postponed since.
+	 */
+	private synchronized void schedule() {
+		long delay = getDelay(System.currentTimeMillis());
+		if (stopped || delay < 0 || scheduled != null && scheduled.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+			return;
+		}
+		if (scheduled != null) {
+			scheduled.cancel(false);
+		}
+		scheduled = timer.schedule(this::check, delay, TimeUnit.MILLISECONDS);
+	}
+
+
+	/**
+	 * Starts the save if it is due, otherwise schedules the next check.
+	 */
+	private void check() {
+		synchronized (this) {
+			scheduled = null;
+			if (stopped || getDelay(System.currentTimeMillis()) != 0) {
+				schedule();
+				return;
+			}
+		}
+		saveExecutor.execute(save);
+	}
+}
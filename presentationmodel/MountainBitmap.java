@@ -0,0 +1,473 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of slots, split like a roaring bitmap into chunks of 65536 slots. The chunks are kept sorted by
+ * the upper 16 bits of their slots, and every chunk stores the lower 16 bits of its slots either as a sorted array,
+ * if it holds at most 4096 slots, or as a bitmap of 65536 bits otherwise. So sparse sets take two bytes per slot and
+ * dense sets one bit per slot.
+ *
+ * Two sets are combined chunk by chunk. Chunks which only occur in one of the sets are skipped by an intersection
+ * and copied by a union, and the bitmaps of two dense chunks are combined word by word.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainBitmap {
+
+	/**
+	 * the largest number of slots a chunk stores as an array
+	 */
+	static final int ARRAY_LIMIT = 4096;
+
+	/**
+	 * the number of 64 bit words of the bitmap of a chunk
+	 */
+	private static final int WORDS = 1024;
+
+	/**
+	 * the upper 16 bits of the slots of every chunk, sorted
+	 */
+	private char[] keys = new char[4];
+
+	/**
+	 * the chunks in the order of their keys
+	 */
+	private Chunk[] chunks = new Chunk[4];
+
+	/**
+	 * the number of chunks
+	 */
+	private int size;
+
+
+	/**
+	 * Adds a slot.
+	 *
+	 * @param slot the slot, not negative
+	 * @return boolean true if the slot wasn't in the set
+	 */
+	boolean add(int slot) {
+		char key = (char) (slot >>> 16);
+		int position = indexOf(key);
+		if (position < 0) {
+			position = -position - 1;
+			insert(position, key, new Chunk());
+		}
+		return chunks[position].add((char) slot);
+	}
+
+
+	/**
+	 * Removes a slot.
+	 *
+	 * @param slot the slot
+	 * @return boolean true if the slot was in the set
+	 */
+	boolean remove(int slot) {
+		int position = indexOf((char) (slot >>> 16));
+		if (position < 0 || !chunks[position].remove((char) slot)) {
+			return false;
+		}
+		if (chunks[position].cardinality == 0) {
+			System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+			System.arraycopy(chunks, position + 1, chunks, position, size - position - 1);
+			chunks[--size] = null;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Returns true if a slot is in the set.
+	 *
+	 * @param slot the slot
+	 * @return boolean true if the slot is in the set
+	 */
+	boolean contains(int slot) {
+		int position = indexOf((char) (slot >>> 16));
+		return position >= 0 && chunks[position].contains((char) slot);
+	}
+
+
+	/**
+	 * Returns the number of slots in the set.
+	 *
+	 * @return int the number of slots
+	 */
+	int cardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += chunks[i].cardinality;
+		}
+		return cardinality;
+	}
+
+
+	/**
+	 * Returns true if the set contains no slots.
+	 *
+	 * @return boolean true if the set is empty
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+
+	/**
+	 * Returns the slots which are in both sets.
+	 *
+	 * @param other the other set
+	 * @return MountainBitmap a new set with the intersection
+	 */
+	MountainBitmap and(MountainBitmap other) {
+		MountainBitmap result = new MountainBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				Chunk chunk = chunks[i].and(other.chunks[j]);
+				if (chunk.cardinality > 0) {
+					result.insert(result.size, keys[i], chunk);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns the slots which are in at least one of the sets.
+	 *
+	 * @param other the other set
+	 * @return MountainBitmap a new set with the union
+	 */
+	MountainBitmap or(MountainBitmap other) {
+		MountainBitmap result = new MountainBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size || j < other.size) {
+			if (j == other.size || i < size && keys[i] < other.keys[j]) {
+				result.insert(result.size, keys[i], chunks[i++].copy());
+			} else if (i == size || keys[i] > other.keys[j]) {
+				result.insert(result.size, other.keys[j], other.chunks[j++].copy());
+			} else {
+				result.insert(result.size, keys[i], chunks[i++].or(other.chunks[j++]));
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns the slots of the set.
+	 *
+	 * @return int[] the slots in increasing order
+	 */
+	int[] toArray() {
+		int[] result = new int[cardinality()];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			count = chunks[i].copyTo(keys[i] << 16, result, count);
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns the position of the chunk with a key.
+	 *
+	 * @param key the upper 16 bits of the slots of the chunk
+	 * @return int the position of the chunk, or (-(insertion point) - 1) if there is no chunk with the key
+	 */
+	private int indexOf(char key) {
+		if (size > 0 && keys[size - 1] == key) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+
+	/**
+	 * Inserts a chunk.
+	 *
+	 * @param position the position of the chunk
+	 * @param key the upper 16 bits of the slots of the chunk
+	 * @param chunk the chunk
+	 */
+	private void insert(int position, char key, Chunk chunk) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			chunks = Arrays.copyOf(chunks, size * 2);
+		}
+		System.arraycopy(keys, position, keys, position + 1, size - position);
+		System.arraycopy(chunks, position, chunks, position + 1, size - position);
+		keys[position] = key;
+		chunks[position] = chunk;
+		size++;
+	}
+
+
+	/**
+	 * The lower 16 bits of the slots of a chunk, stored as a sorted array or as a bitmap.
+	 */
+	private static class Chunk {
+
+		/**
+		 * the sorted lower 16 bits of the slots, null if the chunk is stored as a bitmap
+		 */
+		private char[] values = new char[4];
+
+		/**
+		 * the bitmap of the lower 16 bits of the slots, null if the chunk is stored as an array
+		 */
+		private long[] words;
+
+		/**
+		 * the number of slots in the chunk
+		 */
+		private int cardinality;
+
+
+		/**
+		 * Adds the lower 16 bits of a slot.
+		 *
+		 * @param low the lower 16 bits of the slot
+		 * @return boolean true if the slot wasn't in the chunk
+		 */
+		boolean add(char low) {
+			if (words != null) {
+				long bit = 1L << low;
+				if ((words[low >>> 6] & bit) != 0) {
+					return false;
+				}
+				words[low >>> 6] |= bit;
+				cardinality++;
+				return true;
+			}
+			int position = cardinality > 0 && values[cardinality - 1] < low ? -cardinality - 1
+					: Arrays.binarySearch(values, 0, cardinality, low);
+			if (position >= 0) {
+				return false;
+			}
+			if (cardinality == ARRAY_LIMIT) {
+				toBitmap();
+				return add(low);
+			}
+			position = -position - 1;
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+			}
+			System.arraycopy(values, position, values, position + 1, cardinality - position);
+			values[position] = low;
+			cardinality++;
+			return true;
+		}
+
+
+		/**
+		 * Removes the lower 16 bits of a slot.
+		 *
+		 * @param low the lower 16 bits of the slot
+		 * @return boolean true if the slot was in the chunk
+		 */
+		boolean remove(char low) {
+			if (words != null) {
+				long bit = 1L << low;
+				if ((words[low >>> 6] & bit) == 0) {
+					return false;
+				}
+				words[low >>> 6] &= ~bit;
+				if (--cardinality <= ARRAY_LIMIT) {
+					toArray();
+				}
+				return true;
+			}
+			int position = Arrays.binarySearch(values, 0, cardinality, low);
+			if (position < 0) {
+				return false;
+			}
+			System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+			cardinality--;
+			return true;
+		}
+
+
+		/**
+		 * Returns true if the lower 16 bits of a slot are in the chunk.
+		 *
+		 * @param low the lower 16 bits of the slot
+		 * @return boolean true if the slot is in the chunk
+		 */
+		boolean contains(char low) {
+			if (words != null) {
+				return (words[low >>> 6] & 1L << low) != 0;
+			}
+			return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+		}
+
+
+		/**
+		 * Returns the slots which are in both chunks.
+		 *
+		 * @param other the other chunk
+		 * @return Chunk a new chunk with the intersection
+		 */
+		Chunk and(Chunk other) {
+			Chunk result = new Chunk();
+			if (words != null && other.words != null) {
+				result.values = null;
+				result.words = new long[WORDS];
+				for (int i = 0; i < WORDS; i++) {
+					result.words[i] = words[i] & other.words[i];
+					result.cardinality += Long.bitCount(result.words[i]);
+				}
+				if (result.cardinality <= ARRAY_LIMIT) {
+					result.toArray();
+				}
+				return result;
+			}
+			Chunk sparse = words == null ? this : other;
+			Chunk dense = sparse == this ? other : this;
+			result.values = new char[sparse.cardinality];
+			for (int i = 0; i < sparse.cardinality; i++) {
+				if (dense.contains(sparse.values[i])) {
+					result.values[result.cardinality++] = sparse.values[i];
+				}
+			}
+			return result;
+		}
+
+
+		/**
+		 * Returns the slots which are in at least one of the chunks.
+		 *
+		 * @param other the other chunk
+		 * @return Chunk a new chunk with the union
+		 */
+		Chunk or(Chunk other) {
+			Chunk result = new Chunk();
+			if (words == null && other.words == null && cardinality + other.cardinality <= ARRAY_LIMIT) {
+				result.values = new char[Math.max(4, cardinality + other.cardinality)];
+				int i = 0;
+				int j = 0;
+				while (i < cardinality || j < other.cardinality) {
+					char next;
+					if (j == other.cardinality || i < cardinality && values[i] < other.values[j]) {
+						next = values[i++];
+					} else if (i == cardinality || values[i] > other.values[j]) {
+						next = other.values[j++];
+					} else {
+						next = values[i++];
+						j++;
+					}
+					result.values[result.cardinality++] = next;
+				}
+				return result;
+			}
+			result.words = bitmap();
+			result.values = null;
+			long[] otherWords = other.bitmap();
+			result.cardinality = 0;
+			for (int i = 0; i < WORDS; i++) {
+				result.words[i] |= otherWords[i];
+				result.cardinality += Long.bitCount(result.words[i]);
+			}
+			if (result.cardinality <= ARRAY_LIMIT) {
+				result.toArray();
+			}
+			return result;
+		}
+
+
+		/**
+		 * Returns a copy of the chunk.
+		 *
+		 * @return Chunk the copy
+		 */
+		Chunk copy() {
+			Chunk copy = new Chunk();
+			copy.values = values == null ? null : values.clone();
+			copy.words = words == null ? null : words.clone();
+			copy.cardinality = cardinality;
+			return copy;
+		}
+
+
+		/**
+		 * Copies the slots of the chunk into an array.
+		 *
+		 * @param high the upper 16 bits of the slots, shifted to their position
+		 * @param target the array
+		 * @param offset the position of the first copied slot in the array
+		 * @return int the position after the last copied slot
+		 */
+		int copyTo(int high, int[] target, int offset) {
+			if (words == null) {
+				for (int i = 0; i < cardinality; i++) {
+					target[offset++] = high | values[i];
+				}
+				return offset;
+			}
+			for (int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					target[offset++] = high | i << 6 | Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			return offset;
+		}
+
+
+		/**
+		 * Returns a new bitmap of the slots of the chunk.
+		 *
+		 * @return long[] the bitmap
+		 */
+		private long[] bitmap() {
+			if (words != null) {
+				return words.clone();
+			}
+			long[] bitmap = new long[WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				bitmap[values[i] >>> 6] |= 1L << values[i];
+			}
+			return bitmap;
+		}
+
+
+		/**
+		 * Stores the chunk as a bitmap.
+		 */
+		private void toBitmap() {
+			words = bitmap();
+			values = null;
+		}
+
+
+		/**
+		 * Stores the chunk as a sorted array.
+		 */
+		private void toArray() {
+			values = new char[Math.max(4, cardinality)];
+			int count = 0;
+			for (int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					values[count++] = (char) (i << 6 | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			words = null;
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A BK-tree over the search keys of the mountains, used to find names within a small edit distance of a search
+ * string. Every node holds a distinct name and the slots of the mountains with this name. The children of a node are
+ * keyed by their distance to it, so by the triangle inequality a search only has to visit the children whose
+ * distance lies within the allowed distance of the distance between the search string and the node.
+ *
+ * The tree is kept in sync with the slots and the names of the mountains. A name which isn't used anymore stays in
+ * the tree as an empty node, until the empty nodes outnumber the used ones and the tree is rebuilt before the next
+ * search.
+ *
+ * Beyond the largest distance of the children of a node plus the allowed distance, neither the node nor any of its
+ * children can match, so the distance to a node is only computed up to this bound.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainBkTree {
+
+	/**
+	 * the slots of the mountains which are indexed
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the node of every name in the tree
+	 */
+	private final Map<String, Node> nodes = new HashMap<>();
+
+	/**
+	 * the root of the tree, null if the tree is empty
+	 */
+	private Node root;
+
+	/**
+	 * the number of nodes without mountains
+	 */
+	private int emptyNodes;
+
+	/**
+	 * set if there are too many empty nodes and the tree has to be rebuilt before the next search
+	 */
+	private boolean stale;
+
+	/**
+	 * the search key of the mountain in every slot
+	 */
+	private String[] keys = new String[16];
+
+
+	/**
+	 * Constructs a new tree over the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are indexed
+	 */
+	MountainBkTree(MountainSlots slots) {
+		this.slots = slots;
+		rebuild();
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				if (slot >= keys.length) {
+					keys = Arrays.copyOf(keys, Math.max(slot + 1, keys.length * 2));
+				}
+				add(slot);
+			}
+
+			@Override
+			public void removed(int slot) {
+				remove(slot);
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				if (field == Mountain.Field.NAME) {
+					remove(slot);
+					add(slot);
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				rebuild();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the first mountain in the order of the data list, whose search key is within the given edit
+	 * distance of the search key of the search string.
+	 *
+	 * @param search the search string
+	 * @param maxDistance the largest allowed edit distance
+	 * @return Mountain the first matching mountain, null if there is none
+	 */
+	Mountain findFirst(String search, int maxDistance) {
+		if (stale) {
+			rebuild();
+		}
+		String query = MountainSearchKey.of(search);
+		int first = Integer.MAX_VALUE;
+		Deque<Node> pending = new ArrayDeque<>();
+		if (root != null) {
+			pending.push(root);
+		}
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			int distance = MountainLevenshtein.distance(query, node.key,
+					maxDistance + Math.max(0, node.children.length - 1));
+			if (distance <= maxDistance && node.size > 0) {
+				first = Math.min(first, node.first());
+			}
+			int from = Math.max(1, distance - maxDistance);
+			int to = Math.min(node.children.length - 1, distance + maxDistance);
+			for (int d = from; d <= to; d++) {
+				if (node.children[d] != null) {
+					pending.push(node.children[d]);
+				}
+			}
+		}
+		return first == Integer.MAX_VALUE ? null : slots.get(first);
+	}
+
+
+	/**
+	 * Returns the best mountains, whose search key is within the given edit distance of the search key of the search
+	 * string. The mountains are ranked like the ones of the deletion dictionary, by the distance of their name, then by
+	 * their height from the highest, and then in the order of the data list. Unlike the deletion dictionary, the tree
+	 * isn't limited to a distance of two. Once the best mountains have been found, the allowed distance shrinks to
+	 * the distance of the worst one, so fewer children are visited.
+	 *
+	 * @param search the search string
+	 * @param maxDistance the largest allowed edit distance
+	 * @param limit the largest number of mountains to return
+	 * @return List the best matching mountains, the best one first
+	 */
+	List<Mountain> findBest(String search, int maxDistance, int limit) {
+		List<Mountain> result = new ArrayList<>();
+		if (limit <= 0) {
+			return result;
+		}
+		if (stale) {
+			rebuild();
+		}
+		String query = MountainSearchKey.of(search);
+		PriorityQueue<MountainDeleteIndex.Match> best = new PriorityQueue<>(Comparator.reverseOrder());
+		int threshold = maxDistance;
+		Deque<Node> pending = new ArrayDeque<>();
+		if (root != null) {
+			pending.push(root);
+		}
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			int distance = MountainLevenshtein.distance(query, node.key,
+					threshold + Math.max(0, node.children.length - 1));
+			if (distance <= threshold) {
+				for (int i = 0; i < node.size; i++) {
+					int slot = node.slots[i];
+					MountainDeleteIndex.Match match = new MountainDeleteIndex.Match(distance,
+							slots.get(slot).getHeight(), slot);
+					if (best.size() < limit) {
+						best.add(match);
+					} else if (match.compareTo(best.peek()) < 0) {
+						best.poll();
+						best.add(match);
+					}
+				}
+				if (best.size() == limit) {
+					threshold = best.peek().distance;
+				}
+			}
+			int from = Math.max(1, distance - threshold);
+			int to = Math.min(node.children.length - 1, distance + threshold);
+			for (int d = from; d <= to; d++) {
+				if (node.children[d] != null) {
+					pending.push(node.children[d]);
+				}
+			}
+		}
+		MountainDeleteIndex.Match[] ranked = best.toArray(new MountainDeleteIndex.Match[0]);
+		Arrays.sort(ranked);
+		for (MountainDeleteIndex.Match match : ranked) {
+			result.add(slots.get(match.slot));
+		}
+		return result;
+	}
+
+
+	/**
+	 * Adds the mountain in a slot to the node of its name, inserting the node if the name is new.
+	 *
+	 * @param slot the slot of the mountain
+	 */
+	private void add(int slot) {
+		String key = slots.get(slot).getSearchKey();
+		keys[slot] = key;
+		Node node = nodes.get(key);
+		if (node == null) {
+			node = new Node(key);
+			nodes.put(key, node);
+			insert(node);
+		} else if (node.size == 0) {
+			emptyNodes--;
+		}
+		node.add(slot);
+	}
+
+
+	/**
+	 * Removes the mountain in a slot from the node of its name.
+	 *
+	 * @param slot the slot of the mountain
+	 */
+	private void remove(int slot) {
+		Node node = nodes.get(keys[slot]);
+		keys[slot] = null;
+		if (node == null || !node.remove(slot) || node.size > 0) {
+			return;
+		}
+		if (++emptyNodes > nodes.size() / 2 + 16) {
+			stale = true;
+		}
+	}
+
+
+	/**
+	 * Inserts a new node below the node whose child it belongs to.
+	 *
+	 * @param node the node to insert
+	 */
+	private void insert(Node node) {
+		if (root == null) {
+			root = node;
+			return;
+		}
+		Node parent = root;
+		while (true) {
+			int distance = MountainLevenshtein.distance(node.key, parent.key);
+			if (distance >= parent.children.length) {
+				parent.children = Arrays.copyOf(parent.children, distance + 1);
+			}
+			if (parent.children[distance] == null) {
+				parent.children[distance] = node;
+				return;
+			}
+			parent = parent.children[distance];
+		}
+	}
+
+
+	/**
+	 * Rebuilds the tree from all slots, dropping the empty nodes.
+	 */
+	private void rebuild() {
+		nodes.clear();
+		root = null;
+		emptyNodes = 0;
+		stale = false;
+		keys = new String[Math.max(16, slots.end())];
+		for (int slot = 0; slot < slots.end(); slot++) {
+			if (slots.get(slot) != null) {
+				add(slot);
+			}
+		}
+	}
+
+
+	/**
+	 * A node of the tree, which holds a distinct name and the sorted slots of the mountains with this name.
+	 */
+	private static class Node {
+
+		/**
+		 * the search key of this node
+		 */
+		private final String key;
+
+		/**
+		 * the children of this node by their distance to it
+		 */
+		private Node[] children = new Node[0];
+
+		/**
+		 * the sorted slots of the mountains with this name
+		 */
+		private int[] slots = new int[1];
+
+		/**
+		 * the number of slots
+		 */
+		private int size;
+
+
+		/**
+		 * Constructs a new node without mountains.
+		 *
+		 * @param key the search key of this node
+		 */
+		Node(String key) {
+			this.key = key;
+		}
+
+
+		/**
+		 * Returns the first slot of this node in the order of the data list.
+		 *
+		 * @return int the smallest slot
+		 */
+		int first() {
+			return slots[0];
+		}
+
+
+		/**
+		 * Adds a slot, keeping the slots sorted.
+		 *
+		 * @param slot the slot to add
+		 */
+		void add(int slot) {
+			int position = Arrays.binarySearch(slots, 0, size, slot);
+			if (position >= 0) {
+				return;
+			}
+			position = -position - 1;
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			System.arraycopy(slots, position, slots, position + 1, size - position);
+			slots[position] = slot;
+			size++;
+		}
+
+
+		/**
+		 * Removes a slot.
+		 *
+		 * @param slot the slot to remove
+		 * @return boolean true if the slot was in this node
+		 */
+		boolean remove(int slot) {
+			int position = Arrays.binarySearch(slots, 0, size, slot);
+			if (position < 0) {
+				return false;
+			}
+			System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+			size--;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bitmap index over the categorical fields of the mountains. For every field and distinct value, the index holds
+ * a compressed bitmap of the slots of the mountains with that value. Filters over several fields are combined by
+ * intersecting and uniting the bitmaps, instead of checking every mountain.
+ *
+ * The bitmaps are kept in sync with the slots and the fields of the mountains, and are rebuilt when the mountains
+ * are renumbered.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainCategoryIndex {
+
+	/**
+	 * the indexed fields
+	 */
+	static final Mountain.Field[] FIELDS = { Mountain.Field.TYPE, Mountain.Field.REGION, Mountain.Field.CANTONS,
+			Mountain.Field.RANGE };
+
+	/**
+	 * the position of every field in the indexed fields, -1 if it isn't indexed
+	 */
+	private static final int[] FIELD_INDEXES = new int[Mountain.Field.values().length];
+
+	static {
+		Arrays.fill(FIELD_INDEXES, -1);
+		for (int f = 0; f < FIELDS.length; f++) {
+			FIELD_INDEXES[FIELDS[f].ordinal()] = f;
+		}
+	}
+
+	/**
+	 * the slots of the mountains which are indexed
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the bitmap of the slots of every value, for every indexed field
+	 */
+	private final List<Map<String, MountainBitmap>> bitmaps = new ArrayList<>();
+
+
+	/**
+	 * Constructs a new index over the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are indexed
+	 */
+	MountainCategoryIndex(MountainSlots slots) {
+		this.slots = slots;
+		for (int f = 0; f < FIELDS.length; f++) {
+			bitmaps.add(new HashMap<>());
+		}
+		rebuild();
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				add(slot);
+			}
+
+			@Override
+			public void removed(int slot) {
+				Mountain mountain = slots.get(slot);
+				for (int f = 0; f < FIELDS.length; f++) {
+					remove(f, mountain.get(FIELDS[f]), slot);
+				}
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				int f = FIELD_INDEXES[field.ordinal()];
+				if (f >= 0) {
+					remove(f, oldValue, slot);
+					bitmaps.get(f).computeIfAbsent((String) slots.get(slot).get(field), value -> new MountainBitmap())
+							.add(slot);
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				rebuild();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns true if a field is indexed.
+	 *
+	 * @param field the field
+	 * @return boolean true if the field is one of the indexed fields
+	 */
+	static boolean isIndexed(Mountain.Field field) {
+		return FIELD_INDEXES[field.ordinal()] >= 0;
+	}
+
+
+	/**
+	 * Returns the slots of the mountains with a value in a field. The returned bitmap belongs to the index and must
+	 * not be changed.
+	 *
+	 * @param field an indexed field
+	 * @param value the value
+	 * @return MountainBitmap the slots of the mountains with the value
+	 */
+	MountainBitmap find(Mountain.Field field, String value) {
+		MountainBitmap found = bitmaps.get(FIELD_INDEXES[field.ordinal()]).get(value);
+		return found != null ? found : new MountainBitmap();
+	}
+
+
+	/**
+	 * Returns the slots of the mountains with any of the values in a field.
+	 *
+	 * @param field an indexed field
+	 * @param values the values
+	 * @return MountainBitmap a new bitmap with the slots of the mountains with one of the values
+	 */
+	MountainBitmap findAny(Mountain.Field field, String... values) {
+		MountainBitmap found = new MountainBitmap();
+		for (String value : values) {
+			found = found.or(find(field, value));
+		}
+		return found;
+	}
+
+
+	/**
+	 * Returns the mountains in the slots of a bitmap.
+	 *
+	 * @param found the slots of the mountains
+	 * @return List the mountains in the order of the data list
+	 */
+	List<Mountain> mountains(MountainBitmap found) {
+		int[] matches = found.toArray();
+		List<Mountain> result = new ArrayList<>(matches.length);
+		for (int slot : matches) {
+			result.add(slots.get(slot));
+		}
+		return result;
+	}
+
+
+	/**
+	 * Adds all indexed fields of the mountain in a slot.
+	 *
+	 * @param slot the slot of the mountain
+	 */
+	private void add(int slot) {
+		Mountain mountain = slots.get(slot);
+		for (int f = 0; f < FIELDS.length; f++) {
+			bitmaps.get(f).computeIfAbsent((String) mountain.get(FIELDS[f]), value -> new MountainBitmap()).add(slot);
+		}
+	}
+
+
+	/**
+	 * Removes the slot of a mountain from the bitmap of a value.
+	 *
+	 * @param f the position of the field in the indexed fields
+	 * @param value the value of the field, which has been added before
+	 * @param slot the slot of the mountain
+	 */
+	private void remove(int f, Object value, int slot) {
+		MountainBitmap bitmap = bitmaps.get(f).get(value);
+		if (bitmap != null && bitmap.remove(slot) && bitmap.isEmpty()) {
+			bitmaps.get(f).remove(value);
+		}
+	}
+
+
+	/**
+	 * Rebuilds the index from all slots.
+	 */
+	private void rebuild() {
+		for (Map<String, MountainBitmap> values : bitmaps) {
+			values.clear();
+		}
+		for (int slot = 0; slot < slots.end(); slot++) {
+			if (slots.get(slot) != null) {
+				add(slot);
+			}
+		}
+	}
+}
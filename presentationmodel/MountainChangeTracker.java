@@ -0,0 +1,287 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Keeps track of the mountains which have been changed, added or removed since the last save, so only those have
+ * to be written into the journal. Every change gets a version number. A save takes the records of all unsaved
+ * changes together with the current version, and only the changes up to that version are marked as saved once the
+ * records have been written. Changes made while a save is written, and the changes of a failed save, stay unsaved.
+ *
+ * The tracker is updated from the FX thread and marked as saved from the thread which reports a written save, so
+ * all its methods are synchronized.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainChangeTracker {
+
+	/**
+	 * the list of mountains which is tracked
+	 */
+	private final ObservableList<Mountain> data;
+
+	/**
+	 * the changed and added mountains with the version of their last change
+	 */
+	private final Map<Mountain, Long> changed = new LinkedHashMap<>();
+
+	/**
+	 * the added mountains whose records haven't been handed to a save yet, so removing them needs no delete record
+	 */
+	private final Set<Mountain> added = new HashSet<>();
+
+	/**
+	 * the IDs of the mountains which have been removed or got a new ID, with the version of the change
+	 */
+	private final Map<Integer, Long> removedIds = new LinkedHashMap<>();
+
+	/**
+	 * the version of the last tracked change
+	 */
+	private long version;
+
+	/**
+	 * the write ahead log every change is logged to, null if changes aren't logged
+	 */
+	private MountainEditLog editLog;
+
+	/**
+	 * runs after every tracked change
+	 */
+	private Runnable changeListener = () -> { };
+
+	/**
+	 * observes every field of every mountain in the data list
+	 */
+	private final Mountain.Listener mountainChangeListener = (mountain, field, oldValue, newValue) -> {
+		fieldChanged(mountain, field, oldValue);
+		changeListener.run();
+	};
+
+	/**
+	 * observes the data list for added and removed mountains
+	 */
+	private final ListChangeListener<Mountain> dataChangeListener = change -> {
+		while (change.next()) {
+			if (change.wasPermutated() || change.wasUpdated()) {
+				continue;
+			}
+			for (Mountain mountain : change.getRemoved()) {
+				disableTracking(mountain);
+				removed(mountain);
+			}
+			for (Mountain mountain : change.getAddedSubList()) {
+				enableTracking(mountain);
+				added(mountain);
+			}
+		}
+		changeListener.run();
+	};
+
+
+	/**
+	 * Constructs a new tracker for the given data list. The mountains which are already in the list are treated
+	 * as saved.
+	 *
+	 * @param data the list of mountains which is tracked
+	 */
+	MountainChangeTracker(ObservableList<Mountain> data) {
+		this.data = data;
+		data.forEach(this::enableTracking);
+		data.addListener(dataChangeListener);
+	}
+
+
+	/**
+	 * Adds mountains, which have just been loaded, to the data list without marking them as added.
+	 *
+	 * @param mountains the loaded mountains
+	 */
+	void addWithoutTracking(List<Mountain> mountains) {
+		data.removeListener(dataChangeListener);
+		data.addAll(mountains);
+		data.addListener(dataChangeListener);
+		mountains.forEach(this::enableTracking);
+	}
+
+
+	/**
+	 * Sets the write ahead log every change is logged to from now on.
+	 *
+	 * @param editLog the write ahead log, null if changes aren't logged
+	 */
+	synchronized void setEditLog(MountainEditLog editLog) {
+		this.editLog = editLog;
+	}
+
+
+	/**
+	 * Sets the listener which runs after every tracked change.
+	 *
+	 * @param changeListener runs after every tracked change
+	 */
+	void setChangeListener(Runnable changeListener) {
+		this.changeListener = changeListener;
+	}
+
+
+	/**
+	 * Returns true if there are changes which haven't been saved.
+	 *
+	 * @return boolean true if there are unsaved changes
+	 */
+	synchronized boolean isDirty() {
+		return !changed.isEmpty() || !removedIds.isEmpty();
+	}
+
+
+	/**
+	 * Returns the number of mountains with unsaved changes.
+	 *
+	 * @return int the number of changed, added and removed mountains
+	 */
+	synchronized int getDirtyCount() {
+		return changed.size() + removedIds.size();
+	}
+
+
+	/**
+	 * Returns the version of the last tracked change, which is passed to {@link #markSaved(long)} once the records
+	 * taken at the same time have been written.
+	 *
+	 * @return long the version of the last change
+	 */
+	synchronized long getVersion() {
+		return version;
+	}
+
+
+	/**
+	 * Returns the journal records describing all unsaved changes. Removals come first, so a mountain which got a
+	 * new ID is deleted under its old ID before it is written under the new one. The added mountains count as
+	 * handed to a save from now on, so removing them later writes a delete record.
+	 *
+	 * @return List the journal records of all unsaved changes
+	 */
+	synchronized List<String> getJournalRecords() {
+		List<String> records = new ArrayList<>(getDirtyCount());
+		for (int id : removedIds.keySet()) {
+			records.add(MountainJournal.deleteRecord(id));
+		}
+		for (Mountain mountain : changed.keySet()) {
+			records.add(MountainJournal.upsertRecord(mountain));
+		}
+		added.clear();
+		return records;
+	}
+
+
+	/**
+	 * Marks all changes as saved.
+	 */
+	synchronized void markSaved() {
+		markSaved(version);
+	}
+
+
+	/**
+	 * Marks the changes up to a version as saved. Mountains which have been changed again since stay unsaved.
+	 *
+	 * @param savedVersion the version returned by {@link #getVersion()} when the written records were taken
+	 */
+	synchronized void markSaved(long savedVersion) {
+		changed.values().removeIf(changeVersion -> changeVersion <= savedVersion);
+		removedIds.values().removeIf(changeVersion -> changeVersion <= savedVersion);
+	}
+
+
+	/**
+	 * Tracks a changed field of a mountain.
+	 *
+	 * @param mountain the changed mountain
+	 * @param field the changed field
+	 * @param oldValue the value before the change
+	 */
+	private synchronized void fieldChanged(Mountain mountain, Mountain.Field field, Object oldValue) {
+		version++;
+		if (field == Mountain.Field.ID) {
+			int oldId = ((Number) oldValue).intValue();
+			log(MountainJournal.deleteRecord(oldId));
+			if (!added.contains(mountain)) {
+				removedIds.put(oldId, version);
+			}
+		}
+		log(MountainJournal.upsertRecord(mountain));
+		changed.put(mountain, version);
+	}
+
+
+	/**
+	 * Tracks a mountain which has been removed from the data list.
+	 *
+	 * @param mountain the removed mountain
+	 */
+	private synchronized void removed(Mountain mountain) {
+		version++;
+		log(MountainJournal.deleteRecord(mountain.getId()));
+		changed.remove(mountain);
+		if (!added.remove(mountain)) {
+			removedIds.put(mountain.getId(), version);
+		}
+	}
+
+
+	/**
+	 * Tracks a mountain which has been added to the data list.
+	 *
+	 * @param mountain the added mountain
+	 */
+	private synchronized void added(Mountain mountain) {
+		version++;
+		log(MountainJournal.upsertRecord(mountain));
+		changed.put(mountain, version);
+		added.add(mountain);
+	}
+
+
+	/**
+	 * Logs a record to the write ahead log, if there is one.
+	 *
+	 * @param record the journal record describing the change
+	 */
+	private void log(String record) {
+		if (editLog != null) {
+			editLog.log(record);
+		}
+	}
+
+
+	/**
+	 * Adds the tracking listener to the given mountain.
+	 *
+	 * @param mountain the mountain to track
+	 */
+	private void enableTracking(Mountain mountain) {
+		mountain.addListener(mountainChangeListener);
+	}
+
+
+	/**
+	 * Removes the tracking listener from the given mountain.
+	 *
+	 * @param mountain the mountain which isn't tracked anymore
+	 */
+	private void disableTracking(Mountain mountain) {
+		mountain.removeListener(mountainChangeListener);
+	}
+}
@@ -0,0 +1,409 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Reads mountains from a csv file. The file is split into chunks at line boundaries, which are parsed in
+ * parallel on the common fork join pool.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainCsvReader {
+
+	/**
+	 * the number of fields per line
+	 */
+	static final int FIELD_COUNT = 12;
+
+	/**
+	 * the minimal size of a chunk in bytes, smaller files are parsed on the calling thread
+	 */
+	private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+	/**
+	 * exact powers of ten used by the double parser
+	 */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * the largest mantissa which is exactly representable as a double
+	 */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/**
+	 * the size of the first batch in bytes, kept small so the first mountains can be shown right away
+	 */
+	private static final int FIRST_BATCH_SIZE = 8 * 1024;
+
+	/**
+	 * the maximal size of a batch in bytes
+	 */
+	private static final int MAX_BATCH_SIZE = 8 * 1024 * 1024;
+
+
+	/**
+	 * Prevents instantiation, this class only has static methods.
+	 */
+	private MountainCsvReader() {
+	}
+
+
+	/**
+	 * Reads all mountains from the given stream. The first line is treated as header and skipped.
+	 *
+	 * @param inputStream the csv resource as stream
+	 * @return List the mountains in the order of the file
+	 * @throws IOException if there is an error by reading the input stream
+	 */
+	static List<Mountain> read(InputStream inputStream) throws IOException {
+		byte[] bytes;
+		try (InputStream in = inputStream) {
+			bytes = in.readAllBytes();
+		}
+		return parse(bytes, nextLine(bytes, 0), bytes.length);
+	}
+
+
+	/**
+	 * Reads the mountains from the given stream in batches and passes every batch to the consumer as soon as it
+	 * is parsed. The first batch is small and the following ones double in size, so the first mountains are
+	 * available quickly while the bulk of the file is still parsed in large parallel chunks.
+	 *
+	 * @param inputStream the csv resource as stream
+	 * @param batchConsumer receives every batch together with the number of bytes read so far
+	 * @throws IOException if there is an error by reading the input stream
+	 */
+	static void readInBatches(InputStream inputStream, ObjLongConsumer<List<Mountain>> batchConsumer) throws IOException {
+		try (InputStream in = inputStream) {
+			byte[] buffer = new byte[FIRST_BATCH_SIZE];
+			int length = 0;
+			long bytesRead = 0;
+			boolean header = true;
+			boolean endOfStream = false;
+			while (!endOfStream) {
+				int read = in.readNBytes(buffer, length, buffer.length - length);
+				endOfStream = length + read < buffer.length;
+				length += read;
+				bytesRead += read;
+
+				if (header) {
+					int headerEnd = lastLine(buffer, 0, Math.min(length, nextLine(buffer, 0)));
+					if (headerEnd == 0 && !endOfStream) {
+						buffer = Arrays.copyOf(buffer, buffer.length * 2);
+						continue;
+					} else if (headerEnd == 0) {
+						headerEnd = length;
+					}
+					System.arraycopy(buffer, headerEnd, buffer, 0, length - headerEnd);
+					length -= headerEnd;
+					header = false;
+				}
+
+				int to = endOfStream ? length : lastLine(buffer, 0, length);
+				if (to == 0 && !endOfStream) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+					continue;
+				}
+				batchConsumer.accept(parse(buffer, 0, to), bytesRead - (length - to));
+
+				byte[] next = new byte[Math.max(Math.min(MAX_BATCH_SIZE, buffer.length * 2), (length - to) * 2)];
+				System.arraycopy(buffer, to, next, 0, length - to);
+				length -= to;
+				buffer = next;
+			}
+		}
+	}
+
+
+	/**
+	 * Parses all lines between the given offsets.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param from the offset of the first line
+	 * @param to the offset after the last line
+	 * @return List the mountains in the order of the file
+	 */
+	static List<Mountain> parse(byte[] bytes, int from, int to) {
+		if (from >= to) {
+			return new ArrayList<>();
+		}
+		List<Integer> bounds = new ArrayList<>();
+		bounds.add(from);
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, (to - from) / (ForkJoinPool.getCommonPoolParallelism() * 4 + 1));
+		for (int start = from; start < to;) {
+			start = Math.min(to, nextLine(bytes, Math.min(to, start + chunkSize)));
+			bounds.add(start);
+		}
+
+		List<List<Mountain>> chunks = new ArrayList<>(Collections.nCopies(bounds.size() - 1, null));
+		if (chunks.size() == 1) {
+			chunks.set(0, parseChunk(bytes, from, to));
+		} else {
+			ForkJoinPool.commonPool().invoke(new ChunkTask(bytes, bounds, chunks, 0, chunks.size()));
+		}
+
+		int size = 0;
+		for (List<Mountain> chunk : chunks) {
+			size += chunk.size();
+		}
+		List<Mountain> mountains = new ArrayList<>(size);
+		for (List<Mountain> chunk : chunks) {
+			mountains.addAll(chunk);
+		}
+		return mountains;
+	}
+
+
+	/**
+	 * Parses all lines of a single chunk. The mountains of the chunk share one columnar store.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param from the offset of the first line of the chunk
+	 * @param to the offset after the last line of the chunk
+	 * @return List the mountains of the chunk
+	 */
+	static List<Mountain> parseChunk(byte[] bytes, int from, int to) {
+		List<Mountain> mountains = new ArrayList<>();
+		MountainStore store = new MountainStore((to - from) / 64);
+		int[] fieldStarts = new int[FIELD_COUNT + 1];
+		int start = from;
+		while (start < to) {
+			int end = start;
+			while (end < to && bytes[end] != '\n') {
+				end++;
+			}
+			int next = end + 1;
+			if (end > start && bytes[end - 1] == '\r') {
+				end--;
+			}
+			if (end > start) {
+				mountains.add(parseLine(bytes, start, end, fieldStarts, store));
+			}
+			start = next;
+		}
+		return mountains;
+	}
+
+
+	/**
+	 * Splits a single line at the separators and adds a mountain with its fields to the store. Missing fields at
+	 * the end of the line are treated as empty.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param start the offset of the line
+	 * @param end the offset after the line, without the line break
+	 * @param fieldStarts scratch array for the start offsets of the fields
+	 * @param store the store the mountain is added to
+	 * @return Mountain the mountain described by the line
+	 */
+	private static Mountain parseLine(byte[] bytes, int start, int end, int[] fieldStarts, MountainStore store) {
+		int field = 0;
+		fieldStarts[field++] = start;
+		for (int i = start; i < end && field < FIELD_COUNT; i++) {
+			if (bytes[i] == ';') {
+				fieldStarts[field++] = i + 1;
+			}
+		}
+		while (field <= FIELD_COUNT) {
+			fieldStarts[field++] = end + 1;
+		}
+
+		return store.add(
+				parseInt(bytes, fieldStarts[0], fieldStarts[1] - 1),
+				string(bytes, fieldStarts[1], fieldStarts[2] - 1),
+				parseDouble(bytes, fieldStarts[2], fieldStarts[3] - 1),
+				string(bytes, fieldStarts[3], fieldStarts[4] - 1),
+				string(bytes, fieldStarts[4], fieldStarts[5] - 1),
+				string(bytes, fieldStarts[5], fieldStarts[6] - 1),
+				string(bytes, fieldStarts[6], fieldStarts[7] - 1),
+				parseDouble(bytes, fieldStarts[7], fieldStarts[8] - 1),
+				string(bytes, fieldStarts[8], fieldStarts[9] - 1),
+				parseDouble(bytes, fieldStarts[9], fieldStarts[10] - 1),
+				string(bytes, fieldStarts[10], fieldStarts[11] - 1),
+				string(bytes, fieldStarts[11], end));
+	}
+
+
+	/**
+	 * Decodes a field as UTF-8 string.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param start the offset of the field
+	 * @param end the offset after the field
+	 * @return String the content of the field
+	 */
+	private static String string(byte[] bytes, int start, int end) {
+		return start >= end ? "" : new String(bytes, start, end - start, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Parses a field as int.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param start the offset of the field
+	 * @param end the offset after the field
+	 * @return int the value of the field
+	 * @throws NumberFormatException if the field isn't a valid int
+	 */
+	static int parseInt(byte[] bytes, int start, int end) {
+		boolean negative = start < end && bytes[start] == '-';
+		int i = negative ? start + 1 : start;
+		if (i == end || end - i > 9) {
+			return Integer.parseInt(string(bytes, start, end));
+		}
+		int value = 0;
+		for (; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return Integer.parseInt(string(bytes, start, end));
+			}
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+
+	/**
+	 * Parses a field as double. Plain decimals like 4193.0 are parsed directly, everything else is passed on
+	 * to {@link Double#parseDouble(String)}.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param start the offset of the field
+	 * @param end the offset after the field
+	 * @return double the value of the field
+	 * @throws NumberFormatException if the field isn't a valid double
+	 */
+	static double parseDouble(byte[] bytes, int start, int end) {
+		boolean negative = start < end && bytes[start] == '-';
+		int i = negative ? start + 1 : start;
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = -1;
+		for (; i < end; i++) {
+			byte b = bytes[i];
+			if (b == '.' && fractionDigits < 0) {
+				fractionDigits = 0;
+			} else if (b >= '0' && b <= '9' && digits < 18) {
+				mantissa = mantissa * 10 + (b - '0');
+				digits++;
+				if (fractionDigits >= 0) {
+					fractionDigits++;
+				}
+			} else {
+				return Double.parseDouble(string(bytes, start, end));
+			}
+		}
+		if (digits == 0 || mantissa > MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length) {
+			return Double.parseDouble(string(bytes, start, end));
+		}
+		double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+		return negative ? -value : value;
+	}
+
+
+	/**
+	 * Returns the offset of the line following the given offset.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param offset any offset within a line
+	 * @return int the offset after the next line break, or the length of the content if there is none
+	 */
+	static int nextLine(byte[] bytes, int offset) {
+		while (offset < bytes.length && bytes[offset] != '\n') {
+			offset++;
+		}
+		return Math.min(bytes.length, offset + 1);
+	}
+
+
+	/**
+	 * Returns the offset after the last complete line in the given range.
+	 *
+	 * @param bytes the content of the csv file
+	 * @param from the offset of the first line
+	 * @param to the end of the range
+	 * @return int the offset after the last line break in the range, or from if there is none
+	 */
+	private static int lastLine(byte[] bytes, int from, int to) {
+		for (int i = to - 1; i >= from; i--) {
+			if (bytes[i] == '\n') {
+				return i + 1;
+			}
+		}
+		return from;
+	}
+
+
+	/**
+	 * Parses a range of chunks, splitting the range in halves until a single chunk is left.
+	 */
+	private static class ChunkTask extends RecursiveAction {
+
+		/**
+		 * the version of the serialized form
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * the content of the csv file
+		 */
+		private final byte[] bytes;
+
+		/**
+		 * the offsets at which the chunks start, followed by the end offset
+		 */
+		private final List<Integer> bounds;
+
+		/**
+		 * the parsed chunks, which are set by the tasks of the single chunks
+		 */
+		private final List<List<Mountain>> chunks;
+
+		/**
+		 * the first chunk of this task
+		 */
+		private final int first;
+
+		/**
+		 * the chunk after the last chunk of this task
+		 */
+		private final int last;
+
+
+		/**
+		 * Constructs a new task for the given range of chunks.
+		 */
+		ChunkTask(byte[] bytes, List<Integer> bounds, List<List<Mountain>> chunks, int first, int last) {
+			this.bytes = bytes;
+			this.bounds = bounds;
+			this.chunks = chunks;
+			this.first = first;
+			this.last = last;
+		}
+
+
+		@Override
+		protected void compute() {
+			if (last - first == 1) {
+				chunks.set(first, parseChunk(bytes, bounds.get(first), bounds.get(last)));
+				return;
+			}
+			int middle = (first + last) >>> 1;
+			invokeAll(new ChunkTask(bytes, bounds, chunks, first, middle),
+					new ChunkTask(bytes, bounds, chunks, middle, last));
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * A deletion dictionary of the search keys of the mountains, used to find names within a small edit distance of
+ * a search string without comparing the search string to every name. For every name, all strings which can be
+ * reached by deleting up to two characters are stored together with the names leading to them. If a name is within
+ * an edit distance of two of a search string, both share such a deletion, so a search only generates the deletions
+ * of the search string and looks them up. Only the names found this way are compared to the search string.
+ *
+ * The index is kept in sync with the slots and the names of the mountains. The deletions of a name are removed as
+ * soon as no mountain has this name anymore.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainDeleteIndex {
+
+	/**
+	 * the largest edit distance the deletions are stored for
+	 */
+	static final int MAX_DISTANCE = 2;
+
+	/**
+	 * the slots of the mountains which are indexed
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the entry of every name in the index
+	 */
+	private final Map<String, Name> names = new HashMap<>();
+
+	/**
+	 * the names leading to every deletion
+	 */
+	private final Map<String, String[]> deletions = new HashMap<>();
+
+	/**
+	 * the search key of the mountain in every slot
+	 */
+	private String[] keys = new String[16];
+
+
+	/**
+	 * Constructs a new index over the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are indexed
+	 */
+	MountainDeleteIndex(MountainSlots slots) {
+		this.slots = slots;
+		rebuild();
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				if (slot >= keys.length) {
+					keys = Arrays.copyOf(keys, Math.max(slot + 1, keys.length * 2));
+				}
+				add(slot);
+			}
+
+			@Override
+			public void removed(int slot) {
+				remove(slot);
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				if (field == Mountain.Field.NAME) {
+					remove(slot);
+					add(slot);
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				rebuild();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the best mountains, whose search key is within the given edit distance of the search key of
+	 * the search string. The mountains are ranked by the distance of their name, then by their height from the highest, and
+	 * then in the order of the data list. The best mountains found so far are kept in a heap with the worst one on
+	 * top, so once the heap is full, the distance to the other names is only computed up to the distance of the
+	 * worst one.
+	 *
+	 * @param search the search string
+	 * @param maxDistance the largest allowed edit distance, at most MAX_DISTANCE
+	 * @param limit the largest number of mountains to return
+	 * @return List the best matching mountains, the best one first
+	 */
+	List<Mountain> findBest(String search, int maxDistance, int limit) {
+		if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+			throw new IllegalArgumentException("maxDistance must be between 0 and " + MAX_DISTANCE);
+		}
+		List<Mountain> result = new ArrayList<>();
+		if (limit <= 0) {
+			return result;
+		}
+		String query = MountainSearchKey.of(search);
+		Set<String> compared = new HashSet<>();
+		PriorityQueue<Match> best = new PriorityQueue<>(Comparator.reverseOrder());
+		int threshold = maxDistance;
+		for (String deletion : deletions(query, maxDistance)) {
+			String[] candidates = deletions.get(deletion);
+			if (candidates == null) {
+				continue;
+			}
+			for (String candidate : candidates) {
+				if (!compared.add(candidate)) {
+					continue;
+				}
+				int distance = MountainLevenshtein.distance(query, candidate, threshold);
+				if (distance > threshold) {
+					continue;
+				}
+				Name name = names.get(candidate);
+				for (int i = 0; i < name.size; i++) {
+					int slot = name.slots[i];
+					Match match = new Match(distance, slots.get(slot).getHeight(), slot);
+					if (best.size() < limit) {
+						best.add(match);
+					} else if (match.compareTo(best.peek()) < 0) {
+						best.poll();
+						best.add(match);
+					}
+				}
+				if (best.size() == limit) {
+					threshold = best.peek().distance;
+				}
+			}
+		}
+		Match[] ranked = best.toArray(new Match[0]);
+		Arrays.sort(ranked);
+		for (Match match : ranked) {
+			result.add(slots.get(match.slot));
+		}
+		return result;
+	}
+
+
+	/**
+	 * Adds the mountain in a slot to the entry of its name, adding the deletions of the name if it is new.
+	 *
+	 * @param slot the slot of the mountain
+	 */
+	private void add(int slot) {
+		String key = slots.get(slot).getSearchKey();
+		keys[slot] = key;
+		Name name = names.get(key);
+		if (name == null) {
+			name = new Name();
+			names.put(key, name);
+			for (String deletion : deletions(key, MAX_DISTANCE)) {
+				String[] list = deletions.get(deletion);
+				if (list == null) {
+					deletions.put(deletion, new String[] { key });
+				} else {
+					list = Arrays.copyOf(list, list.length + 1);
+					list[list.length - 1] = key;
+					deletions.put(deletion, list);
+				}
+			}
+		}
+		name.add(slot);
+	}
+
+
+	/**
+	 * Removes the mountain in a slot from the entry of its name, removing the deletions of the name if no other
+	 * mountain has it.
+	 *
+	 * @param slot the slot of the mountain
+	 */
+	private void remove(int slot) {
+		String key = keys[slot];
+		keys[slot] = null;
+		Name name = key == null ? null : names.get(key);
+		if (name == null || !name.remove(slot) || name.size > 0) {
+			return;
+		}
+		names.remove(key);
+		for (String deletion : deletions(key, MAX_DISTANCE)) {
+			String[] list = deletions.get(deletion);
+			if (list == null) {
+				continue;
+			}
+			if (list.length == 1) {
+				deletions.remove(deletion);
+				continue;
+			}
+			String[] kept = new String[list.length - 1];
+			int size = 0;
+			for (String other : list) {
+				if (!other.equals(key)) {
+					kept[size++] = other;
+				}
+			}
+			deletions.put(deletion, kept);
+		}
+	}
+
+
+	/**
+	 * Rebuilds the index from all slots.
+	 */
+	private void rebuild() {
+		names.clear();
+		deletions.clear();
+		keys = new String[Math.max(16, slots.end())];
+		for (int slot = 0; slot < slots.end(); slot++) {
+			if (slots.get(slot) != null) {
+				add(slot);
+			}
+		}
+	}
+
+
+	/**
+	 * Returns all strings which can be reached by deleting up to the given number of characters, including the text
+	 * itself.
+	 *
+	 * @param text the text
+	 * @param maxDeletions the largest number of deleted characters
+	 * @return Set the distinct deletions
+	 */
+	static Set<String> deletions(String text, int maxDeletions) {
+		Set<String> result = new HashSet<>();
+		result.add(text);
+		Set<String> level = result;
+		for (int d = 0; d < maxDeletions; d++) {
+			Set<String> next = new HashSet<>();
+			for (String variant : level) {
+				for (int i = 0; i < variant.length(); i++) {
+					String deletion = variant.substring(0, i) + variant.substring(i + 1);
+					if (!result.contains(deletion)) {
+						next.add(deletion);
+					}
+				}
+			}
+			result.addAll(next);
+			level = next;
+		}
+		return result;
+	}
+
+
+	/**
+	 * A mountain found by a fuzzy search, ordered from the best to the worst match.
+	 */
+	static class Match implements Comparable<Match> {
+
+		/**
+		 * the edit distance of the name of the mountain
+		 */
+		final int distance;
+
+		/**
+		 * the height of the mountain
+		 */
+		private final double height;
+
+		/**
+		 * the slot of the mountain
+		 */
+		final int slot;
+
+
+		/**
+		 * Constructs a new match.
+		 *
+		 * @param distance the edit distance of the name of the mountain
+		 * @param height the height of the mountain
+		 * @param slot the slot of the mountain
+		 */
+		Match(int distance, double height, int slot) {
+			this.distance = distance;
+			this.height = height;
+			this.slot = slot;
+		}
+
+
+		@Override
+		public int compareTo(Match other) {
+			if (distance != other.distance) {
+				return Integer.compare(distance, other.distance);
+			}
+			if (height != other.height) {
+				return Double.compare(other.height, height);
+			}
+			return Integer.compare(slot, other.slot);
+		}
+	}
+
+
+	/**
+	 * The sorted slots of the mountains with a name.
+	 */
+	private static class Name {
+
+		/**
+		 * the sorted slots of the mountains with this name, in the order of the data list
+		 */
+		private int[] slots = new int[1];
+
+		/**
+		 * the number of slots
+		 */
+		private int size;
+
+
+		/**
+		 * Adds a slot, keeping the slots sorted.
+		 *
+		 * @param slot the slot to add
+		 */
+		void add(int slot) {
+			int position = Arrays.binarySearch(slots, 0, size, slot);
+			if (position >= 0) {
+				return;
+			}
+			position = -position - 1;
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			System.arraycopy(slots, position, slots, position + 1, size - position);
+			slots[position] = slot;
+			size++;
+		}
+
+
+		/**
+		 * Removes a slot.
+		 *
+		 * @param slot the slot to remove
+		 * @return boolean true if the slot was in this name
+		 */
+		boolean remove(int slot) {
+			int position = Arrays.binarySearch(slots, 0, size, slot);
+			if (position < 0) {
+				return false;
+			}
+			System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+			size--;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A dictionary of the distinct values of a column, which repeat across many mountains. Every value is stored only
+ * once and gets a code, so equal values share one instance and can be compared by their code. Every row which uses
+ * a value holds a reference to it, and a value is removed as soon as no row uses it any more, so the values typed
+ * while editing don't pile up. The codes of removed values are given to new values again. The dictionaries are
+ * filled while the data is loaded and edited, and can be used from several threads.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainDictionary {
+
+	/**
+	 * the code of null
+	 */
+	static final int NO_CODE = -1;
+
+	/**
+	 * the dictionary of the types
+	 */
+	static final MountainDictionary TYPE = new MountainDictionary();
+
+	/**
+	 * the dictionary of the regions
+	 */
+	static final MountainDictionary REGION = new MountainDictionary();
+
+	/**
+	 * the dictionary of the cantons
+	 */
+	static final MountainDictionary CANTONS = new MountainDictionary();
+
+	/**
+	 * the dictionary of the ranges
+	 */
+	static final MountainDictionary RANGE = new MountainDictionary();
+
+	/**
+	 * the dictionary of the isolation points
+	 */
+	static final MountainDictionary ISOLATION_POINT = new MountainDictionary();
+
+	/**
+	 * the dictionary of the prominence points
+	 */
+	static final MountainDictionary PROMINENCE_POINT = new MountainDictionary();
+
+	/**
+	 * the entry of every value in the dictionary
+	 */
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * the entries in the order of their codes, null for the codes which are free
+	 */
+	private volatile Entry[] codes = new Entry[16];
+
+	/**
+	 * the number of codes which have been handed out, including the free ones
+	 */
+	private int codeCount;
+
+	/**
+	 * the codes of the removed values, which are given to new values again
+	 */
+	private int[] freeCodes = new int[16];
+
+	/**
+	 * the number of free codes
+	 */
+	private int freeCount;
+
+
+	/**
+	 * Adds a reference to the given value and returns its code, adding the value if it is new. Every code which
+	 * is acquired has to be released, once it is no longer used.
+	 *
+	 * @param value the value
+	 * @return int the code of the value, {@link #NO_CODE} if the value is null
+	 */
+	int acquire(String value) {
+		if (value == null) {
+			return NO_CODE;
+		}
+		Entry entry = entries.get(value);
+		if (entry != null && entry.retain()) {
+			return entry.code;
+		}
+		return entries.compute(value, (key, current) -> current != null && current.retain() ? current : add(key)).code;
+	}
+
+
+	/**
+	 * Removes a reference to the value with the given code. The value is removed from the dictionary, when its last
+	 * reference has been released.
+	 *
+	 * @param code the code of the value, {@link #NO_CODE} is ignored
+	 */
+	void release(int code) {
+		if (code == NO_CODE) {
+			return;
+		}
+		Entry entry = codes[code];
+		if (entry.references.decrementAndGet() == 0) {
+			entries.remove(entry.value, entry);
+			free(code);
+		}
+	}
+
+
+	/**
+	 * Returns the code of the given value, without adding a reference to it.
+	 *
+	 * @param value the value
+	 * @return int the code of the value, {@link #NO_CODE} if the value is null or not in the dictionary
+	 */
+	int code(String value) {
+		Entry entry = value == null ? null : entries.get(value);
+		return entry == null ? NO_CODE : entry.code;
+	}
+
+
+	/**
+	 * Returns the value with the given code.
+	 *
+	 * @param code the code of the value
+	 * @return String the value, null if the code is {@link #NO_CODE}
+	 */
+	String value(int code) {
+		return code == NO_CODE ? null : codes[code].value;
+	}
+
+
+	/**
+	 * Returns the number of distinct values in the dictionary.
+	 *
+	 * @return int the number of values
+	 */
+	synchronized int size() {
+		return codeCount - freeCount;
+	}
+
+
+	/**
+	 * Adds a new value to the dictionary and gives it a free code or the next one.
+	 *
+	 * @param value the new value
+	 * @return Entry the entry of the new value, which holds one reference
+	 */
+	private synchronized Entry add(String value) {
+		int code;
+		if (freeCount > 0) {
+			code = freeCodes[--freeCount];
+		} else {
+			code = codeCount++;
+			if (code == codes.length) {
+				codes = Arrays.copyOf(codes, code * 2);
+			}
+		}
+		Entry entry = new Entry(value, code);
+		codes[code] = entry;
+		return entry;
+	}
+
+
+	/**
+	 * Frees the code of a removed value.
+	 *
+	 * @param code the code of the removed value
+	 */
+	private synchronized void free(int code) {
+		codes[code] = null;
+		if (freeCount == freeCodes.length) {
+			freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+		}
+		freeCodes[freeCount++] = code;
+	}
+
+
+	/**
+	 * A value in the dictionary together with its code and the number of its references.
+	 */
+	private static class Entry {
+
+		/**
+		 * the shared instance of the value
+		 */
+		private final String value;
+
+		/**
+		 * the code of the value
+		 */
+		private final int code;
+
+		/**
+		 * the number of references to the value, 0 once the value has been removed
+		 */
+		private final AtomicInteger references = new AtomicInteger(1);
+
+
+		/**
+		 * Constructs a new entry with one reference.
+		 *
+		 * @param value the shared instance of the value
+		 * @param code the code of the value
+		 */
+		Entry(String value, int code) {
+			this.value = value;
+			this.code = code;
+		}
+
+
+		/**
+		 * Adds a reference to the value, unless the value has already been removed.
+		 *
+		 * @return boolean true if the reference has been added
+		 */
+		boolean retain() {
+			int count = references.get();
+			while (count > 0) {
+				if (references.compareAndSet(count, count + 1)) {
+					return true;
+				}
+				count = references.get();
+			}
+			return false;
+		}
+	}
+}
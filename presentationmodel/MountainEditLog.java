@@ -0,0 +1,394 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * A write ahead log of every change made since the last save, so the changes can be recovered after a crash.
+ * The log uses the record format of the journal and is written on a background thread, which forces all records
+ * written in one go to the disk together.
+ *
+ * The log is split into numbered segments. A save closes the current segment, and the closed segments are
+ * discarded as soon as the save has been written. Everything still in the log on startup is therefore newer than
+ * the last save.
+ *
+ * Every file is written by one open log at a time, so models of the same data can't replay or discard each other's
+ * segments. An open log waits for its records to be written when the virtual machine shuts down, but never
+ * discards them then, so the changes survive a terminated process.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainEditLog {
+
+	/**
+	 * the open logs by their first file
+	 */
+	private static final Map<Path, MountainEditLog> OPEN_LOGS = new HashMap<>();
+
+	/**
+	 * the first file of the log, the segments are stored next to it with their number appended
+	 */
+	private final Path file;
+
+	/**
+	 * a logger, which is used to catch exceptions
+	 */
+	private final Logger LOGGER = Logger.getLogger(MountainEditLog.class.getName());
+
+	/**
+	 * the writer thread, which is not a daemon, so the logged records are written before the application exits
+	 */
+	private final ThreadPoolExecutor writer = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "mountain-edit-log"));
+
+	/**
+	 * waits for the logged records to be written when the virtual machine shuts down
+	 */
+	private final Thread shutdownHook = new Thread(this::flush, "mountain-edit-log-flush");
+
+	/**
+	 * true as soon as the log has been closed, records logged afterwards are ignored
+	 */
+	private boolean closed;
+
+	/**
+	 * the segment new records are logged to
+	 */
+	private int segment;
+
+	/**
+	 * the records which have been logged but not written yet
+	 */
+	private List<Entry> pending = new ArrayList<>();
+
+	/**
+	 * true while the writer thread is busy with the pending records
+	 */
+	private boolean writing;
+
+	/**
+	 * the segment which is open on the writer thread, -1 if there is none
+	 */
+	private int openSegment = -1;
+
+	/**
+	 * the channel of the open segment
+	 */
+	private FileChannel channel;
+
+
+	/**
+	 * Constructs a new log.
+	 *
+	 * @param file the first file of the log, the segments are stored next to it with their number appended
+	 */
+	MountainEditLog(Path file) {
+		this.file = file;
+	}
+
+
+	/**
+	 * Opens the log of a file, unless it is open already.
+	 *
+	 * @param file the first file of the log
+	 * @return MountainEditLog the opened log, null if the log of the file is already open
+	 */
+	static MountainEditLog open(Path file) {
+		Path key = file.toAbsolutePath().normalize();
+		synchronized (OPEN_LOGS) {
+			if (OPEN_LOGS.containsKey(key)) {
+				return null;
+			}
+			MountainEditLog log = new MountainEditLog(key);
+			OPEN_LOGS.put(key, log);
+			Runtime.getRuntime().addShutdownHook(log.shutdownHook);
+			return log;
+		}
+	}
+
+
+	/**
+	 * Reads all records of all segments in the order they were logged. New records are logged to a segment after
+	 * the existing ones. An incomplete last record of a segment, which was cut off by a crash, is ignored.
+	 *
+	 * @return byte[] the records of all segments
+	 * @throws IOException if a segment can't be read
+	 */
+	synchronized byte[] recover() throws IOException {
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		for (int number : segments()) {
+			byte[] content = Files.readAllBytes(segmentFile(number));
+			int length = content.length;
+			while (length > 0 && content[length - 1] != '\n') {
+				length--;
+			}
+			records.write(content, 0, length);
+			segment = Math.max(segment, number + 1);
+		}
+		return records.toByteArray();
+	}
+
+
+	/**
+	 * Logs a record. The record is written and forced to the disk on the writer thread together with all other
+	 * records logged in the meantime.
+	 *
+	 * @param record the journal record describing the change
+	 */
+	synchronized void log(String record) {
+		if (!closed) {
+			pending.add(new Entry(segment, record));
+			schedule();
+		}
+	}
+
+
+	/**
+	 * Closes the current segment, so all records logged from now on go into a new one.
+	 *
+	 * @return int the number of the closed segment
+	 */
+	synchronized int rotate() {
+		return segment++;
+	}
+
+
+	/**
+	 * Discards all segments up to the given one, after their changes have been saved.
+	 *
+	 * @param lastSegment the number of the last segment to discard
+	 */
+	synchronized void discard(int lastSegment) {
+		if (!closed) {
+			pending.add(new Entry(lastSegment, null));
+			schedule();
+		}
+	}
+
+
+	/**
+	 * Blocks until all logged records have been written.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	synchronized void awaitIdle() throws InterruptedException {
+		while (writing) {
+			wait();
+		}
+	}
+
+
+	/**
+	 * Closes the log after all logged records have been written, keeping its segments, so the file can be opened
+	 * again.
+	 */
+	void close() {
+		synchronized (this) {
+			closed = true;
+			flush();
+			if (!writing) {
+				closeSegment();
+			}
+		}
+		synchronized (OPEN_LOGS) {
+			OPEN_LOGS.remove(file, this);
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException exception) {
+			// the virtual machine is shutting down and runs the hook anyway
+		}
+	}
+
+
+	/**
+	 * Waits until all logged records have been written, without throwing if the thread is interrupted.
+	 */
+	private synchronized void flush() {
+		try {
+			awaitIdle();
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Starts the writer thread, if it isn't busy already. Must be called while holding the lock.
+	 */
+	private void schedule() {
+		if (!writing) {
+			writing = true;
+			writer.execute(this::writePending);
+		}
+	}
+
+
+	/**
+	 * Writes the pending records until there are none left. All records taken at once are forced to the disk
+	 * together, so the records logged while the disk is busy are written in one batch.
+	 */
+	private void writePending() {
+		while (true) {
+			List<Entry> entries;
+			synchronized (this) {
+				entries = pending;
+				pending = new ArrayList<>();
+				if (entries.isEmpty()) {
+					writing = false;
+					notifyAll();
+					return;
+				}
+			}
+			try {
+				for (Entry entry : entries) {
+					if (entry.record == null) {
+						delete(entry.segment);
+					} else {
+						write(entry);
+					}
+				}
+				if (channel != null) {
+					channel.force(false);
+				}
+			} catch (IOException exception) {
+				LOGGER.log(Level.SEVERE, "edit log can't be written", exception);
+				closeSegment();
+			}
+		}
+	}
+
+
+	/**
+	 * Writes a record into its segment, opening the segment if needed.
+	 *
+	 * @param entry the record and its segment
+	 * @throws IOException if the segment can't be written
+	 */
+	private void write(Entry entry) throws IOException {
+		if (entry.segment != openSegment) {
+			if (channel != null) {
+				channel.force(false);
+			}
+			closeSegment();
+			channel = FileChannel.open(segmentFile(entry.segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			openSegment = entry.segment;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap((entry.record + "\n").getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+
+	/**
+	 * Deletes all segments up to the given one.
+	 *
+	 * @param lastSegment the number of the last segment to delete
+	 * @throws IOException if a segment can't be deleted
+	 */
+	private void delete(int lastSegment) throws IOException {
+		if (openSegment >= 0 && openSegment <= lastSegment) {
+			closeSegment();
+		}
+		for (int number : segments()) {
+			if (number <= lastSegment) {
+				Files.deleteIfExists(segmentFile(number));
+			}
+		}
+	}
+
+
+	/**
+	 * Closes the open segment.
+	 */
+	private void closeSegment() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException exception) {
+				LOGGER.log(Level.WARNING, "edit log can't be closed", exception);
+			}
+		}
+		channel = null;
+		openSegment = -1;
+	}
+
+
+	/**
+	 * Returns the numbers of the existing segments in ascending order.
+	 *
+	 * @return int[] the numbers of the existing segments
+	 * @throws IOException if the directory can't be listed
+	 */
+	private int[] segments() throws IOException {
+		String prefix = file.getFileName() + ".";
+		try (Stream<Path> files = Files.list(file.toAbsolutePath().getParent())) {
+			return files.map(path -> path.getFileName().toString())
+					.filter(name -> name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d+"))
+					.mapToInt(name -> Integer.parseInt(name.substring(prefix.length())))
+					.sorted()
+					.toArray();
+		}
+	}
+
+
+	/**
+	 * Returns the file of a segment.
+	 *
+	 * @param number the number of the segment
+	 * @return Path the file of the segment
+	 */
+	private Path segmentFile(int number) {
+		return file.resolveSibling(file.getFileName() + "." + number);
+	}
+
+
+	/**
+	 * A logged record together with the segment it belongs to. A record of null discards all segments up to this
+	 * one.
+	 */
+	private static class Entry {
+
+		/**
+		 * the segment the record belongs to
+		 */
+		private final int segment;
+
+		/**
+		 * the journal record, null to discard the segments
+		 */
+		private final String record;
+
+
+		/**
+		 * Constructs a new entry.
+		 *
+		 * @param segment the segment the record belongs to
+		 * @param record the journal record, null to discard the segments
+		 */
+		Entry(int segment, String record) {
+			this.segment = segment;
+			this.record = record;
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.List;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * An index from the ID of a mountain to the mountain itself. The mountains are stored in an open addressing
+ * hash table with primitive int keys, which is kept in sync with the data list and the ID properties of the mountains.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainIdIndex {
+
+	/**
+	 * the initial capacity of the hash table, must be a power of two
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * the list of mountains which is indexed
+	 */
+	private final ObservableList<Mountain> data;
+
+	/**
+	 * the IDs of the indexed mountains, a slot is empty if its value is null
+	 */
+	private int[] keys;
+
+	/**
+	 * the indexed mountains
+	 */
+	private Mountain[] values;
+
+	/**
+	 * the number of mountains in the hash table
+	 */
+	private int size;
+
+	/**
+	 * the number of mountains in the data list which share their ID with another indexed mountain
+	 */
+	private int shadowed;
+
+	/**
+	 * set if a mountain with a shared ID was removed and the index has to be rebuilt
+	 */
+	private boolean stale;
+
+	/**
+	 * observes the ID of every mountain in the data list
+	 */
+	private final Mountain.Listener idChangeListener = (mountain, field, oldValue, newValue) -> {
+		if (field != Mountain.Field.ID) {
+			return;
+		}
+		remove(((Number) oldValue).intValue(), mountain);
+		put(((Number) newValue).intValue(), mountain);
+		rebuildIfStale();
+	};
+
+	/**
+	 * observes the data list for added and removed mountains
+	 */
+	private final ListChangeListener<Mountain> dataChangeListener = change -> {
+		while (change.next()) {
+			if (change.wasPermutated() || change.wasUpdated()) {
+				continue;
+			}
+			for (Mountain mountain : change.getRemoved()) {
+				mountain.removeListener(idChangeListener);
+				remove(mountain.getId(), mountain);
+			}
+			addAll(change.getAddedSubList());
+		}
+		rebuildIfStale();
+	};
+
+
+	/**
+	 * Constructs a new index over the given data list.
+	 *
+	 * @param data the list of mountains which is indexed
+	 */
+	MountainIdIndex(ObservableList<Mountain> data) {
+		this.data = data;
+		clear(data.size());
+		addAll(data);
+		data.addListener(dataChangeListener);
+	}
+
+
+	/**
+	 * Returns the mountain with the given ID.
+	 *
+	 * @param id the ID of the mountain
+	 * @return Mountain the mountain with the given ID, null if there is none
+	 */
+	Mountain get(int id) {
+		int mask = keys.length - 1;
+		for (int slot = hash(id) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == id) {
+				return values[slot];
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Returns true if every mountain in the data list has its own ID. Otherwise {@link #get(int)} only returns the
+	 * first mountain of a shared ID.
+	 *
+	 * @return boolean true if no ID is shared by several mountains
+	 */
+	boolean isUnique() {
+		return shadowed == 0;
+	}
+
+
+	/**
+	 * Adds the given mountains to the index and starts observing their IDs.
+	 *
+	 * @param mountains the mountains to add
+	 */
+	private void addAll(List<? extends Mountain> mountains) {
+		for (Mountain mountain : mountains) {
+			mountain.addListener(idChangeListener);
+			put(mountain.getId(), mountain);
+		}
+	}
+
+
+	/**
+	 * Adds a mountain to the hash table. If there already is a mountain with the same ID, the first one is kept.
+	 *
+	 * @param id the ID of the mountain
+	 * @param mountain the mountain to add
+	 */
+	private void put(int id, Mountain mountain) {
+		int mask = keys.length - 1;
+		int slot = hash(id) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == id) {
+				shadowed++;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = id;
+		values[slot] = mountain;
+		if (++size > keys.length * 3 / 4) {
+			resize(keys.length * 2);
+		}
+	}
+
+
+	/**
+	 * Removes a mountain from the hash table. Uses backward shift deletion, so no tombstones are needed.
+	 *
+	 * @param id the ID of the mountain
+	 * @param mountain the mountain to remove
+	 */
+	private void remove(int id, Mountain mountain) {
+		int mask = keys.length - 1;
+		int slot = hash(id) & mask;
+		while (values[slot] != null && keys[slot] != id) {
+			slot = (slot + 1) & mask;
+		}
+		if (values[slot] == null) {
+			return;
+		}
+		if (values[slot] != mountain) {
+			shadowed--;
+			return;
+		}
+		if (shadowed > 0) {
+			stale = true;
+		}
+
+		int hole = slot;
+		for (slot = (slot + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+			int home = hash(keys[slot]) & mask;
+			if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+				keys[hole] = keys[slot];
+				values[hole] = values[slot];
+				hole = slot;
+			}
+		}
+		values[hole] = null;
+		size--;
+	}
+
+
+	/**
+	 * Rebuilds the hash table from the data list if a mountain with a shared ID has been removed, so the
+	 * remaining mountain with this ID can be found again.
+	 */
+	private void rebuildIfStale() {
+		if (!stale) {
+			return;
+		}
+		stale = false;
+		clear(data.size());
+		for (Mountain mountain : data) {
+			put(mountain.getId(), mountain);
+		}
+	}
+
+
+	/**
+	 * Empties the hash table and allocates enough space for the expected number of mountains.
+	 *
+	 * @param expectedSize the expected number of mountains
+	 */
+	private void clear(int expectedSize) {
+		int capacity = INITIAL_CAPACITY;
+		while (capacity * 3 / 4 < expectedSize) {
+			capacity *= 2;
+		}
+		keys = new int[capacity];
+		values = new Mountain[capacity];
+		size = 0;
+		shadowed = 0;
+	}
+
+
+	/**
+	 * Moves all mountains into a hash table with the given capacity.
+	 *
+	 * @param capacity the new capacity, must be a power of two
+	 */
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		Mountain[] oldValues = values;
+		keys = new int[capacity];
+		values = new Mountain[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+
+	/**
+	 * Spreads the bits of an ID, so that sequential IDs don't end up in clustered slots.
+	 *
+	 * @param id the ID to hash
+	 * @return int the hash of the ID
+	 */
+	private static int hash(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
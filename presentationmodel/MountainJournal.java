@@ -0,0 +1,342 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append only journal of the changes made since the csv file has last been rewritten. Every save appends one
+ * record per changed, added or removed mountain. Records are keyed by the ID of the mountain, so replaying them
+ * more than once gives the same result. From time to time the journal is compacted into the csv file.
+ *
+ * <pre>
+ * U;&lt;mountain as csv line&gt;   the mountain with this ID is changed or added
+ * D;&lt;id&gt;                      the mountain with this ID is removed
+ * </pre>
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainJournal {
+
+	/**
+	 * the prefix of a record that changes or adds a mountain
+	 */
+	private static final String UPSERT = "U;";
+
+	/**
+	 * the prefix of a record that removes a mountain
+	 */
+	private static final String DELETE = "D;";
+
+	/**
+	 * the journal file
+	 */
+	private final Path journalFile;
+
+	/**
+	 * the csv file the journal is compacted into
+	 */
+	private final Path csvFile;
+
+
+	/**
+	 * Constructs a new journal.
+	 *
+	 * @param journalFile the journal file
+	 * @param csvFile the csv file the journal is compacted into
+	 */
+	MountainJournal(Path journalFile, Path csvFile) {
+		this.journalFile = journalFile;
+		this.csvFile = csvFile;
+	}
+
+
+	/**
+	 * Returns the record which changes or adds the given mountain.
+	 *
+	 * @param mountain the changed or added mountain
+	 * @return String the journal record
+	 */
+	static String upsertRecord(Mountain mountain) {
+		return UPSERT + mountain.infoAsLine();
+	}
+
+
+	/**
+	 * Returns the record which removes the mountain with the given ID.
+	 *
+	 * @param id the ID of the removed mountain
+	 * @return String the journal record
+	 */
+	static String deleteRecord(int id) {
+		return DELETE + id;
+	}
+
+
+	/**
+	 * Appends the given records to the journal and forces them to the disk. A record which is cut off by a crash
+	 * is ignored when the journal is read.
+	 *
+	 * @param records the records to append
+	 * @throws IOException if the journal can't be written
+	 */
+	synchronized void append(List<String> records) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (String record : records) {
+			text.append(record).append('\n');
+		}
+		try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+	}
+
+
+	/**
+	 * Returns the size of the journal.
+	 *
+	 * @return long the size of the journal in bytes, 0 if there is no journal
+	 * @throws IOException if the size can't be read
+	 */
+	long size() throws IOException {
+		return Files.exists(journalFile) ? Files.size(journalFile) : 0;
+	}
+
+
+	/**
+	 * Reads the journal and returns a replay, which applies the records to loaded mountains.
+	 *
+	 * @return Replay the replay of all records in the journal
+	 * @throws IOException if the journal can't be read
+	 */
+	Replay replay() throws IOException {
+		return new Replay(Files.exists(journalFile) ? parseRecords(Files.readAllBytes(journalFile)) : new LinkedHashMap<>());
+	}
+
+
+	/**
+	 * Parses journal records into a map from the ID to the latest state of a mountain, in the order the IDs first
+	 * appear. A removed mountain is mapped to null. An incomplete last record is ignored.
+	 *
+	 * @param records the journal records
+	 * @return Map the latest state of every mountain in the records
+	 */
+	static Map<Integer, Mountain> parseRecords(byte[] records) {
+		Map<Integer, Mountain> state = new LinkedHashMap<>();
+		for (Map.Entry<Integer, String> entry : readRecords(records).entrySet()) {
+			String line = entry.getValue();
+			state.put(entry.getKey(), line == null ? null : parseLine(line));
+		}
+		return state;
+	}
+
+
+	/**
+	 * Merges the journal into the csv file. The csv file is rewritten into a temporary file, which is forced to the
+	 * disk and then atomically replaces the csv file, so a crash leaves either the old or the new csv file.
+	 * Records appended while compacting are kept in the journal.
+	 *
+	 * @throws IOException if the files can't be read or written
+	 */
+	void compact() throws IOException {
+		byte[] journal;
+		synchronized (this) {
+			if (!Files.exists(journalFile)) {
+				return;
+			}
+			journal = Files.readAllBytes(journalFile);
+		}
+		Map<Integer, String> state = readRecords(journal);
+
+		Path temp = csvFile.resolveSibling(csvFile.getFileName() + ".tmp");
+		try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+				FileOutputStream out = new FileOutputStream(temp.toFile());
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+			String line = reader.readLine();
+			if (line != null) {
+				writer.write(line);
+				writer.newLine();
+			}
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				Integer id = Integer.valueOf(line.substring(0, line.indexOf(';')));
+				if (state.containsKey(id)) {
+					line = state.get(id);
+					state.put(id, null);
+				}
+				if (line != null) {
+					writer.write(line);
+					writer.newLine();
+				}
+			}
+			for (String added : state.values()) {
+				if (added != null) {
+					writer.write(added);
+					writer.newLine();
+				}
+			}
+			writer.flush();
+			out.getFD().sync();
+		}
+
+		synchronized (this) {
+			Files.move(temp, csvFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			byte[] current = Files.readAllBytes(journalFile);
+			if (current.length == journal.length) {
+				Files.delete(journalFile);
+			} else {
+				Path journalTemp = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+				try (FileOutputStream out = new FileOutputStream(journalTemp.toFile())) {
+					out.write(current, journal.length, current.length - journal.length);
+					out.getFD().sync();
+				}
+				Files.move(journalTemp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+	}
+
+
+	/**
+	 * Reads the records of a journal into a map from the ID to the latest csv line of a mountain, in the order the
+	 * IDs first appear. A removed mountain is mapped to null. An incomplete last record is ignored.
+	 *
+	 * @param journal the content of the journal
+	 * @return Map the latest state of every mountain in the journal
+	 */
+	private static Map<Integer, String> readRecords(byte[] journal) {
+		Map<Integer, String> state = new LinkedHashMap<>();
+		int length = journal.length;
+		while (length > 0 && journal[length - 1] != '\n') {
+			length--;
+		}
+		for (String record : new String(journal, 0, length, StandardCharsets.UTF_8).split("\r?\n")) {
+			if (record.startsWith(DELETE)) {
+				state.put(Integer.valueOf(record.substring(DELETE.length())), null);
+			} else if (record.startsWith(UPSERT)) {
+				String line = record.substring(UPSERT.length());
+				state.put(Integer.valueOf(line.substring(0, line.indexOf(';'))), line);
+			}
+		}
+		return state;
+	}
+
+
+	/**
+	 * Parses a csv line into a mountain.
+	 *
+	 * @param line the csv line
+	 * @return Mountain the mountain described by the line
+	 */
+	private static Mountain parseLine(String line) {
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		return MountainCsvReader.parseChunk(bytes, 0, bytes.length).get(0);
+	}
+
+
+	/**
+	 * Applies the records of a journal to mountains while they are loaded.
+	 */
+	static class Replay {
+
+		/**
+		 * the latest state of every mountain in the journal, null if it has been removed
+		 */
+		private final Map<Integer, Mountain> state;
+
+
+		/**
+		 * Returns a replay without any records.
+		 *
+		 * @return Replay an empty replay
+		 */
+		static Replay empty() {
+			return new Replay(new LinkedHashMap<>());
+		}
+
+
+		/**
+		 * Constructs a new replay.
+		 *
+		 * @param state the latest state of every mountain in the journal
+		 */
+		private Replay(Map<Integer, Mountain> state) {
+			this.state = state;
+		}
+
+
+		/**
+		 * Returns true if there are no records to replay.
+		 *
+		 * @return boolean true if the journal is empty
+		 */
+		boolean isEmpty() {
+			return state.isEmpty();
+		}
+
+
+		/**
+		 * Applies the journal to a batch of loaded mountains. Removed mountains are dropped and changed ones are
+		 * replaced by their latest state.
+		 *
+		 * @param batch the loaded mountains
+		 * @return List the mountains with the journal applied
+		 */
+		List<Mountain> apply(List<Mountain> batch) {
+			if (state.isEmpty()) {
+				return batch;
+			}
+			List<Mountain> result = new ArrayList<>(batch.size());
+			for (Mountain mountain : batch) {
+				Integer id = mountain.getId();
+				if (!state.containsKey(id)) {
+					result.add(mountain);
+				} else if (state.get(id) != null) {
+					result.add(state.get(id));
+					state.put(id, null);
+				}
+			}
+			return result;
+		}
+
+
+		/**
+		 * Returns the mountains which have been added after the csv file was last rewritten. Must be called after
+		 * all loaded mountains have been passed to {@link #apply(List)}.
+		 *
+		 * @return List the added mountains
+		 */
+		List<Mountain> remaining() {
+			List<Mountain> remaining = new ArrayList<>();
+			for (Iterator<Mountain> iterator = state.values().iterator(); iterator.hasNext();) {
+				Mountain mountain = iterator.next();
+				if (mountain != null) {
+					remaining.add(mountain);
+				}
+				iterator.remove();
+			}
+			return remaining;
+		}
+	}
+}
@@ -0,0 +1,429 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Ranks the mountains of a list by a numeric field, the largest value first. The mountains are kept in a treap, a
+ * balanced search tree in which every node knows the size of its subtree, so the mountain at a position and the
+ * rank of a mountain are found in logarithmic time, and the first k mountains are read in O(log n + k).
+ *
+ * The tree is updated from the changes of the list and of the ranked field of its mountains: an added, removed or
+ * changed mountain only inserts or removes one node. Mountains with equal values are ranked in the order they have
+ * been added to the tree or changed last. The nodes are stored in primitive arrays and reused after removals.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainLeaderboard {
+
+	/**
+	 * the index of a missing node
+	 */
+	private static final int NIL = 0;
+
+	/**
+	 * the ranked mountains
+	 */
+	private final ObservableList<Mountain> members;
+
+	/**
+	 * the ranked field
+	 */
+	private final Mountain.Field field;
+
+	/**
+	 * the node of every ranked mountain
+	 */
+	private final Map<Mountain, Integer> nodes = new IdentityHashMap<>();
+
+	/**
+	 * draws the priorities of the nodes
+	 */
+	private final SplittableRandom random = new SplittableRandom(42);
+
+	/**
+	 * the mountain of every node, null if the node is free
+	 */
+	private Mountain[] mountains = new Mountain[16];
+
+	/**
+	 * the ranked value of every node
+	 */
+	private double[] values = new double[16];
+
+	/**
+	 * the number of the insertion of every node, which orders equal values
+	 */
+	private long[] sequences = new long[16];
+
+	/**
+	 * the heap priority of every node
+	 */
+	private int[] priorities = new int[16];
+
+	/**
+	 * the left child of every node, which is ranked before it
+	 */
+	private int[] left = new int[16];
+
+	/**
+	 * the right child of every node, which is ranked after it
+	 */
+	private int[] right = new int[16];
+
+	/**
+	 * the number of nodes in the subtree of every node
+	 */
+	private int[] sizes = new int[16];
+
+	/**
+	 * the root of the tree
+	 */
+	private int root = NIL;
+
+	/**
+	 * the next unused node, node 0 stands for a missing node
+	 */
+	private int next = 1;
+
+	/**
+	 * the free nodes, which can be reused
+	 */
+	private int[] free = new int[16];
+
+	/**
+	 * the number of free nodes
+	 */
+	private int freeSize;
+
+	/**
+	 * the number of the next insertion
+	 */
+	private long sequence;
+
+	/**
+	 * observes the ranked field of the mountains
+	 */
+	private final Mountain.Listener mountainChangeListener = (mountain, changed, oldValue, newValue) -> fieldChanged(
+			mountain, changed);
+
+	/**
+	 * observes the list for added and removed mountains
+	 */
+	private final ListChangeListener<Mountain> membersChangeListener = change -> {
+		while (change.next()) {
+			if (change.wasPermutated() || change.wasUpdated()) {
+				continue;
+			}
+			for (Mountain mountain : change.getRemoved()) {
+				mountain.removeListener(mountainChangeListener);
+				remove(mountain);
+			}
+			for (Mountain mountain : change.getAddedSubList()) {
+				mountain.addListener(mountainChangeListener);
+				insert(mountain);
+			}
+		}
+	};
+
+
+	/**
+	 * Constructs a new leaderboard of the mountains in a list.
+	 *
+	 * @param members the ranked mountains
+	 * @param field the numeric field the mountains are ranked by
+	 */
+	MountainLeaderboard(ObservableList<Mountain> members, Mountain.Field field) {
+		this.members = members;
+		this.field = field;
+		for (Mountain mountain : members) {
+			mountain.addListener(mountainChangeListener);
+			insert(mountain);
+		}
+		members.addListener(membersChangeListener);
+	}
+
+
+	/**
+	 * Returns the first mountains of the ranking.
+	 *
+	 * @param k the number of mountains
+	 * @return List the k mountains with the largest values, the largest one first
+	 */
+	List<Mountain> top(int k) {
+		List<Mountain> result = new ArrayList<>(Math.max(0, Math.min(k, size())));
+		int[] stack = new int[64];
+		int depth = 0;
+		int node = root;
+		while (result.size() < k && (node != NIL || depth > 0)) {
+			if (node != NIL) {
+				if (depth == stack.length) {
+					stack = Arrays.copyOf(stack, depth * 2);
+				}
+				stack[depth++] = node;
+				node = left[node];
+			} else {
+				node = stack[--depth];
+				result.add(mountains[node]);
+				node = right[node];
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns the mountain at a position of the ranking.
+	 *
+	 * @param position the position, 0 for the mountain with the largest value
+	 * @return Mountain the mountain at the position, null if the position is outside of the ranking
+	 */
+	Mountain get(int position) {
+		if (position < 0 || position >= size()) {
+			return null;
+		}
+		int node = root;
+		while (true) {
+			int before = sizes[left[node]];
+			if (position < before) {
+				node = left[node];
+			} else if (position == before) {
+				return mountains[node];
+			} else {
+				position -= before + 1;
+				node = right[node];
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the rank of a mountain, which is one more than the number of mountains with a larger value, so
+	 * mountains with equal values share a rank.
+	 *
+	 * @param mountain the mountain
+	 * @return int the rank of the mountain starting at 1, 0 if the mountain isn't ranked
+	 */
+	int rank(Mountain mountain) {
+		Integer node = nodes.get(mountain);
+		if (node == null) {
+			return 0;
+		}
+		double value = values[node];
+		int larger = 0;
+		int current = root;
+		while (current != NIL) {
+			if (values[current] > value) {
+				larger += sizes[left[current]] + 1;
+				current = right[current];
+			} else {
+				current = left[current];
+			}
+		}
+		return larger + 1;
+	}
+
+
+	/**
+	 * Returns the number of ranked mountains.
+	 *
+	 * @return int the number of mountains
+	 */
+	int size() {
+		return sizes[root];
+	}
+
+
+	/**
+	 * Stops observing the list and its mountains.
+	 */
+	void close() {
+		members.removeListener(membersChangeListener);
+		for (Mountain mountain : nodes.keySet()) {
+			mountain.removeListener(mountainChangeListener);
+		}
+	}
+
+
+	/**
+	 * Moves a mountain to its new position, if its ranked field has changed. A mountain which has left the list
+	 * because of the same change may still be notified, it is not put back into the tree.
+	 *
+	 * @param mountain the changed mountain
+	 * @param changed the changed field
+	 */
+	private void fieldChanged(Mountain mountain, Mountain.Field changed) {
+		if (changed == field && nodes.containsKey(mountain)) {
+			remove(mountain);
+			insert(mountain);
+		}
+	}
+
+
+	/**
+	 * Inserts a mountain into the tree with its current value.
+	 *
+	 * @param mountain the mountain
+	 */
+	private void insert(Mountain mountain) {
+		if (nodes.containsKey(mountain)) {
+			return;
+		}
+		int node = allocate();
+		mountains[node] = mountain;
+		values[node] = ((Number) mountain.get(field)).doubleValue();
+		sequences[node] = sequence++;
+		priorities[node] = random.nextInt();
+		left[node] = NIL;
+		right[node] = NIL;
+		sizes[node] = 1;
+		nodes.put(mountain, node);
+		int[] parts = split(root, node);
+		root = merge(merge(parts[0], node), parts[1]);
+	}
+
+
+	/**
+	 * Removes a mountain from the tree.
+	 *
+	 * @param mountain the mountain
+	 */
+	private void remove(Mountain mountain) {
+		Integer node = nodes.remove(mountain);
+		if (node == null) {
+			return;
+		}
+		root = removeNode(root, node);
+		mountains[node] = null;
+		if (freeSize == free.length) {
+			free = Arrays.copyOf(free, freeSize * 2);
+		}
+		free[freeSize++] = node;
+	}
+
+
+	/**
+	 * Removes a node from a subtree.
+	 *
+	 * @param tree the root of the subtree
+	 * @param node the node to remove
+	 * @return int the new root of the subtree
+	 */
+	private int removeNode(int tree, int node) {
+		if (tree == node) {
+			return merge(left[tree], right[tree]);
+		}
+		if (before(node, tree)) {
+			left[tree] = removeNode(left[tree], node);
+		} else {
+			right[tree] = removeNode(right[tree], node);
+		}
+		update(tree);
+		return tree;
+	}
+
+
+	/**
+	 * Splits a subtree into the nodes ranked before a node and the other ones.
+	 *
+	 * @param tree the root of the subtree
+	 * @param node the node, which isn't in the subtree
+	 * @return int[] the roots of the nodes ranked before and after the node
+	 */
+	private int[] split(int tree, int node) {
+		if (tree == NIL) {
+			return new int[] { NIL, NIL };
+		}
+		if (before(tree, node)) {
+			int[] parts = split(right[tree], node);
+			right[tree] = parts[0];
+			update(tree);
+			parts[0] = tree;
+			return parts;
+		}
+		int[] parts = split(left[tree], node);
+		left[tree] = parts[1];
+		update(tree);
+		parts[1] = tree;
+		return parts;
+	}
+
+
+	/**
+	 * Merges two subtrees, all of whose nodes in the first one are ranked before the ones in the second one.
+	 *
+	 * @param first the root of the first subtree
+	 * @param second the root of the second subtree
+	 * @return int the root of the merged tree
+	 */
+	private int merge(int first, int second) {
+		if (first == NIL || second == NIL) {
+			return first == NIL ? second : first;
+		}
+		if (priorities[first] > priorities[second]) {
+			right[first] = merge(right[first], second);
+			update(first);
+			return first;
+		}
+		left[second] = merge(first, left[second]);
+		update(second);
+		return second;
+	}
+
+
+	/**
+	 * Returns true if a node is ranked before another one, by a larger value or by an earlier insertion.
+	 *
+	 * @param lhs the first node
+	 * @param rhs the second node
+	 * @return boolean true if the first node is ranked before the second one
+	 */
+	private boolean before(int lhs, int rhs) {
+		if (values[lhs] != values[rhs]) {
+			return values[lhs] > values[rhs];
+		}
+		return sequences[lhs] < sequences[rhs];
+	}
+
+
+	/**
+	 * Updates the size of the subtree of a node.
+	 *
+	 * @param node the node
+	 */
+	private void update(int node) {
+		sizes[node] = sizes[left[node]] + sizes[right[node]] + 1;
+	}
+
+
+	/**
+	 * Returns a free node, growing the arrays if all nodes are used.
+	 *
+	 * @return int the free node
+	 */
+	private int allocate() {
+		if (freeSize > 0) {
+			return free[--freeSize];
+		}
+		if (next == mountains.length) {
+			int capacity = next * 2;
+			mountains = Arrays.copyOf(mountains, capacity);
+			values = Arrays.copyOf(values, capacity);
+			sequences = Arrays.copyOf(sequences, capacity);
+			priorities = Arrays.copyOf(priorities, capacity);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+		}
+		return next++;
+	}
+}
@@ -0,0 +1,225 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+/**
+ * Computes the Levenshtein distance between two strings without allocating memory. If one string has at most 64
+ * characters below 256, the bit parallel algorithm of Myers is used, which handles a whole column of the distance
+ * matrix in a few long operations. Otherwise only a diagonal band of the matrix is computed, as described by
+ * Ukkonen, because cells outside of the band can't lead to a distance within the bound.
+ *
+ * Both algorithms stop as soon as the distance is known to exceed the bound. The scratch buffers are kept per
+ * thread and reused for every comparison.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+final class MountainLevenshtein {
+
+	/**
+	 * the largest number of characters Myers' algorithm can handle in one long
+	 */
+	private static final int WORD_SIZE = 64;
+
+	/**
+	 * the number of characters with a precomputed match mask
+	 */
+	private static final int ALPHABET_SIZE = 256;
+
+	/**
+	 * the scratch buffers of every thread
+	 */
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+
+	/**
+	 * This class only contains static methods.
+	 */
+	private MountainLevenshtein() {
+	}
+
+
+	/**
+	 * Returns the edit distance between two strings.
+	 *
+	 * @param lhs the first string that will be compared to the second one
+	 * @param rhs the second string that will be compared to the first one
+	 * @return int the number of inserted, deleted or replaced characters to get from one string to the other
+	 */
+	static int distance(CharSequence lhs, CharSequence rhs) {
+		return distance(lhs, rhs, Integer.MAX_VALUE);
+	}
+
+
+	/**
+	 * Returns the edit distance between two strings, if it doesn't exceed the given bound. The computation stops as
+	 * soon as the distance is known to exceed the bound.
+	 *
+	 * @param lhs the first string that will be compared to the second one
+	 * @param rhs the second string that will be compared to the first one
+	 * @param max the largest distance of interest, not negative
+	 * @return int the edit distance, max + 1 if it is larger than max
+	 */
+	static int distance(CharSequence lhs, CharSequence rhs, int max) {
+		int bound = Math.min(max, Math.max(lhs.length(), rhs.length()));
+		if (Math.abs(lhs.length() - rhs.length()) > bound) {
+			return max + 1;
+		}
+		int distance;
+		if (fitsWord(lhs)) {
+			distance = myers(lhs, rhs, bound);
+		} else if (fitsWord(rhs)) {
+			distance = myers(rhs, lhs, bound);
+		} else {
+			distance = banded(lhs, rhs, bound);
+		}
+		return distance > bound ? max + 1 : distance;
+	}
+
+
+	/**
+	 * Returns true if Myers' algorithm can use the given string as pattern.
+	 *
+	 * @param text the string
+	 * @return boolean true if the string has at most 64 characters, which are all below 256
+	 */
+	private static boolean fitsWord(CharSequence text) {
+		if (text.length() > WORD_SIZE) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= ALPHABET_SIZE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Computes the edit distance with Myers' bit parallel algorithm. Bit i of the vertical deltas describes the
+	 * difference between the rows i and i + 1 of the current column, so the whole column is updated at once.
+	 *
+	 * @param pattern the string with at most 64 characters below 256
+	 * @param text the other string
+	 * @param bound the largest distance of interest
+	 * @return int the edit distance, bound + 1 if it is larger than bound
+	 */
+	private static int myers(CharSequence pattern, CharSequence text, int bound) {
+		int m = pattern.length();
+		if (m == 0) {
+			return text.length();
+		}
+		long[] peq = BUFFERS.get().peq;
+		for (int i = 0; i < m; i++) {
+			peq[pattern.charAt(i)] |= 1L << i;
+		}
+		long last = 1L << (m - 1);
+		long positive = -1L;
+		long negative = 0L;
+		int score = m;
+		int n = text.length();
+		for (int j = 0; j < n; j++) {
+			char c = text.charAt(j);
+			long equal = c < ALPHABET_SIZE ? peq[c] : 0L;
+			long xv = equal | negative;
+			long xh = (((equal & positive) + positive) ^ positive) | equal;
+			long horizontalPositive = negative | ~(xh | positive);
+			long horizontalNegative = positive & xh;
+			if ((horizontalPositive & last) != 0) {
+				score++;
+			} else if ((horizontalNegative & last) != 0) {
+				score--;
+			}
+			if (score - (n - j - 1) > bound) {
+				score = bound + 1;
+				break;
+			}
+			horizontalPositive = (horizontalPositive << 1) | 1L;
+			horizontalNegative <<= 1;
+			positive = horizontalNegative | ~(xv | horizontalPositive);
+			negative = horizontalPositive & xv;
+		}
+		for (int i = 0; i < m; i++) {
+			peq[pattern.charAt(i)] = 0L;
+		}
+		return score;
+	}
+
+
+	/**
+	 * Computes the edit distance row by row, but only within the diagonal band of the given bound. Cells outside of
+	 * the band are treated as larger than the bound.
+	 *
+	 * @param lhs the first string
+	 * @param rhs the second string
+	 * @param bound the largest distance of interest
+	 * @return int the edit distance, bound + 1 if it is larger than bound
+	 */
+	private static int banded(CharSequence lhs, CharSequence rhs, int bound) {
+		int n = lhs.length();
+		int m = rhs.length();
+		int outside = bound + 1;
+		Buffers buffers = BUFFERS.get();
+		int[] previous = buffers.row(0, n + 1);
+		int[] current = buffers.row(1, n + 1);
+		for (int i = 0; i <= n; i++) {
+			previous[i] = i <= bound ? i : outside;
+		}
+		for (int j = 1; j <= m; j++) {
+			int from = Math.max(1, j - bound);
+			int to = Math.min(n, j + bound);
+			current[from - 1] = from == 1 && j <= bound ? j : outside;
+			int rowMin = current[from - 1];
+			char c = rhs.charAt(j - 1);
+			for (int i = from; i <= to; i++) {
+				int cost = previous[i - 1] + (lhs.charAt(i - 1) == c ? 0 : 1);
+				cost = Math.min(cost, previous[i] + 1);
+				cost = Math.min(cost, current[i - 1] + 1);
+				current[i] = Math.min(cost, outside);
+				rowMin = Math.min(rowMin, current[i]);
+			}
+			if (to < n) {
+				current[to + 1] = outside;
+			}
+			if (rowMin > bound) {
+				return outside;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[n];
+	}
+
+
+	/**
+	 * The scratch buffers of a thread.
+	 */
+	private static class Buffers {
+
+		/**
+		 * the match mask of every character of the pattern, all zero between two computations
+		 */
+		private final long[] peq = new long[ALPHABET_SIZE];
+
+		/**
+		 * the two rows of the banded computation
+		 */
+		private final int[][] rows = { new int[32], new int[32] };
+
+
+		/**
+		 * Returns a row, which is grown to the given length if needed.
+		 *
+		 * @param index the index of the row
+		 * @param length the needed length
+		 * @return int[] the row
+		 */
+		int[] row(int index, int length) {
+			if (rows[index].length < length) {
+				rows[index] = new int[Math.max(length, rows[index].length * 2)];
+			}
+			return rows[index];
+		}
+	}
+}
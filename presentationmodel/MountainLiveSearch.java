@@ -0,0 +1,452 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+
+/**
+ * Searches the names of the mountains while the user is typing. A search only starts after the search string has
+ * not changed for a short delay, and runs on a background thread against a snapshot of the names, so the FX thread
+ * is never blocked. Large snapshots are scanned in parallel chunks. Every new search string cancels the search of
+ * the previous one, which stops the scan of all chunks. If the new search string
+ * contains the previous one, only the mountains found by the previous search are checked again. If no name contains
+ * the search string, the names within the edit distance of the fuzzy search are shown instead, so the mountain the
+ * fuzzy search selects is in the view.
+ *
+ * The result is a filtered view of the data list, which only shows the mountains whose search key contains the search
+ * key of the search string, or all mountains if the search string is empty. The search is run again if the mountains
+ * or their names change. The mountains and their search keys are kept by slot and updated with every change, so a
+ * snapshot only shares them. They are copied before the next change, so a snapshot never changes while it is
+ * searched.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainLiveSearch {
+
+	/**
+	 * the time in milliseconds the search string must stay unchanged, before the search starts
+	 */
+	static final long DEBOUNCE_DELAY = 150;
+
+	/**
+	 * the slots of the mountains which are searched
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the mountains of the data list which match the current search string
+	 */
+	private final FilteredList<Mountain> results;
+
+	/**
+	 * the executor the results are applied on
+	 */
+	private final Executor fxExecutor;
+
+	/**
+	 * the time in milliseconds the search string must stay unchanged, before the search starts
+	 */
+	private final long delay;
+
+	/**
+	 * the background thread, which is a daemon, so it doesn't keep the application running
+	 */
+	private final ScheduledExecutorService searcher;
+
+	/**
+	 * the number of the current search, searches with another number are stale
+	 */
+	private final AtomicInteger generation = new AtomicInteger();
+
+	/**
+	 * the scheduled search, null if none is scheduled
+	 */
+	private ScheduledFuture<?> scheduled;
+
+	/**
+	 * the search key of the current search string, empty if nothing is searched
+	 */
+	private String query = "";
+
+	/**
+	 * the mountain in every slot, null for the free slots
+	 */
+	private Mountain[] mountains = new Mountain[16];
+
+	/**
+	 * the search key of the name of the mountain in every slot, null for the free slots
+	 */
+	private String[] keys = new String[16];
+
+	/**
+	 * the slot after the last used one
+	 */
+	private int end;
+
+	/**
+	 * set while a snapshot refers to the arrays of the mountains and their keys, so they have to be copied before
+	 * they are changed
+	 */
+	private boolean shared;
+
+	/**
+	 * the snapshot of the names, null if the mountains or their names have changed since it was taken
+	 */
+	private Snapshot snapshot;
+
+	/**
+	 * the result of the last finished search, null if there is none
+	 */
+	private Result last;
+
+	/**
+	 * set while a search for changed data has been requested, but not scheduled yet
+	 */
+	private boolean rescanRequested;
+
+
+	/**
+	 * Constructs a new live search over the mountains in the given slots.
+	 *
+	 * @param data the list of mountains which is searched
+	 * @param slots the slots of the mountains, which report added, removed and renamed mountains
+	 * @param fxExecutor the executor the results are applied on
+	 */
+	MountainLiveSearch(ObservableList<Mountain> data, MountainSlots slots, Executor fxExecutor) {
+		this(data, slots, fxExecutor, DEBOUNCE_DELAY);
+	}
+
+
+	/**
+	 * Constructs a new live search over the mountains in the given slots.
+	 *
+	 * @param data the list of mountains which is searched
+	 * @param slots the slots of the mountains, which report added, removed and renamed mountains
+	 * @param fxExecutor the executor the results are applied on
+	 * @param delay the time in milliseconds the search string must stay unchanged, before the search starts
+	 */
+	MountainLiveSearch(ObservableList<Mountain> data, MountainSlots slots, Executor fxExecutor, long delay) {
+		this.slots = slots;
+		this.fxExecutor = fxExecutor;
+		this.delay = delay;
+		results = new FilteredList<>(data);
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "mountain-search");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		searcher = executor;
+		fill();
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				set(slot, slots.get(slot));
+				dataChanged();
+			}
+
+			@Override
+			public void removed(int slot) {
+				set(slot, null);
+				dataChanged();
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				if (field == Mountain.Field.NAME) {
+					set(slot, slots.get(slot));
+					dataChanged();
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				fill();
+				dataChanged();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the mountains of the data list which match the current search string.
+	 *
+	 * @return FilteredList the matching mountains in the order of the data list
+	 */
+	FilteredList<Mountain> getResults() {
+		return results;
+	}
+
+
+	/**
+	 * Starts a search for the given search string after the delay, cancelling the current one. An empty search
+	 * string shows all mountains right away.
+	 *
+	 * @param search the search string, null for none
+	 */
+	void search(String search) {
+		query = MountainSearchKey.of(search);
+		schedule();
+	}
+
+
+	/**
+	 * Stops the background thread. Scheduled searches are dropped.
+	 */
+	void stop() {
+		generation.incrementAndGet();
+		searcher.shutdownNow();
+	}
+
+
+	/**
+	 * Takes the mountains and their search keys from all slots.
+	 */
+	private void fill() {
+		end = slots.end();
+		mountains = new Mountain[Math.max(16, end)];
+		keys = new String[mountains.length];
+		shared = false;
+		for (int slot = 0; slot < end; slot++) {
+			Mountain mountain = slots.get(slot);
+			if (mountain != null) {
+				mountains[slot] = mountain;
+				keys[slot] = mountain.getSearchKey();
+			}
+		}
+	}
+
+
+	/**
+	 * Sets the mountain of a slot and its search key, copying the arrays first if a snapshot refers to them.
+	 *
+	 * @param slot the slot
+	 * @param mountain the mountain in the slot, null if the slot has been freed
+	 */
+	private void set(int slot, Mountain mountain) {
+		if (shared || slot >= mountains.length) {
+			int length = slot < mountains.length ? mountains.length : Math.max(slot + 1, mountains.length * 2);
+			mountains = Arrays.copyOf(mountains, length);
+			keys = Arrays.copyOf(keys, length);
+			shared = false;
+		}
+		mountains[slot] = mountain;
+		keys[slot] = mountain == null ? null : mountain.getSearchKey();
+		end = Math.max(end, slot + 1);
+	}
+
+
+	/**
+	 * Marks the snapshot as outdated and searches again, if something is searched. All changes until the FX
+	 * executor gets to the new search, like a whole batch of loaded mountains, lead to a single search. If the
+	 * executor rejects the search, the next change requests it again.
+	 */
+	private void dataChanged() {
+		snapshot = null;
+		last = null;
+		if (query.isEmpty() || rescanRequested) {
+			return;
+		}
+		rescanRequested = true;
+		try {
+			fxExecutor.execute(() -> {
+				rescanRequested = false;
+				if (!query.isEmpty()) {
+					schedule();
+				}
+			});
+		} catch (RuntimeException exception) {
+			rescanRequested = false;
+			throw exception;
+		}
+	}
+
+
+	/**
+	 * Cancels the current search and schedules a new one for the current search string.
+	 */
+	private void schedule() {
+		int number = generation.incrementAndGet();
+		if (scheduled != null) {
+			scheduled.cancel(false);
+			scheduled = null;
+		}
+		if (query.isEmpty()) {
+			last = null;
+			results.setPredicate(null);
+			return;
+		}
+		if (snapshot == null) {
+			snapshot = new Snapshot(mountains, keys, end);
+			shared = true;
+		}
+		String search = query;
+		Snapshot names = snapshot;
+		boolean narrow = last != null && !last.fuzzy && last.snapshot == names && search.contains(last.query);
+		Result base = narrow ? last : null;
+		scheduled = searcher.schedule(() -> run(number, search, names, base), delay, TimeUnit.MILLISECONDS);
+	}
+
+
+	/**
+	 * Runs a search on the background thread and applies its result on the FX thread, unless it is stale by then.
+	 *
+	 * @param number the number of the search
+	 * @param search the search key of the search string
+	 * @param names the snapshot of the names
+	 * @param base the result of a previous search string contained in this one, null to check all names
+	 */
+	private void run(int number, String search, Snapshot names, Result base) {
+		int[] matches = find(number, search, names, base, false);
+		boolean fuzzy = matches != null && matches.length == 0;
+		if (fuzzy) {
+			matches = find(number, search, names, null, true);
+		}
+		if (matches == null) {
+			return;
+		}
+		Result result = new Result(search, names, matches, fuzzy);
+		fxExecutor.execute(() -> {
+			if (generation.get() == number) {
+				apply(result);
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the positions of the names in the snapshot, which contain the search string or are close to it.
+	 *
+	 * @param number the number of the search
+	 * @param search the search key of the search string
+	 * @param names the snapshot of the names
+	 * @param base the result of a previous search string contained in this one, null to check all names
+	 * @param fuzzy true to find the names within the edit distance of the fuzzy search, false to find the names
+	 *            containing the search string
+	 * @return int[] the positions of the matching names, null if the search has become stale
+	 */
+	private int[] find(int number, String search, Snapshot names, Result base, boolean fuzzy) {
+		int count = base == null ? names.end : base.matches.length;
+		int[] matches = MountainParallelScan.findAll(0, count, i -> {
+			String key = names.keys[base == null ? i : base.matches[i]];
+			if (key == null) {
+				return false;
+			}
+			return fuzzy ? MountainLevenshtein.distance(search, key, MountainDeleteIndex.MAX_DISTANCE)
+					<= MountainDeleteIndex.MAX_DISTANCE : key.contains(search);
+		}, () -> generation.get() != number);
+		if (matches != null && base != null) {
+			for (int i = 0; i < matches.length; i++) {
+				matches[i] = base.matches[matches[i]];
+			}
+		}
+		return matches;
+	}
+
+
+	/**
+	 * Shows the mountains of a finished search.
+	 *
+	 * @param result the result of the search
+	 */
+	private void apply(Result result) {
+		last = result;
+		Set<Mountain> matching = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int position : result.matches) {
+			matching.add(result.snapshot.mountains[position]);
+		}
+		results.setPredicate(matching::contains);
+	}
+
+
+	/**
+	 * The mountains in the slots and the search keys of their names at one point in time.
+	 */
+	private static class Snapshot {
+
+		/**
+		 * the mountain in every slot, null for the free slots
+		 */
+		private final Mountain[] mountains;
+
+		/**
+		 * the search key of the name of every mountain, null for the free slots
+		 */
+		private final String[] keys;
+
+		/**
+		 * the slot after the last used one
+		 */
+		private final int end;
+
+
+		/**
+		 * Constructs a snapshot of the given arrays, which must not be changed afterwards.
+		 *
+		 * @param mountains the mountain in every slot
+		 * @param keys the search key of the name of every mountain
+		 * @param end the slot after the last used one
+		 */
+		Snapshot(Mountain[] mountains, String[] keys, int end) {
+			this.mountains = mountains;
+			this.keys = keys;
+			this.end = end;
+		}
+	}
+
+
+	/**
+	 * The matching mountains of a finished search.
+	 */
+	private static class Result {
+
+		/**
+		 * the search key of the search string
+		 */
+		private final String query;
+
+		/**
+		 * the snapshot which has been searched
+		 */
+		private final Snapshot snapshot;
+
+		/**
+		 * the positions of the matching names in the snapshot
+		 */
+		private final int[] matches;
+
+		/**
+		 * true if no name contains the search string and the matches are the names close to it
+		 */
+		private final boolean fuzzy;
+
+
+		/**
+		 * Constructs a new result.
+		 *
+		 * @param query the search key of the search string
+		 * @param snapshot the snapshot which has been searched
+		 * @param matches the positions of the matching names in the snapshot
+		 * @param fuzzy true if the matches are the names close to the search string
+		 */
+		Result(String query, Snapshot snapshot, int[] matches, boolean fuzzy) {
+			this.query = query;
+			this.snapshot = snapshot;
+			this.matches = matches;
+			this.fuzzy = fuzzy;
+		}
+	}
+}
@@ -1,23 +1,30 @@
 package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URISyntaxException;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.Property;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -25,6 +32,7 @@ import javafx.beans.property.StringProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
 
 /**
  * Contains the functionality of the application. This inlcudes setting up
@@ -41,15 +49,60 @@ public class MountainModel {
 	 */
 	public static final int NO_SELECTION = -1;
 
+	/**
+	 * the largest number of mountains the fuzzy search ranks
+	 */
+	public static final int FUZZY_MATCHES = 10;
+
+	/**
+	 * defines how the data is loaded when the model is constructed
+	 */
+	public enum LoadMode {
+		/**
+		 * the data is completely loaded before the constructor returns
+		 */
+		SYNCHRONOUS,
+
+		/**
+		 * the data is parsed on a background thread and published to the data list in batches on the FX thread
+		 */
+		BACKGROUND
+	}
+
 	/**
 	 * the path to the mountains csv file
 	 */
 	String csvFile = "../resources/data/mountains.csv";
 
+	/**
+	 * the name of the binary snapshot file, which is stored next to the csv file
+	 */
+	String snapshotFile = "mountains.snapshot";
+
+	/**
+	 * the name of the journal file, which is stored next to the csv file
+	 */
+	String journalFile = "mountains.journal";
+
+	/**
+	 * the name of the write ahead log of unsaved changes, which is stored next to the csv file
+	 */
+	String editLogFile = "mountains.wal";
+
+	/**
+	 * the number of mountains in the first batch published from a snapshot
+	 */
+	private static final int FIRST_SNAPSHOT_BATCH_SIZE = 128;
+
+	/**
+	 * the maximal number of mountains in a batch published from a snapshot
+	 */
+	private static final int MAX_SNAPSHOT_BATCH_SIZE = 64 * 1024;
+
 	/**
 	 * the list of mountains containing data
 	 */
-	private ObservableList<Mountain> data = FXCollections.observableArrayList();
+	private final ObservableList<Mountain> data = FXCollections.observableArrayList();
 
 	/**
 	 * a logger, which is used to catch exceptions
@@ -85,6 +138,21 @@ public class MountainModel {
 	 * the mountain, which is set as selected when search methods are used, will be null if there is no searching match
 	 */
 	private Mountain foundMountain;
+
+	/**
+	 * the mountains found by the last fuzzy search, the best match first
+	 */
+	private final ObservableList<Mountain> fuzzyMatches = FXCollections.observableArrayList();
+
+	/**
+	 * the search string of the last fuzzy search, null if there hasn't been one
+	 */
+	private String fuzzySearch;
+
+	/**
+	 * the largest edit distance of the last fuzzy search
+	 */
+	private int fuzzyDistance;
 	
 	/**
 	 * the string which is in the search textfield of the toolbar
@@ -116,6 +184,156 @@ public class MountainModel {
 	 */
 	private final BooleanProperty tableVisibility = new SimpleBooleanProperty();
 
+	/**
+	 * the index used to look up mountains by their ID
+	 */
+	private final MountainIdIndex idIndex;
+
+	/**
+	 * the slots of the mountains in the data list, which are used by the search indexes
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the trigram index of the names used by the search
+	 */
+	private final MountainTrigramIndex trigramIndex;
+
+	/**
+	 * the cursor over the mountains found by the search
+	 */
+	private final MountainSearchCursor searchCursor;
+
+	/**
+	 * the deletion dictionary of the names used by the fuzzy search
+	 */
+	private final MountainDeleteIndex deleteIndex;
+
+	/**
+	 * the BK-tree of the names used by the fuzzy search for distances beyond the deletion dictionary
+	 */
+	private final MountainBkTree bkTree;
+
+	/**
+	 * the full-text index of the name, caption, range, region, isolation point and prominence point
+	 */
+	private final MountainTextIndex textIndex;
+
+	/**
+	 * the search of the names while the user is typing
+	 */
+	private final MountainLiveSearch liveSearch;
+
+	/**
+	 * the executor which runs the results of the background threads on the FX thread
+	 */
+	private final Executor fxExecutor;
+
+	/**
+	 * runs the queries with the id, trigram, sorted and bitmap indexes
+	 */
+	private final MountainQueryPlanner planner;
+
+	/**
+	 * the query of the active range filter, null if no range filter is active
+	 */
+	private MountainQuery rangeQuery;
+
+	/**
+	 * the summary of all mountains
+	 */
+	private final MountainAggregates totalAggregates;
+
+	/**
+	 * the summaries of the mountains of every region
+	 */
+	private final MountainAggregates regionAggregates;
+
+	/**
+	 * the summaries of the mountains of every range
+	 */
+	private final MountainAggregates rangeAggregates;
+
+	/**
+	 * the summaries of the mountains of every type
+	 */
+	private final MountainAggregates typeAggregates;
+
+	/**
+	 * the ranking of all mountains by their height, prominence and isolation
+	 */
+	private final Map<Mountain.Field, MountainLeaderboard> leaderboards = new EnumMap<>(Mountain.Field.class);
+
+	/**
+	 * the ranking of the mountains within the active range filter by their height, prominence and isolation
+	 */
+	private final Map<Mountain.Field, MountainLeaderboard> rangeLeaderboards = new EnumMap<>(Mountain.Field.class);
+
+	/**
+	 * the mountains within the active range filter, sorted by the filtered value
+	 */
+	private final ObservableList<Mountain> rangeResults = FXCollections.observableArrayList();
+
+	/**
+	 * true if a range filter is active
+	 */
+	private final BooleanProperty rangeFiltered = new SimpleBooleanProperty();
+
+	/**
+	 * the part of the data which has been loaded so far, between 0 and 1, or -1 if unknown
+	 */
+	private final DoubleProperty loadProgress = new SimpleDoubleProperty();
+
+	/**
+	 * true as soon as all data has been loaded
+	 */
+	private final BooleanProperty fullyLoaded = new SimpleBooleanProperty();
+
+	/**
+	 * keeps track of the mountains which have been changed since the last save
+	 */
+	private final MountainChangeTracker changeTracker;
+
+	/**
+	 * the journal the changes are saved to, created on first use
+	 */
+	private MountainJournal journal;
+
+	/**
+	 * writes the saves in the background, created on first use
+	 */
+	private MountainSaveService saveService;
+
+	/**
+	 * the write ahead log of the changes made since the last save, null if it can't be used
+	 */
+	private MountainEditLog editLog;
+
+	/**
+	 * true as soon as the model has been disposed
+	 */
+	private boolean disposed;
+
+	/**
+	 * true if changes are saved automatically
+	 */
+	private final BooleanProperty autosave = new SimpleBooleanProperty();
+
+	/**
+	 * decides when changes are saved automatically, null if autosave is off
+	 */
+	private MountainAutosaver autosaver;
+
+	/**
+	 * true while a save is being written in the background
+	 */
+	private final BooleanProperty saving = new SimpleBooleanProperty();
+
+	/**
+	 * the message of the last failed save, null if the last save succeeded
+	 */
+	private final StringProperty saveError = new SimpleStringProperty();
+
 	/**
 	 * observes if there are any changes on the properties
 	 */
@@ -126,10 +344,74 @@ public class MountainModel {
 
 	
 	/**
-	 * Constructs an new model object.
+	 * Constructs an new model object, which loads the data synchronously.
 	 */
 	public MountainModel() {
-		data = loadData(getClass().getResourceAsStream(csvFile));
+		this(LoadMode.SYNCHRONOUS);
+	}
+
+
+	/**
+	 * Constructs an new model object.
+	 * 
+	 * @param loadMode defines if the data is loaded before the constructor returns or in the background
+	 */
+	public MountainModel(LoadMode loadMode) {
+		this(loadMode, Platform::runLater);
+	}
+
+
+	/**
+	 * Constructs an new model object, which runs the results of the background threads on the given executor.
+	 * 
+	 * @param loadMode defines if the data is loaded before the constructor returns or in the background
+	 * @param fxExecutor the executor which runs the results of the background threads on the FX thread
+	 */
+	MountainModel(LoadMode loadMode, Executor fxExecutor) {
+		this.fxExecutor = fxExecutor;
+		idIndex = new MountainIdIndex(data);
+		slots = new MountainSlots(data);
+		trigramIndex = new MountainTrigramIndex(slots);
+		searchCursor = new MountainSearchCursor(slots, trigramIndex);
+		deleteIndex = new MountainDeleteIndex(slots);
+		bkTree = new MountainBkTree(slots);
+		textIndex = new MountainTextIndex(slots);
+		planner = new MountainQueryPlanner(slots, idIndex, trigramIndex);
+		totalAggregates = new MountainAggregates(slots, null);
+		regionAggregates = new MountainAggregates(slots, Mountain.Field.REGION);
+		rangeAggregates = new MountainAggregates(slots, Mountain.Field.RANGE);
+		typeAggregates = new MountainAggregates(slots, Mountain.Field.TYPE);
+		for (Mountain.Field field : MountainSummary.MEASURES) {
+			leaderboards.put(field, new MountainLeaderboard(data, field));
+			rangeLeaderboards.put(field, new MountainLeaderboard(rangeResults, field));
+		}
+		liveSearch = new MountainLiveSearch(data, slots, fxExecutor);
+		searchContent.addListener((observable, oldValue, newValue) -> liveSearch.search(newValue));
+		changeTracker = new MountainChangeTracker(data);
+		changeTracker.setChangeListener(() -> {
+			if (autosaver != null) {
+				autosaver.changed(changeTracker.getDirtyCount());
+			}
+		});
+		autosave.addListener((observable, oldValue, newValue) -> {
+			if (newValue) {
+				autosaver = new MountainAutosaver(this::save, fxExecutor);
+				if (changeTracker.isDirty()) {
+					autosaver.changed(changeTracker.getDirtyCount());
+				}
+			} else {
+				autosaver.stop();
+				autosaver = null;
+			}
+		});
+		if (loadMode == LoadMode.BACKGROUND) {
+			loadDataInBackground();
+		} else {
+			changeTracker.addWithoutTracking(loadData());
+			recoverEdits();
+			loadProgress.set(1.0);
+			fullyLoaded.set(true);
+		}
 
 		undoDisabled.bind(Bindings.isEmpty(undoList));
 		redoDisabled.bind(Bindings.isEmpty(redoList));
@@ -152,29 +434,256 @@ public class MountainModel {
 	}
 
 	/**
-	 * Returns a list of mountains containing loaded data.
+	 * Returns a list of mountains containing loaded data. The data is loaded from the snapshot if it is up to date,
+	 * otherwise the csv file is parsed in parallel chunks and a new snapshot is written. A snapshot which can't be
+	 * read is treated like a missing one. The changes saved in the
+	 * journal are applied on top. The result can be published to the data list at once.
 	 * 
-	 * @param inputStream
-	 *            the csv resource as stream
 	 * @return loadedDataList the list of mountains containing loaded data
-	 * @throws IOException
-	 *             if there is an error by reading the input stream
-	 */
-	private ObservableList<Mountain> loadData(InputStream inputStream) {
-		ObservableList<Mountain> loadedDataList = FXCollections.observableArrayList();
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader((inputStream), "UTF8"))) {
-			reader.lines().skip(1).forEach(s -> {
-				String[] parts = s.split(";");
-				mountain = new Mountain(Integer.parseInt(parts[0]), parts[1], Double.parseDouble(parts[2]), parts[3],
-						parts[4], parts[5], parts[6], Double.parseDouble(parts[7]), parts[8],
-						Double.parseDouble(parts[9]), parts[10], parts[11]);
-				loadedDataList.add(mountain);
+	 */
+	private List<Mountain> loadData() {
+		try {
+			MountainJournal.Replay replay = replayJournal();
+			List<Mountain> loadedDataList = null;
+			MountainSnapshot snapshot = openSnapshot();
+			if (snapshot != null) {
+				try {
+					loadedDataList = snapshot.read(0, snapshot.size());
+				} catch (RuntimeException exception) {
+					LOGGER.log(Level.WARNING, "snapshot can't be read, loading csv file", exception);
+				}
+			}
+			if (loadedDataList == null) {
+				loadedDataList = MountainCsvReader.read(getClass().getResourceAsStream(csvFile));
+				writeSnapshot(new MountainSnapshot.Writer().add(loadedDataList));
+			}
+			if (!replay.isEmpty()) {
+				loadedDataList = replay.apply(loadedDataList);
+				loadedDataList.addAll(replay.remaining());
+			}
+			return loadedDataList;
+		} catch (IOException | RuntimeException exception) {
+			LOGGER.log(Level.SEVERE, "", exception);
+		}
+		return new ArrayList<>();
+	}
 
-			});
+
+	/**
+	 * Starts a background thread, which loads the snapshot or parses the csv file and adds the mountains to the
+	 * data list in batches on the FX thread. The first mountain gets selected as soon as the first batch has arrived.
+	 */
+	private void loadDataInBackground() {
+		Thread loader = new Thread(() -> {
+			try {
+				MountainJournal.Replay replay = replayJournal();
+				MountainSnapshot snapshot = openSnapshot();
+				if (snapshot != null) {
+					int batchSize = FIRST_SNAPSHOT_BATCH_SIZE;
+					for (int from = 0; from < snapshot.size();) {
+						int to = Math.min(snapshot.size(), from + batchSize);
+						publishBatch(replay.apply(snapshot.read(from, to)), (double) to / snapshot.size());
+						from = to;
+						batchSize = Math.min(MAX_SNAPSHOT_BATCH_SIZE, batchSize * 2);
+					}
+				} else {
+					URLConnection connection = getClass().getResource(csvFile).openConnection();
+					long size = connection.getContentLengthLong();
+					MountainSnapshot.Writer snapshotWriter = new MountainSnapshot.Writer();
+					MountainCsvReader.readInBatches(connection.getInputStream(), (batch, bytesRead) -> {
+						snapshotWriter.add(batch);
+						publishBatch(replay.apply(batch), size > 0 ? Math.min(1.0, (double) bytesRead / size) : -1.0);
+					});
+					writeSnapshot(snapshotWriter);
+				}
+				publishBatch(replay.remaining(), 1.0);
+			} catch (IOException | RuntimeException exception) {
+				LOGGER.log(Level.SEVERE, "", exception);
+			} finally {
+				fxExecutor.execute(() -> {
+					recoverEdits();
+					loadProgress.set(1.0);
+					fullyLoaded.set(true);
+				});
+			}
+		}, "mountain-loader");
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+
+	/**
+	 * Adds a batch of loaded mountains to the data list on the FX thread.
+	 * 
+	 * @param batch the loaded mountains
+	 * @param progress the part of the data which has been loaded with this batch
+	 */
+	private void publishBatch(List<Mountain> batch, double progress) {
+		fxExecutor.execute(() -> {
+			changeTracker.addWithoutTracking(batch);
+			loadProgress.set(progress);
+			if (getSelectedMountainID() == NO_SELECTION && !data.isEmpty()) {
+				setSelectedMountainID(data.get(0).getId());
+			}
+		});
+	}
+
+
+	/**
+	 * Applies the changes which were logged but not saved before the application crashed. The recovered changes
+	 * count as unsaved, so they are written with the next save. Afterwards every change is logged to the write ahead
+	 * log, which is discarded when the model is closed, just like unsaved changes always have been. If another model
+	 * of the same data file owns the write ahead log, the changes of this model aren't logged.
+	 */
+	private void recoverEdits() {
+		if (disposed) {
+			return;
+		}
+		try {
+			editLog = MountainEditLog.open(getPath(csvFile).resolveSibling(editLogFile));
+			if (editLog == null) {
+				LOGGER.log(Level.WARNING, "edit log is used by another model, changes aren't logged");
+				return;
+			}
+			for (Map.Entry<Integer, Mountain> entry : MountainJournal.parseRecords(editLog.recover()).entrySet()) {
+				Mountain existing = getMountain(entry.getKey());
+				Mountain recovered = entry.getValue();
+				if (recovered == null) {
+					if (existing != null) {
+						data.remove(existing);
+					}
+				} else if (existing == null) {
+					data.add(recovered);
+				} else if (!existing.infoAsLine().equals(recovered.infoAsLine())) {
+					copyValues(recovered, existing);
+				}
+			}
+			changeTracker.setEditLog(editLog);
+		} catch (IOException | RuntimeException exception) {
+			LOGGER.log(Level.SEVERE, "edit log can't be recovered", exception);
+			if (editLog != null) {
+				editLog.close();
+				editLog = null;
+			}
+		}
+	}
+
+
+	/**
+	 * Closes the model when the application exits. If changes are saved automatically, the changes which are still
+	 * waiting for the user to be idle are saved right away. Waits for the running saves and discards the write ahead
+	 * log afterwards, unless a save has failed, so its changes are recovered on the next start. Without autosave,
+	 * changes which haven't been saved are discarded, just like unsaved changes always have been. Afterwards the model
+	 * is disposed.
+	 */
+	public void close() {
+		if (getAutosave()) {
+			save();
+		}
+		try {
+			awaitSaved();
+			if (editLog != null && (saveService == null || !saveService.hasPending())) {
+				editLog.discard(editLog.rotate());
+			}
+		} catch (InterruptedException exception) {
+			LOGGER.log(Level.WARNING, "edit log can't be discarded", exception);
+			Thread.currentThread().interrupt();
+		}
+		dispose();
+	}
+
+
+	/**
+	 * Stops saving automatically and the live search, and releases the write ahead log, which keeps the logged
+	 * changes, so the next model of the same data file recovers them.
+	 */
+	public void dispose() {
+		disposed = true;
+		setAutosave(false);
+		liveSearch.stop();
+		changeTracker.setEditLog(null);
+		if (editLog != null) {
+			editLog.close();
+			editLog = null;
+		}
+	}
+
+
+	/**
+	 * Copies all values of a mountain into another one.
+	 * 
+	 * @param source the mountain the values are copied from
+	 * @param target the mountain the values are copied to
+	 */
+	private void copyValues(Mountain source, Mountain target) {
+		target.setName(source.getName());
+		target.setHeight(source.getHeight());
+		target.setType(source.getType());
+		target.setRegion(source.getRegion());
+		target.setCantons(source.getCantons());
+		target.setRange(source.getRange());
+		target.setIsolation(source.getIsolation());
+		target.setIsolationPoint(source.getIsolationPoint());
+		target.setProminence(source.getProminence());
+		target.setProminencePoint(source.getProminencePoint());
+		target.setCaption(source.getCaption());
+	}
+
+
+	/**
+	 * Opens the snapshot next to the csv file, if it is at least as new as the csv file. The content of the snapshot
+	 * is checked when it is opened, so both the synchronous and the background loading fall back to the csv file
+	 * for a truncated or corrupt snapshot.
+	 * 
+	 * @return MountainSnapshot the opened snapshot, null if there is no up to date and valid snapshot
+	 */
+	private MountainSnapshot openSnapshot() {
+		Path snapshotPath = getSnapshotPath();
+		if (snapshotPath == null || !Files.exists(snapshotPath)) {
+			return null;
+		}
+		try {
+			if (Files.getLastModifiedTime(snapshotPath).compareTo(Files.getLastModifiedTime(getPath(csvFile))) < 0) {
+				return null;
+			}
+			return MountainSnapshot.open(snapshotPath);
+		} catch (IOException | RuntimeException exception) {
+			LOGGER.log(Level.WARNING, "snapshot can't be read, loading csv file", exception);
+			return null;
+		}
+	}
+
+
+	/**
+	 * Writes the collected mountains into the snapshot next to the csv file. A failure is only logged, because the
+	 * csv file stays the source of the data.
+	 * 
+	 * @param snapshotWriter the writer containing the mountains
+	 */
+	private void writeSnapshot(MountainSnapshot.Writer snapshotWriter) {
+		Path snapshotPath = getSnapshotPath();
+		if (snapshotPath == null) {
+			return;
+		}
+		try {
+			snapshotWriter.write(snapshotPath);
 		} catch (IOException exception) {
-			LOGGER.log(Level.SEVERE, "", exception);
+			LOGGER.log(Level.WARNING, "snapshot can't be written", exception);
+		}
+	}
+
+
+	/**
+	 * Returns the path of the snapshot file.
+	 * 
+	 * @return Path the path of the snapshot file, null if the csv file isn't stored in the file system
+	 */
+	private Path getSnapshotPath() {
+		try {
+			return getPath(csvFile).resolveSibling(snapshotFile);
+		} catch (RuntimeException exception) {
+			return null;
 		}
-		return loadedDataList;
 	}
 	
 	
@@ -198,120 +707,302 @@ public class MountainModel {
 
 	
 	/**
-	 * Saves all changes made into the csv file.
+	 * Saves all changes made since the last save. Only the changed, added and removed mountains are handed over to
+	 * the save service, which appends them to the journal in the background and compacts the journal into the csv
+	 * file once it has grown large enough. The changes are marked as saved and the write ahead log up to this save
+	 * is discarded as soon as the save has been written. If an earlier save has failed, its changes are saved again
+	 * even if nothing has been changed since.
 	 */
 	public void save() {
-		try (BufferedWriter writer = Files.newBufferedWriter(getPath(csvFile))) {
-			writer.write(
-					"ENTITY_ID;NAME;HEIGHT;TYPE;REGION;CANTONS;RANGE;ISOLATION;ISOLATIONPOINT;PROMINENCE;PROMINENCEPOINT;CAPTION");
-			writer.newLine();
-			data.stream().map(mountain -> mountain.infoAsLine()).forEach(line -> {
-				try {
-					writer.write(line);
-					writer.newLine();
-				} catch (IOException e) {
-					throw new IllegalStateException(e);
+		if (!changeTracker.isDirty() && (saveService == null || !saveService.hasPending())) {
+			return;
+		}
+		MountainEditLog log = editLog;
+		int segment = log == null ? -1 : log.rotate();
+		MountainAutosaver saver = autosaver;
+		if (saver != null) {
+			saver.saveStarted();
+		}
+		long version = changeTracker.getVersion();
+		long start = System.nanoTime();
+		getSaveService().save(changeTracker.getJournalRecords(), () -> {
+			changeTracker.markSaved(version);
+			if (log != null) {
+				log.discard(segment);
+			}
+			if (saver != null) {
+				saver.saveFinished(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			}
+		}, () -> {
+			if (saver != null) {
+				saver.saveFailed(changeTracker.getDirtyCount());
+			}
+		});
+	}
+
+
+	/**
+	 * Blocks until all requested saves have been written.
+	 * 
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void awaitSaved() throws InterruptedException {
+		if (saveService != null) {
+			saveService.awaitIdle();
+		}
+		if (editLog != null) {
+			editLog.awaitIdle();
+		}
+	}
+
+
+	/**
+	 * Returns the save service, which writes into the journal next to the csv file.
+	 * 
+	 * @return MountainSaveService the save service of this model
+	 */
+	private MountainSaveService getSaveService() {
+		if (saveService == null) {
+			saveService = new MountainSaveService(getJournal(), getPath(csvFile), () -> {
+				try (InputStream inputStream = Files.newInputStream(getPath(csvFile))) {
+					writeSnapshot(new MountainSnapshot.Writer().add(MountainCsvReader.read(inputStream)));
+				} catch (IOException exception) {
+					LOGGER.log(Level.WARNING, "snapshot can't be written", exception);
 				}
 			});
-		} catch (IOException e) {
-			throw new IllegalStateException("save failed");
+			saving.bind(saveService.savingProperty());
+			saveError.bind(saveService.saveErrorProperty());
 		}
+		return saveService;
+	}
+
+
+	/**
+	 * Reads the journal, so its records can be applied to the loaded data. A journal which can't be read is
+	 * logged and skipped.
+	 * 
+	 * @return MountainJournal.Replay the replay of the journal
+	 */
+	private MountainJournal.Replay replayJournal() {
+		try {
+			return getJournal().replay();
+		} catch (IOException | RuntimeException exception) {
+			LOGGER.log(Level.SEVERE, "journal can't be read", exception);
+			return MountainJournal.Replay.empty();
+		}
+	}
+
+
+	/**
+	 * Returns the journal next to the csv file.
+	 * 
+	 * @return MountainJournal the journal the changes are saved to
+	 */
+	private synchronized MountainJournal getJournal() {
+		if (journal == null) {
+			Path csvPath = getPath(csvFile);
+			journal = new MountainJournal(csvPath.resolveSibling(journalFile), csvPath);
+		}
+		return journal;
 	}
 	
 	
 	/**
 	 * Searches and selects a mountain, which's name contains the content string of the search textfield. If a mountain, that fits to the search content is already selected, 
 	 * the mountain will be skipped and a next one that fits the to the search content will be selected. 
-	 * If no mountain contains the search string, foundMountain will be null
+	 * If no mountain contains the search string, foundMountain will be null. The matches are looked up once through the trigram index
+	 * of the names, and the search cursor steps through them, so every further search with the same string takes constant time.
 	 */
 	public void searchScharf() {
-		if (!getMountain(selectedMountainID.get()).equals(foundMountain)) {
-			foundMountain = data.stream()
-					.filter(m -> (m.getName().toLowerCase().contains(searchContent.get().toLowerCase()))).findFirst()
-					.orElse(null);
+		foundMountain = searchCursor.next(searchContent.get(), getFoundSelection());
 
-			if (foundMountain != null) {
-				setSelectedMountainID(foundMountain.getId());
-			}
-			return;
-		} else if (getMountain(selectedMountainID.get()).equals(foundMountain)) {
-			foundMountain = data.stream().skip(data.indexOf(foundMountain) + 1)
-					.filter(m -> m.getName().toLowerCase().contains(searchContent.get().toLowerCase())).findFirst()
-					.orElse(null);
+		if (foundMountain != null) {
+			setSelectedMountainID(foundMountain.getId());
+		}
+	}
 
-			if (foundMountain != null) {
-				setSelectedMountainID(foundMountain.getId());
-			}
-			return;
+
+	/**
+	 * Searches and selects the previous mountain, which's name contains the content string of the search textfield. If no mountain, 
+	 * that fits to the search content is selected, the last one that fits will be selected. 
+	 * If there is no previous mountain, foundMountain will be null.
+	 */
+	public void searchScharfPrevious() {
+		foundMountain = searchCursor.previous(searchContent.get(), getFoundSelection());
+
+		if (foundMountain != null) {
+			setSelectedMountainID(foundMountain.getId());
 		}
 	}
 
+
+	/**
+	 * Returns the selected mountain, if it has been found by the last search.
+	 * 
+	 * @return Mountain the found mountain if it is selected, otherwise null
+	 */
+	private Mountain getFoundSelection() {
+		Mountain selected = getMountain(selectedMountainID.get());
+		return selected != null && selected.equals(foundMountain) ? foundMountain : null;
+	}
+
 	
 	/**
-	 * Searches and selects a mountain, which's name is close to the content string of the search textfield (2 mistakes allowed).
+	 * Searches and selects the mountain, which's name is closest to the content string of the search textfield (2 mistakes allowed).
+	 * Mountains with equally close names are ranked by their height. If a mountain of the last fuzzy search with the same content
+	 * string is selected, the next best match is selected without searching again.
+	 * The deletion dictionary of the names is used, so only the names sharing a deletion with the content string are compared.
 	 */
 	public void searchUnscharf() {
-		for(Mountain m : data) {
-			if (levenshteinDistance(m.getName().toLowerCase(), searchContent.get().toLowerCase()) < 3) {
-				setSelectedMountainID(m.getId());
+		searchUnscharf(MountainDeleteIndex.MAX_DISTANCE);
+	}
+
+
+	/**
+	 * Searches and selects the mountain, which's name is closest to the content string of the search textfield, with the given
+	 * number of mistakes allowed. Up to 2 mistakes the deletion dictionary of the names is used, beyond that the BK-tree of the names,
+	 * whose search only visits the names which can be close enough to the content string.
+	 * 
+	 * @param maxDistance the largest number of mistakes allowed
+	 */
+	public void searchUnscharf(int maxDistance) {
+		String search = searchContent.get();
+		boolean repeated = search.equals(fuzzySearch) && maxDistance == fuzzyDistance;
+		int current = repeated ? fuzzyMatches.indexOf(getMountain(selectedMountainID.get())) : -1;
+		if (current < 0) {
+			fuzzySearch = search;
+			fuzzyDistance = maxDistance;
+			fuzzyMatches.setAll(maxDistance <= MountainDeleteIndex.MAX_DISTANCE
+					? deleteIndex.findBest(search, maxDistance, FUZZY_MATCHES)
+					: bkTree.findBest(search, maxDistance, FUZZY_MATCHES));
+		}
+		for (int i = 1; i <= fuzzyMatches.size(); i++) {
+			Mountain match = fuzzyMatches.get((current + i) % fuzzyMatches.size());
+			if (slots.slotOf(match) >= 0) {
+				setSelectedMountainID(match.getId());
 				return;
 			}
 		}
 	}
 
-	
+
 	/**
-	 * Returns the difference between 2 CharSequences as an integer value.
+	 * Searches the words of the given string in the name, caption, range, region, isolation point and prominence point
+	 * of the mountains. The mountains are ranked by BM25, where a word in the name counts the most, followed by the range and
+	 * the region. Only the mountains containing a word of the string are visited, through the full-text index.
 	 * 
-	 * @param lhs the first string that will be compared to the second one
-	 * @param rhs the second string that will be compared to the first one
+	 * @param search the words to search for
+	 * @param limit the largest number of mountains to return
+	 * @return List the mountains containing at least one of the words, the best match first
+	 */
+	public List<Mountain> searchText(String search, int limit) {
+		return textIndex.search(search, limit);
+	}
+
+
+	/**
+	 * Filters the mountains by their height. The range results contain the mountains with a height between min and max,
+	 * sorted by their height, and are kept up to date while the mountains change.
 	 * 
-	 * @return int the difference between 2 CharSequances 
+	 * @param min the smallest height, Double.NEGATIVE_INFINITY for no lower bound
+	 * @param max the largest height, Double.POSITIVE_INFINITY for no upper bound
 	 */
-	private int levenshteinDistance(CharSequence lhs, CharSequence rhs) {
-		int len0 = lhs.length() + 1;
-		int len1 = rhs.length() + 1;
+	public void filterByHeight(double min, double max) {
+		filterByRange(Mountain.Field.HEIGHT, min, max);
+	}
 
-		// the array of distances
-		int[] cost = new int[len0];
-		int[] newcost = new int[len0];
 
-		// initial cost of skipping prefix in String s0
-		for (int i = 0; i < len0; i++)
-			cost[i] = i;
+	/**
+	 * Filters the mountains by their prominence. The range results contain the mountains with a prominence between min
+	 * and max, sorted by their prominence, and are kept up to date while the mountains change.
+	 * 
+	 * @param min the smallest prominence, Double.NEGATIVE_INFINITY for no lower bound
+	 * @param max the largest prominence, Double.POSITIVE_INFINITY for no upper bound
+	 */
+	public void filterByProminence(double min, double max) {
+		filterByRange(Mountain.Field.PROMINENCE, min, max);
+	}
 
-		// dynamically computing the array of distances
 
-		// transformation cost for each letter in s1
-		for (int j = 1; j < len1; j++) {
-			// initial cost of skipping prefix in String s1
-			newcost[0] = j;
+	/**
+	 * Filters the mountains by their isolation. The range results contain the mountains with an isolation between min
+	 * and max, sorted by their isolation, and are kept up to date while the mountains change.
+	 * 
+	 * @param min the smallest isolation, Double.NEGATIVE_INFINITY for no lower bound
+	 * @param max the largest isolation, Double.POSITIVE_INFINITY for no upper bound
+	 */
+	public void filterByIsolation(double min, double max) {
+		filterByRange(Mountain.Field.ISOLATION, min, max);
+	}
 
-			// transformation cost for each letter in s0
-			for (int i = 1; i < len0; i++) {
-				// matching current letters in both strings
-				int match = (lhs.charAt(i - 1) == rhs.charAt(j - 1)) ? 0 : 1;
 
-				// computing cost for each transformation
-				int cost_replace = cost[i - 1] + match;
-				int cost_insert = cost[i] + 1;
-				int cost_delete = newcost[i - 1] + 1;
+	/**
+	 * Removes the active range filter and clears the range results.
+	 */
+	public void clearRangeFilter() {
+		if (rangeQuery != null) {
+			Bindings.unbindContent(rangeResults, rangeQuery.getResults());
+			rangeQuery.close();
+			rangeQuery = null;
+		}
+		rangeResults.clear();
+		rangeFiltered.set(false);
+	}
 
-				// keep minimum cost
-				newcost[i] = Math.min(Math.min(cost_insert, cost_delete), cost_replace);
-			}
 
-			// swap cost/newcost arrays
-			int[] swap = cost;
-			cost = newcost;
-			newcost = swap;
+	/**
+	 * Returns the mountains with the given type, region, range and cantons. A null argument matches every mountain.
+	 * The filters are combined by intersecting the bitmaps of the values in the bitmap index.
+	 * 
+	 * @param type the type, null for any type
+	 * @param region the region, null for any region
+	 * @param range the range, null for any range
+	 * @param cantons the cantons, null for any cantons
+	 * @return List the matching mountains in the order of the data list
+	 */
+	public List<Mountain> findByCategories(String type, String region, String range, String cantons) {
+		MountainQuery query = query();
+		String[] values = { type, region, range, cantons };
+		Mountain.Field[] fields = { Mountain.Field.TYPE, Mountain.Field.REGION, Mountain.Field.RANGE, Mountain.Field.CANTONS };
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				query.whereEquals(fields[i], values[i]);
+			}
 		}
+		return query.list();
+	}
 
-		// the distance is the cost for transforming all letters in both strings
-		return cost[len0 - 1];
+
+	/**
+	 * Returns a new query over the mountains, without conditions. When the query is run, the cheapest of the ID index,
+	 * the sorted indexes of the height, prominence and isolation, the bitmap index of the type, region, cantons and range,
+	 * and the trigram index of the names is used to look up the candidates, based on the estimated number of candidates.
+	 * 
+	 * @return MountainQuery a new query matching all mountains
+	 */
+	public MountainQuery query() {
+		return new MountainQuery(slots, planner);
 	}
 
-	
+
+	/**
+	 * Activates a range filter, whose mountains are looked up by a live query.
+	 * 
+	 * @param field the filtered field
+	 * @param min the smallest value
+	 * @param max the largest value
+	 */
+	private void filterByRange(Mountain.Field field, double min, double max) {
+		if (rangeQuery != null) {
+			Bindings.unbindContent(rangeResults, rangeQuery.getResults());
+			rangeQuery.close();
+		}
+		rangeQuery = query().whereBetween(field, min, max).orderBy(field, false);
+		Bindings.bindContent(rangeResults, rangeQuery.getResults());
+		rangeFiltered.set(true);
+	}
+
+
 	/**
 	 * Returns the path of the file.
 	 * 
@@ -468,13 +1159,13 @@ public class MountainModel {
 
 	
 	/**
-	 * Searches the mountain with the given id in the datalist and returns it.
+	 * Looks up the mountain with the given id in the id index and returns it.
 	 * 
 	 * @param id the id of the mountain
 	 * @return Mountain the mountain with the given id
 	 */
 	public Mountain getMountain(int id) {
-		return data.stream().filter(mountain -> mountain.getId() == id).findAny().orElse(null);
+		return idIndex.get(id);
 	}
 
 	
@@ -518,6 +1209,141 @@ public class MountainModel {
 		return data;
 	}
 
+
+	/**
+	 * Returns the mountains whose name contains the content string of the search textfield, in the order of the
+	 * data list. The list is updated in the background while the user is typing, and contains all mountains if the
+	 * content string is empty.
+	 * 
+	 * @return searchResults the list of the mountains matching the search
+	 */
+	public ObservableList<Mountain> getSearchResults() {
+		return liveSearch.getResults();
+	}
+
+
+	/**
+	 * Returns the mountains found by the last fuzzy search, the best match first.
+	 * 
+	 * @return fuzzyMatches the ranked list of the mountains matching the last fuzzy search
+	 */
+	public ObservableList<Mountain> getFuzzyMatches() {
+		return FXCollections.unmodifiableObservableList(fuzzyMatches);
+	}
+
+
+	/**
+	 * Returns the mountains within the active range filter, sorted by the filtered value. The list is empty if no
+	 * range filter is active.
+	 * 
+	 * @return rangeResults the list of the mountains within the active range filter
+	 */
+	public ObservableList<Mountain> getRangeResults() {
+		return FXCollections.unmodifiableObservableList(rangeResults);
+	}
+
+
+	/**
+	 * Returns the count and the minimum, maximum, sum and average of the height, prominence and isolation of all
+	 * mountains. The summary is updated with every added, removed or edited mountain, without visiting the other ones.
+	 * 
+	 * @return summary the summary of all mountains
+	 */
+	public MountainSummary getSummary() {
+		return totalAggregates.getSummary(null);
+	}
+
+
+	/**
+	 * Returns the summaries of the mountains of every region, which are updated like the summary of all mountains.
+	 * 
+	 * @return regionSummaries the summary of every region with at least one mountain, by the name of the region
+	 */
+	public ObservableMap<String, MountainSummary> getSummariesByRegion() {
+		return regionAggregates.getSummaries();
+	}
+
+
+	/**
+	 * Returns the summaries of the mountains of every range, which are updated like the summary of all mountains.
+	 * 
+	 * @return rangeSummaries the summary of every range with at least one mountain, by the name of the range
+	 */
+	public ObservableMap<String, MountainSummary> getSummariesByRange() {
+		return rangeAggregates.getSummaries();
+	}
+
+
+	/**
+	 * Returns the summaries of the mountains of every type, which are updated like the summary of all mountains.
+	 * 
+	 * @return typeSummaries the summary of every type with at least one mountain, by the name of the type
+	 */
+	public ObservableMap<String, MountainSummary> getSummariesByType() {
+		return typeAggregates.getSummaries();
+	}
+
+
+	/**
+	 * Returns the mountains with the largest height, prominence or isolation. If a range filter is active, only the
+	 * mountains within the filter are ranked. The rankings are kept in order-statistic trees, which are updated with
+	 * every added, removed or edited mountain, so the first k mountains are read without sorting.
+	 * 
+	 * @param field the height, prominence or isolation
+	 * @param k the number of mountains
+	 * @return List the k mountains with the largest values, the largest one first
+	 */
+	public List<Mountain> getTop(Mountain.Field field, int k) {
+		return leaderboard(field).top(k);
+	}
+
+
+	/**
+	 * Returns the rank of the selected mountain by its height, prominence or isolation. If a range filter is active,
+	 * only the mountains within the filter are ranked. Mountains with equal values share a rank.
+	 * 
+	 * @param field the height, prominence or isolation
+	 * @return int the rank of the selected mountain starting at 1, 0 if no mountain is selected or it isn't ranked
+	 */
+	public int getSelectedRank(Mountain.Field field) {
+		return leaderboard(field).rank(getMountain(selectedMountainID.get()));
+	}
+
+
+	/**
+	 * Returns the ranking of the current mountains by a field.
+	 * 
+	 * @param field the height, prominence or isolation
+	 * @return MountainLeaderboard the ranking of the mountains within the active range filter, or of all mountains
+	 */
+	private MountainLeaderboard leaderboard(Mountain.Field field) {
+		MountainLeaderboard leaderboard = (isRangeFiltered() ? rangeLeaderboards : leaderboards).get(field);
+		if (leaderboard == null) {
+			throw new IllegalArgumentException("no ranking by " + field);
+		}
+		return leaderboard;
+	}
+
+
+	/**
+	 * Returns the property, which is true while a range filter is active
+	 * 
+	 * @return rangeFiltered the property, which is true while a range filter is active
+	 */
+	public BooleanProperty rangeFilteredProperty() {
+		return rangeFiltered;
+	}
+
+
+	/**
+	 * Returns true if a range filter is active
+	 * 
+	 * @return rangeFiltered true if a range filter is active
+	 */
+	public boolean isRangeFiltered() {
+		return rangeFiltered.get();
+	}
+
 	
 	/**
 	 * Returns the currently selected mountain property
@@ -671,6 +1497,116 @@ public class MountainModel {
 	}
 
 	
+	/**
+	 * Returns the property that contains the part of the data which has been loaded so far.
+	 * 
+	 * @return loadProgress the property that contains the part of the data which has been loaded so far, -1 if unknown
+	 */
+	public DoubleProperty loadProgressProperty() {
+		return loadProgress;
+	}
+
+	
+	/**
+	 * Returns the part of the data which has been loaded so far.
+	 * 
+	 * @return loadProgress the part of the data which has been loaded so far, -1 if unknown
+	 */
+	public double getLoadProgress() {
+		return loadProgress.get();
+	}
+
+	
+	/**
+	 * Returns the property that defines if all data has been loaded.
+	 * 
+	 * @return fullyLoaded the property that defines if all data has been loaded
+	 */
+	public BooleanProperty fullyLoadedProperty() {
+		return fullyLoaded;
+	}
+
+	
+	/**
+	 * Returns the value of the property that defines if all data has been loaded.
+	 * 
+	 * @return fullyLoaded the value of the property that defines if all data has been loaded
+	 */
+	public boolean getFullyLoaded() {
+		return fullyLoaded.get();
+	}
+
+	
+	/**
+	 * Returns the property that defines if a save is being written.
+	 * 
+	 * @return saving the property that defines if a save is being written
+	 */
+	public BooleanProperty savingProperty() {
+		return saving;
+	}
+
+	
+	/**
+	 * Returns the value of the property that defines if a save is being written.
+	 * 
+	 * @return saving the value of the property that defines if a save is being written
+	 */
+	public boolean getSaving() {
+		return saving.get();
+	}
+
+	
+	/**
+	 * Returns the property that contains the message of the last failed save.
+	 * 
+	 * @return saveError the property that contains the message of the last failed save, null if it succeeded
+	 */
+	public StringProperty saveErrorProperty() {
+		return saveError;
+	}
+
+	
+	/**
+	 * Returns the message of the last failed save.
+	 * 
+	 * @return saveError the message of the last failed save, null if it succeeded
+	 */
+	public String getSaveError() {
+		return saveError.get();
+	}
+
+	
+	/**
+	 * Returns the property that defines if changes are saved automatically.
+	 * 
+	 * @return autosave the property that defines if changes are saved automatically
+	 */
+	public BooleanProperty autosaveProperty() {
+		return autosave;
+	}
+
+	
+	/**
+	 * Returns the value of the property that defines if changes are saved automatically.
+	 * 
+	 * @return autosave the value of the property that defines if changes are saved automatically
+	 */
+	public boolean getAutosave() {
+		return autosave.get();
+	}
+
+	
+	/**
+	 * Sets the value of the property that defines if changes are saved automatically.
+	 * 
+	 * @param autosave true to save changes automatically
+	 */
+	public void setAutosave(boolean autosave) {
+		this.autosave.set(autosave);
+	}
+
+	
 	/**
 	 * Returns the property that defines if the tableView is visible. 
 	 * 
@@ -0,0 +1,259 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+
+/**
+ * Scans a range of positions for matches in parallel on the common fork join pool. The range is split into chunks,
+ * which are checked by the worker threads, and the results are combined in the order of the positions, so the first
+ * match is the same as with a sequential scan. A scan for the first match stops checking chunks behind the best
+ * match found so far. Scans check a cancellation flag regularly and stop early if it is set.
+ *
+ * Small ranges are scanned sequentially on the calling thread, because splitting them costs more than it saves.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+final class MountainParallelScan {
+
+	/**
+	 * the number of positions a worker thread checks in one chunk
+	 */
+	static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * the number of positions checked between two checks for cancellation
+	 */
+	private static final int CANCEL_INTERVAL = 256;
+
+	/**
+	 * a scan which is never cancelled
+	 */
+	static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+
+	/**
+	 * This class only contains static methods.
+	 */
+	private MountainParallelScan() {
+	}
+
+
+	/**
+	 * Returns the first matching position in a range.
+	 *
+	 * @param from the first position of the range
+	 * @param to the position after the last one of the range
+	 * @param matches checks a position, is called from several threads at once
+	 * @param cancelled returns true if the scan should stop
+	 * @return int the first matching position, -1 if there is none or the scan has been cancelled
+	 */
+	static int findFirst(int from, int to, IntPredicate matches, BooleanSupplier cancelled) {
+		AtomicInteger first = new AtomicInteger(Integer.MAX_VALUE);
+		FirstMatch task = new FirstMatch(from, to, matches, cancelled, first);
+		if (to - from <= 2 * CHUNK_SIZE) {
+			task.scan();
+		} else {
+			ForkJoinPool.commonPool().invoke(task);
+		}
+		return first.get() == Integer.MAX_VALUE || cancelled.getAsBoolean() ? -1 : first.get();
+	}
+
+
+	/**
+	 * Returns all matching positions in a range.
+	 *
+	 * @param from the first position of the range
+	 * @param to the position after the last one of the range
+	 * @param matches checks a position, is called from several threads at once
+	 * @param cancelled returns true if the scan should stop
+	 * @return int[] the matching positions in increasing order, null if the scan has been cancelled
+	 */
+	static int[] findAll(int from, int to, IntPredicate matches, BooleanSupplier cancelled) {
+		AllMatches task = new AllMatches(from, to, matches, cancelled);
+		int[] result = to - from <= 2 * CHUNK_SIZE ? task.scan() : ForkJoinPool.commonPool().invoke(task);
+		return cancelled.getAsBoolean() ? null : result;
+	}
+
+
+	/**
+	 * Searches the first matching position of a range, splitting it in halves down to the chunk size.
+	 */
+	private static class FirstMatch extends RecursiveAction {
+
+		/**
+		 * the version of this class, which can be serialized as a task
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * the first position of the range
+		 */
+		private final int from;
+
+		/**
+		 * the position after the last one of the range
+		 */
+		private final int to;
+
+		/**
+		 * checks a position
+		 */
+		private final transient IntPredicate matches;
+
+		/**
+		 * returns true if the scan should stop
+		 */
+		private final transient BooleanSupplier cancelled;
+
+		/**
+		 * the first matching position found so far by all tasks of the scan
+		 */
+		private final AtomicInteger first;
+
+
+		/**
+		 * Constructs a new task for a range.
+		 *
+		 * @param from the first position of the range
+		 * @param to the position after the last one of the range
+		 * @param matches checks a position
+		 * @param cancelled returns true if the scan should stop
+		 * @param first the first matching position found so far by all tasks of the scan
+		 */
+		FirstMatch(int from, int to, IntPredicate matches, BooleanSupplier cancelled, AtomicInteger first) {
+			this.from = from;
+			this.to = to;
+			this.matches = matches;
+			this.cancelled = cancelled;
+			this.first = first;
+		}
+
+
+		@Override
+		protected void compute() {
+			if (from >= first.get() || cancelled.getAsBoolean()) {
+				return;
+			}
+			if (to - from <= CHUNK_SIZE) {
+				scan();
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new FirstMatch(from, middle, matches, cancelled, first),
+					new FirstMatch(middle, to, matches, cancelled, first));
+		}
+
+
+		/**
+		 * Checks the positions of the range one after the other, until a match is found or a better match is known.
+		 */
+		void scan() {
+			for (int i = from; i < to && i < first.get(); i++) {
+				if ((i - from) % CANCEL_INTERVAL == 0 && cancelled.getAsBoolean()) {
+					return;
+				}
+				if (matches.test(i)) {
+					first.accumulateAndGet(i, Math::min);
+					return;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Searches all matching positions of a range, splitting it in halves down to the chunk size.
+	 */
+	private static class AllMatches extends RecursiveTask<int[]> {
+
+		/**
+		 * the version of this class, which can be serialized as a task
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * the first position of the range
+		 */
+		private final int from;
+
+		/**
+		 * the position after the last one of the range
+		 */
+		private final int to;
+
+		/**
+		 * checks a position
+		 */
+		private final transient IntPredicate matches;
+
+		/**
+		 * returns true if the scan should stop
+		 */
+		private final transient BooleanSupplier cancelled;
+
+
+		/**
+		 * Constructs a new task for a range.
+		 *
+		 * @param from the first position of the range
+		 * @param to the position after the last one of the range
+		 * @param matches checks a position
+		 * @param cancelled returns true if the scan should stop
+		 */
+		AllMatches(int from, int to, IntPredicate matches, BooleanSupplier cancelled) {
+			this.from = from;
+			this.to = to;
+			this.matches = matches;
+			this.cancelled = cancelled;
+		}
+
+
+		@Override
+		protected int[] compute() {
+			if (to - from <= CHUNK_SIZE) {
+				return scan();
+			}
+			int middle = (from + to) >>> 1;
+			AllMatches right = new AllMatches(middle, to, matches, cancelled);
+			right.fork();
+			int[] left = new AllMatches(from, middle, matches, cancelled).compute();
+			int[] rest = right.join();
+			if (left == null || rest == null) {
+				return null;
+			}
+			int[] result = Arrays.copyOf(left, left.length + rest.length);
+			System.arraycopy(rest, 0, result, left.length, rest.length);
+			return result;
+		}
+
+
+		/**
+		 * Checks the positions of the range one after the other.
+		 *
+		 * @return int[] the matching positions in increasing order, null if the scan has been cancelled
+		 */
+		int[] scan() {
+			int[] result = new int[Math.min(to - from, 16)];
+			int size = 0;
+			for (int i = from; i < to; i++) {
+				if ((i - from) % CANCEL_INTERVAL == 0 && cancelled.getAsBoolean()) {
+					return null;
+				}
+				if (matches.test(i)) {
+					if (size == result.length) {
+						result = Arrays.copyOf(result, size * 2);
+					}
+					result[size++] = i;
+				}
+			}
+			return Arrays.copyOf(result, size);
+		}
+	}
+}
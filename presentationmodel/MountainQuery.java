@@ -0,0 +1,529 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * A query over the mountains of the model, made of conditions on their fields, an order, a limit and a projection.
+ * The conditions are combined with AND. When the query is run, the planner picks the cheapest index to look up the
+ * candidates of one condition, and only the candidates are checked against the other conditions.
+ *
+ * The results of a query can be taken once with {@link #list()}, or as a live list with {@link #getResults()},
+ * which is kept up to date while mountains are added, removed and edited, until the query is closed.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+public class MountainQuery {
+
+	/**
+	 * the slots of the mountains which are queried
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * picks the index used to look up the candidates
+	 */
+	private final MountainQueryPlanner planner;
+
+	/**
+	 * the conditions, which all have to be met
+	 */
+	private final List<Condition> conditions = new ArrayList<>();
+
+	/**
+	 * the field the results are sorted by, null to keep the order of the data list
+	 */
+	private Mountain.Field orderField;
+
+	/**
+	 * true if the results are sorted in descending order
+	 */
+	private boolean descending;
+
+	/**
+	 * the largest number of results
+	 */
+	private int limit = Integer.MAX_VALUE;
+
+	/**
+	 * the live results, filled when they are requested the first time
+	 */
+	private final ObservableList<Mountain> results = FXCollections.observableArrayList();
+
+	/**
+	 * the read only view of the live results
+	 */
+	private final ObservableList<Mountain> resultsView = FXCollections.unmodifiableObservableList(results);
+
+	/**
+	 * keeps the live results up to date, null if the live results haven't been requested or the query is closed
+	 */
+	private MountainSlots.Listener listener;
+
+
+	/**
+	 * Constructs a new query without conditions, which matches all mountains.
+	 *
+	 * @param slots the slots of the mountains which are queried
+	 * @param planner picks the index used to look up the candidates
+	 */
+	MountainQuery(MountainSlots slots, MountainQueryPlanner planner) {
+		this.slots = slots;
+		this.planner = planner;
+	}
+
+
+	/**
+	 * Adds the condition that a field equals a value. Numbers are compared by their value.
+	 *
+	 * @param field the field
+	 * @param value the value, may be null
+	 * @return MountainQuery this query
+	 */
+	public MountainQuery whereEquals(Mountain.Field field, Object value) {
+		return add(new Condition(field, Condition.Kind.EQUALS, value, 0, 0, null));
+	}
+
+
+	/**
+	 * Adds the condition that a numeric field lies between two values.
+	 *
+	 * @param field the numeric field
+	 * @param min the smallest value, Double.NEGATIVE_INFINITY for no lower bound
+	 * @param max the largest value, Double.POSITIVE_INFINITY for no upper bound
+	 * @return MountainQuery this query
+	 */
+	public MountainQuery whereBetween(Mountain.Field field, double min, double max) {
+		return add(new Condition(field, Condition.Kind.BETWEEN, null, min, max, null));
+	}
+
+
+	/**
+	 * Adds the condition that a field contains a string, regardless of case, diacritics and punctuation.
+	 *
+	 * @param field the field
+	 * @param text the string
+	 * @return MountainQuery this query
+	 */
+	public MountainQuery whereContains(Mountain.Field field, String text) {
+		return add(new Condition(field, Condition.Kind.CONTAINS, MountainSearchKey.of(text), 0, 0, null));
+	}
+
+
+	/**
+	 * Adds the condition that the value of a field is accepted by a predicate. The predicate can't use an index, and
+	 * is called from several threads at once if there are many mountains.
+	 *
+	 * @param field the field
+	 * @param predicate the predicate which checks the value
+	 * @return MountainQuery this query
+	 */
+	public MountainQuery where(Mountain.Field field, Predicate<Object> predicate) {
+		return add(new Condition(field, Condition.Kind.MATCHES, null, 0, 0, predicate));
+	}
+
+
+	/**
+	 * Sorts the results by a field. Mountains with equal values keep the order of the data list.
+	 *
+	 * @param field the field
+	 * @param descending true for the largest value first
+	 * @return MountainQuery this query
+	 */
+	public MountainQuery orderBy(Mountain.Field field, boolean descending) {
+		orderField = field;
+		this.descending = descending;
+		refresh();
+		return this;
+	}
+
+
+	/**
+	 * Limits the number of results.
+	 *
+	 * @param limit the largest number of results
+	 * @return MountainQuery this query
+	 */
+	public MountainQuery limit(int limit) {
+		this.limit = Math.max(0, limit);
+		refresh();
+		return this;
+	}
+
+
+	/**
+	 * Returns the mountains meeting all conditions.
+	 *
+	 * @return List the matching mountains in the order of the query
+	 */
+	public List<Mountain> list() {
+		return list(limit);
+	}
+
+
+	/**
+	 * Returns the first mountains meeting all conditions.
+	 *
+	 * @param max the largest number of mountains to return
+	 * @return List the matching mountains in the order of the query
+	 */
+	private List<Mountain> list(int max) {
+		int[] matches = planner.find(conditions);
+		List<Mountain> result = new ArrayList<>(matches.length);
+		for (int slot : matches) {
+			result.add(slots.get(slot));
+		}
+		if (orderField != null) {
+			result.sort(order());
+		}
+		return result.size() > max ? new ArrayList<>(result.subList(0, max)) : result;
+	}
+
+
+	/**
+	 * Returns the values of some fields of the mountains meeting all conditions.
+	 *
+	 * @param fields the fields to return
+	 * @return List the values of the fields of every matching mountain, in the order of the query
+	 */
+	public List<Object[]> select(Mountain.Field... fields) {
+		List<Object[]> rows = new ArrayList<>();
+		for (Mountain mountain : list()) {
+			Object[] row = new Object[fields.length];
+			for (int f = 0; f < fields.length; f++) {
+				row[f] = mountain.get(fields[f]);
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+
+	/**
+	 * Returns the mountains meeting all conditions as a live list, which is kept up to date until the query is
+	 * closed. Added and edited mountains are inserted at their position, so the list doesn't have to be looked up
+	 * again. A limited list only keeps the mountains before its last one, and is only looked up again if one of its
+	 * mountains drops out while it is full.
+	 *
+	 * @return ObservableList the matching mountains in the order of the query
+	 */
+	public ObservableList<Mountain> getResults() {
+		if (listener == null) {
+			listener = new MountainSlots.Listener() {
+
+				@Override
+				public void added(int slot) {
+					Mountain mountain = slots.get(slot);
+					update(mountain, true, orderValue(mountain));
+				}
+
+				@Override
+				public void removed(int slot) {
+					Mountain mountain = slots.get(slot);
+					update(mountain, false, orderValue(mountain));
+				}
+
+				@Override
+				public void changed(int slot, Mountain.Field field, Object oldValue) {
+					Mountain mountain = slots.get(slot);
+					if (field == orderField) {
+						update(mountain, true, oldValue);
+					} else if (conditions.stream().anyMatch(condition -> condition.field == field)) {
+						update(mountain, true, orderValue(mountain));
+					}
+				}
+
+				@Override
+				public void renumbered() {
+					results.setAll(list());
+				}
+			};
+			slots.addListener(listener);
+			results.setAll(list());
+		}
+		return resultsView;
+	}
+
+
+	/**
+	 * Stops updating the live results.
+	 */
+	public void close() {
+		if (listener != null) {
+			slots.removeListener(listener);
+			listener = null;
+		}
+	}
+
+
+	/**
+	 * Returns a description of the index the planner picks for the conditions.
+	 *
+	 * @return String the name of the access path and the estimated number of candidates
+	 */
+	String explain() {
+		return planner.plan(conditions).toString();
+	}
+
+
+	/**
+	 * Adds a condition.
+	 *
+	 * @param condition the condition
+	 * @return MountainQuery this query
+	 */
+	private MountainQuery add(Condition condition) {
+		conditions.add(condition);
+		refresh();
+		return this;
+	}
+
+
+	/**
+	 * Looks up the live results again, if they are in use.
+	 */
+	private void refresh() {
+		if (listener != null) {
+			results.setAll(list());
+		}
+	}
+
+
+	/**
+	 * Updates the live results for an added, removed or edited mountain. The mountain is looked up by its value of
+	 * the order field before the change, and inserted at the position of its current value. A limited list only takes
+	 * mountains before its last one while it is full. If one of its mountains drops out, the next one isn't known, so
+	 * the list is looked up again.
+	 *
+	 * @param mountain the mountain
+	 * @param present false if the mountain is being removed
+	 * @param oldValue the value of the order field of the mountain before the change
+	 */
+	private void update(Mountain mountain, boolean present, Object oldValue) {
+		boolean full = results.size() >= limit;
+		int position = search(mountain, oldValue);
+		boolean dropped = position >= 0;
+		if (dropped) {
+			results.remove(position);
+		}
+		if (present && matches(mountain)) {
+			position = search(mountain, orderValue(mountain));
+			position = position < 0 ? -position - 1 : position;
+			if (!full || position < results.size()) {
+				results.add(position, mountain);
+				if (results.size() > limit) {
+					results.remove(limit);
+				}
+				return;
+			}
+		}
+		if (dropped && full) {
+			results.setAll(present ? list() : without(mountain));
+		}
+	}
+
+
+	/**
+	 * Searches the live results for the position of a mountain in the order of the query. While the mountain is
+	 * still at the position of its old value, it is compared by the given value.
+	 *
+	 * @param mountain the mountain
+	 * @param value the value of the order field of the mountain
+	 * @return int the position of the mountain, or -(insertion point) - 1 if it isn't in the results
+	 */
+	private int search(Mountain mountain, Object value) {
+		Comparator<Comparable<?>> values = valueOrder();
+		int slot = slots.slotOf(mountain);
+		int low = 0;
+		int high = results.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			Mountain other = results.get(middle);
+			Object otherValue = other == mountain ? value : orderValue(other);
+			int order = orderField == null ? 0 : values.compare((Comparable<?>) otherValue, (Comparable<?>) value);
+			if (order == 0) {
+				order = Integer.compare(slots.slotOf(other), slot);
+			}
+			if (order < 0) {
+				low = middle + 1;
+			} else if (order > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -low - 1;
+	}
+
+
+	/**
+	 * Returns the value of the order field of a mountain.
+	 *
+	 * @param mountain the mountain
+	 * @return Object the value of the order field, null if the results keep the order of the data list
+	 */
+	private Object orderValue(Mountain mountain) {
+		return orderField == null ? null : mountain.get(orderField);
+	}
+
+
+	/**
+	 * Returns the results of the limited query without a mountain which is being removed. One more mountain is looked
+	 * up, so the list is still full without the removed one.
+	 *
+	 * @param removed the mountain which is being removed
+	 * @return List the matching mountains without the removed one
+	 */
+	private List<Mountain> without(Mountain removed) {
+		List<Mountain> result = new ArrayList<>();
+		for (Mountain mountain : list(limit + 1)) {
+			if (mountain != removed && result.size() < limit) {
+				result.add(mountain);
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns true if a mountain meets all conditions.
+	 *
+	 * @param mountain the mountain
+	 * @return boolean true if all conditions are met
+	 */
+	private boolean matches(Mountain mountain) {
+		for (Condition condition : conditions) {
+			if (!condition.test(mountain)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Returns the order of the results, by the order field and then in the order of the data list.
+	 *
+	 * @return Comparator the order of the results
+	 */
+	private Comparator<Mountain> order() {
+		Comparator<Mountain> bySlot = Comparator.comparingInt(slots::slotOf);
+		if (orderField == null) {
+			return bySlot;
+		}
+		Comparator<Mountain> byField = Comparator.comparing(mountain -> (Comparable<?>) mountain.get(orderField),
+				valueOrder());
+		return byField.thenComparing(bySlot);
+	}
+
+
+	/**
+	 * Returns the order of the values of the order field, with null first.
+	 *
+	 * @return Comparator the order of the values
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Comparator<Comparable<?>> valueOrder() {
+		Comparator values = Comparator.nullsFirst(Comparator.naturalOrder());
+		return descending ? values.reversed() : values;
+	}
+
+
+	/**
+	 * A condition on a field of the mountains.
+	 */
+	static class Condition {
+
+		/**
+		 * the kinds of conditions
+		 */
+		enum Kind {
+			EQUALS, BETWEEN, CONTAINS, MATCHES
+		}
+
+		/**
+		 * the field
+		 */
+		final Mountain.Field field;
+
+		/**
+		 * the kind of the condition
+		 */
+		final Kind kind;
+
+		/**
+		 * the value of an EQUALS condition, or the search key of a CONTAINS condition
+		 */
+		final Object value;
+
+		/**
+		 * the smallest value of a BETWEEN condition
+		 */
+		final double min;
+
+		/**
+		 * the largest value of a BETWEEN condition
+		 */
+		final double max;
+
+		/**
+		 * the predicate of a MATCHES condition
+		 */
+		private final Predicate<Object> predicate;
+
+
+		/**
+		 * Constructs a new condition.
+		 *
+		 * @param field the field
+		 * @param kind the kind of the condition
+		 * @param value the value of an EQUALS condition, or the search key of a CONTAINS condition
+		 * @param min the smallest value of a BETWEEN condition
+		 * @param max the largest value of a BETWEEN condition
+		 * @param predicate the predicate of a MATCHES condition
+		 */
+		Condition(Mountain.Field field, Kind kind, Object value, double min, double max, Predicate<Object> predicate) {
+			this.field = field;
+			this.kind = kind;
+			this.value = value;
+			this.min = min;
+			this.max = max;
+			this.predicate = predicate;
+		}
+
+
+		/**
+		 * Returns true if a mountain meets the condition.
+		 *
+		 * @param mountain the mountain
+		 * @return boolean true if the condition is met
+		 */
+		boolean test(Mountain mountain) {
+			Object actual = mountain.get(field);
+			switch (kind) {
+			case EQUALS:
+				if (actual instanceof Number && value instanceof Number) {
+					return ((Number) actual).doubleValue() == ((Number) value).doubleValue();
+				}
+				return Objects.equals(actual, value);
+			case BETWEEN:
+				double number = ((Number) actual).doubleValue();
+				return number >= min && number <= max;
+			case CONTAINS:
+				String key = field == Mountain.Field.NAME ? mountain.getSearchKey()
+						: MountainSearchKey.of(Objects.toString(actual, null));
+				return key.contains((String) value);
+			default:
+				return predicate.test(actual);
+			}
+		}
+	}
+}
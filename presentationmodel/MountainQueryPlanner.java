@@ -0,0 +1,238 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs the conditions of queries, using the cheapest index for the candidates. For every condition which can use an
+ * index, the planner estimates how many candidates the index would return: one for a unique ID, the exact count for a
+ * range of a sorted numeric field, the size of the smallest bitmap for the categorical fields, whose bitmaps are
+ * intersected, and the length of the shortest trigram posting list for a name. The index with the fewest
+ * candidates is used, and all conditions are checked for the candidates only. Without a usable index, all
+ * mountains are scanned in parallel chunks.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainQueryPlanner {
+
+	/**
+	 * the slots of the mountains which are queried
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the hash index of the IDs
+	 */
+	private final MountainIdIndex idIndex;
+
+	/**
+	 * the trigram index of the names
+	 */
+	private final MountainTrigramIndex trigramIndex;
+
+	/**
+	 * the bitmap index of the categorical fields
+	 */
+	private final MountainCategoryIndex categoryIndex;
+
+	/**
+	 * the sorted index of every numeric field
+	 */
+	private final Map<Mountain.Field, MountainRangeIndex> rangeIndexes = new EnumMap<>(Mountain.Field.class);
+
+
+	/**
+	 * Constructs a new planner with sorted indexes of the height, prominence and isolation and a bitmap index of the
+	 * categorical fields of the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are queried
+	 * @param idIndex the hash index of the IDs
+	 * @param trigramIndex the trigram index of the names
+	 */
+	MountainQueryPlanner(MountainSlots slots, MountainIdIndex idIndex, MountainTrigramIndex trigramIndex) {
+		this.slots = slots;
+		this.idIndex = idIndex;
+		this.trigramIndex = trigramIndex;
+		categoryIndex = new MountainCategoryIndex(slots);
+		for (Mountain.Field field : new Mountain.Field[] { Mountain.Field.HEIGHT, Mountain.Field.PROMINENCE,
+				Mountain.Field.ISOLATION }) {
+			rangeIndexes.put(field, new MountainRangeIndex(slots, field));
+		}
+	}
+
+
+	/**
+	 * Returns the slots of the mountains meeting all conditions.
+	 *
+	 * @param conditions the conditions
+	 * @return int[] the sorted slots of the matching mountains
+	 */
+	int[] find(List<MountainQuery.Condition> conditions) {
+		Plan plan = plan(conditions);
+		if (plan.lookup == null) {
+			return MountainParallelScan.findAll(0, slots.end(), slot -> matches(slot, conditions),
+					MountainParallelScan.NEVER_CANCELLED);
+		}
+		int[] candidates = plan.lookup.get();
+		Arrays.sort(candidates);
+		int size = 0;
+		for (int slot : candidates) {
+			if (matches(slot, conditions)) {
+				candidates[size++] = slot;
+			}
+		}
+		return Arrays.copyOf(candidates, size);
+	}
+
+
+	/**
+	 * Returns the cheapest way to look up the candidates of the conditions.
+	 *
+	 * @param conditions the conditions
+	 * @return Plan the access path with the fewest estimated candidates
+	 */
+	Plan plan(List<MountainQuery.Condition> conditions) {
+		Plan best = new Plan("scan", slots.size(), null);
+		List<MountainQuery.Condition> categories = new ArrayList<>();
+		for (MountainQuery.Condition condition : conditions) {
+			Plan plan = null;
+			if (condition.kind == MountainQuery.Condition.Kind.EQUALS && condition.field == Mountain.Field.ID) {
+				plan = idPlan(condition.value);
+			} else if (condition.kind == MountainQuery.Condition.Kind.EQUALS
+					&& MountainCategoryIndex.isIndexed(condition.field)
+					&& (condition.value == null || condition.value instanceof String)) {
+				categories.add(condition);
+			} else if (condition.kind == MountainQuery.Condition.Kind.BETWEEN
+					&& rangeIndexes.containsKey(condition.field)) {
+				MountainRangeIndex index = rangeIndexes.get(condition.field);
+				plan = new Plan("range " + condition.field, index.count(condition.min, condition.max),
+						() -> index.find(condition.min, condition.max));
+			} else if (condition.kind == MountainQuery.Condition.Kind.CONTAINS
+					&& condition.field == Mountain.Field.NAME) {
+				String search = (String) condition.value;
+				int estimate = trigramIndex.estimate(search);
+				plan = new Plan("trigram", estimate, () -> trigramIndex.findSlots(search));
+			}
+			if (plan != null && plan.estimate < best.estimate) {
+				best = plan;
+			}
+		}
+		if (!categories.isEmpty()) {
+			Plan plan = bitmapPlan(categories);
+			if (plan.estimate < best.estimate) {
+				best = plan;
+			}
+		}
+		return best;
+	}
+
+
+	/**
+	 * Returns the plan which looks up a mountain by its ID. The hash index only returns one mountain per ID, so it
+	 * isn't used while several mountains share an ID.
+	 *
+	 * @param id the ID
+	 * @return Plan the access path through the hash index of the IDs, null if IDs are shared
+	 */
+	private Plan idPlan(Object id) {
+		if (!idIndex.isUnique()) {
+			return null;
+		}
+		Mountain mountain = id instanceof Number && ((Number) id).doubleValue() == ((Number) id).intValue()
+				? idIndex.get(((Number) id).intValue()) : null;
+		int slot = slots.slotOf(mountain);
+		return new Plan("id", slot < 0 ? 0 : 1, () -> slot < 0 ? new int[0] : new int[] { slot });
+	}
+
+
+	/**
+	 * Returns the plan which intersects the bitmaps of the categorical conditions. The number of candidates is
+	 * estimated by the smallest bitmap.
+	 *
+	 * @param categories the conditions on categorical fields
+	 * @return Plan the access path through the bitmap index
+	 */
+	private Plan bitmapPlan(List<MountainQuery.Condition> categories) {
+		List<MountainBitmap> bitmaps = new ArrayList<>();
+		for (MountainQuery.Condition condition : categories) {
+			bitmaps.add(categoryIndex.find(condition.field, (String) condition.value));
+		}
+		bitmaps.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+		return new Plan("bitmap", bitmaps.get(0).cardinality(), () -> {
+			MountainBitmap found = bitmaps.get(0);
+			for (int i = 1; i < bitmaps.size() && !found.isEmpty(); i++) {
+				found = found.and(bitmaps.get(i));
+			}
+			return found.toArray();
+		});
+	}
+
+
+	/**
+	 * Returns true if the mountain in a slot meets all conditions.
+	 *
+	 * @param slot the slot
+	 * @param conditions the conditions
+	 * @return boolean true if the slot is used and all conditions are met
+	 */
+	private boolean matches(int slot, List<MountainQuery.Condition> conditions) {
+		Mountain mountain = slots.get(slot);
+		if (mountain == null) {
+			return false;
+		}
+		for (MountainQuery.Condition condition : conditions) {
+			if (!condition.test(mountain)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * A way to look up the candidates of a query.
+	 */
+	static class Plan {
+
+		/**
+		 * the name of the access path
+		 */
+		private final String path;
+
+		/**
+		 * the estimated number of candidates
+		 */
+		private final int estimate;
+
+		/**
+		 * looks up the candidate slots, null to scan all slots
+		 */
+		private final Supplier<int[]> lookup;
+
+
+		/**
+		 * Constructs a new plan.
+		 *
+		 * @param path the name of the access path
+		 * @param estimate the estimated number of candidates
+		 * @param lookup looks up the candidate slots, null to scan all slots
+		 */
+		Plan(String path, int estimate, Supplier<int[]> lookup) {
+			this.path = path;
+			this.estimate = estimate;
+			this.lookup = lookup;
+		}
+
+
+		@Override
+		public String toString() {
+			return path + " (" + estimate + ")";
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A sorted index over a numeric field of the mountains, used to find all mountains whose value lies within a range.
+ * The values and the slots of the mountains are kept in two primitive arrays sorted by the value, so a range query
+ * takes two binary searches and a copy of the result.
+ *
+ * Changed and removed values are moved in the arrays right away. Added mountains are collected and merged into the
+ * arrays before the next query, so loading many mountains doesn't shift the arrays for every single one. If values
+ * change while added mountains are pending, the arrays are rebuilt before the next query.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainRangeIndex {
+
+	/**
+	 * the slots of the mountains which are indexed
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the indexed numeric field
+	 */
+	private final Mountain.Field field;
+
+	/**
+	 * the sorted values
+	 */
+	private double[] values = new double[16];
+
+	/**
+	 * the slot of the mountain of every value
+	 */
+	private int[] order = new int[16];
+
+	/**
+	 * the number of values in the arrays
+	 */
+	private int size;
+
+	/**
+	 * the slots of the added mountains, which haven't been merged into the arrays yet
+	 */
+	private int[] pending = new int[16];
+
+	/**
+	 * the number of pending slots
+	 */
+	private int pendingSize;
+
+	/**
+	 * set if the arrays have to be rebuilt before the next query
+	 */
+	private boolean stale;
+
+
+	/**
+	 * Constructs a new index over a field of the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are indexed
+	 * @param field the numeric field to index
+	 */
+	MountainRangeIndex(MountainSlots slots, Mountain.Field field) {
+		this.slots = slots;
+		this.field = field;
+		stale = true;
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				if (stale) {
+					return;
+				}
+				if (pendingSize == pending.length) {
+					pending = Arrays.copyOf(pending, pendingSize * 2);
+				}
+				pending[pendingSize++] = slot;
+			}
+
+			@Override
+			public void removed(int slot) {
+				if (pendingSize > 0) {
+					stale = true;
+				}
+				if (!stale) {
+					remove(value(slot), slot);
+				}
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field changed, Object oldValue) {
+				if (changed != field) {
+					return;
+				}
+				if (pendingSize > 0) {
+					stale = true;
+				}
+				if (!stale) {
+					remove(((Number) oldValue).doubleValue(), slot);
+					insert(value(slot), slot);
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				stale = true;
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the slots of all mountains whose value lies within a range.
+	 *
+	 * @param min the smallest value of the range, negative infinity for no lower bound
+	 * @param max the largest value of the range, positive infinity for no upper bound
+	 * @return int[] the slots of the matching mountains, sorted by their value and then in the order of the data list
+	 */
+	int[] find(double min, double max) {
+		update();
+		int from = lowerBound(min, Integer.MIN_VALUE);
+		int to = upperBound(max);
+		return from < to ? Arrays.copyOfRange(order, from, to) : new int[0];
+	}
+
+
+	/**
+	 * Returns the number of mountains whose value lies within a range.
+	 *
+	 * @param min the smallest value of the range, negative infinity for no lower bound
+	 * @param max the largest value of the range, positive infinity for no upper bound
+	 * @return int the number of matching mountains
+	 */
+	int count(double min, double max) {
+		update();
+		int from = lowerBound(min, Integer.MIN_VALUE);
+		int to = upperBound(max);
+		return Math.max(0, to - from);
+	}
+
+
+	/**
+	 * Returns all mountains whose value lies within a range.
+	 *
+	 * @param min the smallest value of the range, negative infinity for no lower bound
+	 * @param max the largest value of the range, positive infinity for no upper bound
+	 * @return List the matching mountains, sorted by their value and then in the order of the data list
+	 */
+	List<Mountain> findMountains(double min, double max) {
+		int[] found = find(min, max);
+		List<Mountain> result = new ArrayList<>(found.length);
+		for (int slot : found) {
+			result.add(slots.get(slot));
+		}
+		return result;
+	}
+
+
+	/**
+	 * Brings the arrays up to date, by rebuilding them or by merging the pending slots into them.
+	 */
+	private void update() {
+		if (stale) {
+			rebuild();
+		} else if (pendingSize > 0) {
+			merge();
+		}
+	}
+
+
+	/**
+	 * Rebuilds the arrays from all slots.
+	 */
+	private void rebuild() {
+		int[] all = new int[slots.size()];
+		int count = 0;
+		for (int slot = 0; slot < slots.end(); slot++) {
+			if (slots.get(slot) != null) {
+				all[count++] = slot;
+			}
+		}
+		size = 0;
+		values = new double[Math.max(16, count)];
+		order = new int[values.length];
+		pendingSize = 0;
+		stale = false;
+		append(sort(all, count));
+	}
+
+
+	/**
+	 * Merges the pending slots into the sorted arrays.
+	 */
+	private void merge() {
+		Integer[] added = sort(pending, pendingSize);
+		pendingSize = 0;
+		double[] oldValues = values;
+		int[] oldOrder = order;
+		int oldSize = size;
+		values = new double[Math.max(16, oldSize + added.length)];
+		order = new int[values.length];
+		size = 0;
+		int i = 0;
+		int j = 0;
+		while (i < oldSize || j < added.length) {
+			if (j == added.length || i < oldSize
+					&& compare(oldValues[i], oldOrder[i], value(added[j]), added[j]) <= 0) {
+				values[size] = oldValues[i];
+				order[size++] = oldOrder[i++];
+			} else {
+				values[size] = value(added[j]);
+				order[size++] = added[j++];
+			}
+		}
+	}
+
+
+	/**
+	 * Appends slots in sorted order to the arrays.
+	 *
+	 * @param sorted the slots sorted by their value
+	 */
+	private void append(Integer[] sorted) {
+		for (int slot : sorted) {
+			values[size] = value(slot);
+			order[size++] = slot;
+		}
+	}
+
+
+	/**
+	 * Inserts a value at its sorted position.
+	 *
+	 * @param value the value
+	 * @param slot the slot of the mountain
+	 */
+	private void insert(double value, int slot) {
+		int position = lowerBound(value, slot);
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+			order = Arrays.copyOf(order, size * 2);
+		}
+		System.arraycopy(values, position, values, position + 1, size - position);
+		System.arraycopy(order, position, order, position + 1, size - position);
+		values[position] = value;
+		order[position] = slot;
+		size++;
+	}
+
+
+	/**
+	 * Removes a value.
+	 *
+	 * @param value the value
+	 * @param slot the slot of the mountain
+	 */
+	private void remove(double value, int slot) {
+		int position = lowerBound(value, slot);
+		if (position == size || order[position] != slot) {
+			return;
+		}
+		System.arraycopy(values, position + 1, values, position, size - position - 1);
+		System.arraycopy(order, position + 1, order, position, size - position - 1);
+		size--;
+	}
+
+
+	/**
+	 * Returns the position of the first entry, which is not smaller than the given value and slot.
+	 *
+	 * @param value the value
+	 * @param slot the slot, which orders equal values
+	 * @return int the position of the first entry which is not smaller, size if there is none
+	 */
+	private int lowerBound(double value, int slot) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (compare(values[middle], order[middle], value, slot) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * Returns the position after the last entry, which isn't larger than the given value.
+	 *
+	 * @param value the value
+	 * @return int the position after the last entry which isn't larger, 0 if there is none
+	 */
+	private int upperBound(double value) {
+		int position = lowerBound(value, Integer.MAX_VALUE);
+		return position < size && values[position] == value ? position + 1 : position;
+	}
+
+
+	/**
+	 * Returns the slots sorted by their value.
+	 *
+	 * @param unsorted the slots
+	 * @param count the number of slots
+	 * @return Integer[] the sorted slots
+	 */
+	private Integer[] sort(int[] unsorted, int count) {
+		Integer[] sorted = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			sorted[i] = unsorted[i];
+		}
+		Arrays.sort(sorted, Comparator.comparingDouble((Integer slot) -> value(slot)).thenComparingInt(slot -> slot));
+		return sorted;
+	}
+
+
+	/**
+	 * Returns the value of the mountain in a slot.
+	 *
+	 * @param slot the slot
+	 * @return double the value of the indexed field
+	 */
+	private double value(int slot) {
+		return ((Number) slots.get(slot).get(field)).doubleValue();
+	}
+
+
+	/**
+	 * Compares two entries by their value and then by their slot.
+	 *
+	 * @param lhsValue the value of the first entry
+	 * @param lhsSlot the slot of the first entry
+	 * @param rhsValue the value of the second entry
+	 * @param rhsSlot the slot of the second entry
+	 * @return int a negative number if the first entry is smaller
+	 */
+	private static int compare(double lhsValue, int lhsSlot, double rhsValue, int rhsSlot) {
+		int result = Double.compare(lhsValue, rhsValue);
+		return result != 0 ? result : Integer.compare(lhsSlot, rhsSlot);
+	}
+}
@@ -0,0 +1,269 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * Writes saves on a dedicated background thread. The journal records of a save are handed over as immutable
+ * strings, so the mountains can be edited again right away. The records of a save describe all changes which
+ * haven't been written yet, so they replace the records of an earlier save which is still pending, and saves
+ * requested while a write is in progress are merged into a single write. If a write fails, its records are kept
+ * until the next save replaces them. Once the journal has grown large enough, it is compacted into the csv file on
+ * the same thread.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainSaveService {
+
+	/**
+	 * the minimal size of the journal in bytes, before it is compacted into the csv file
+	 */
+	private static final long MIN_COMPACTION_SIZE = 256 * 1024;
+
+	/**
+	 * the journal the records are appended to
+	 */
+	private final MountainJournal journal;
+
+	/**
+	 * the csv file the journal is compacted into
+	 */
+	private final Path csvFile;
+
+	/**
+	 * runs on the writer thread after the journal has been compacted into the csv file
+	 */
+	private final Runnable compactionListener;
+
+	/**
+	 * a logger, which is used to catch exceptions
+	 */
+	private final Logger LOGGER = Logger.getLogger(MountainSaveService.class.getName());
+
+	/**
+	 * the writer thread, which is not a daemon, so a running save is finished before the application exits
+	 */
+	private final ThreadPoolExecutor writer = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "mountain-save"));
+
+	/**
+	 * the records which have been requested to be saved but haven't been written yet
+	 */
+	private List<String> pending = new ArrayList<>();
+
+	/**
+	 * the callbacks of the pending saves, which run once the records have been written
+	 */
+	private List<Runnable> pendingCallbacks = new ArrayList<>();
+
+	/**
+	 * the callbacks of the pending saves, which run if writing the records fails
+	 */
+	private List<Runnable> pendingFailureCallbacks = new ArrayList<>();
+
+	/**
+	 * true while the writer thread is busy with the pending records
+	 */
+	private boolean writing;
+
+	/**
+	 * the executor the properties are updated on, the FX thread if the last save was requested from there
+	 */
+	private volatile Executor callbackExecutor = Runnable::run;
+
+	/**
+	 * true while a save is being written
+	 */
+	private final BooleanProperty saving = new SimpleBooleanProperty();
+
+	/**
+	 * the message of the last failed save, null if the last save succeeded
+	 */
+	private final StringProperty saveError = new SimpleStringProperty();
+
+
+	/**
+	 * Constructs a new save service.
+	 *
+	 * @param journal the journal the records are appended to
+	 * @param csvFile the csv file the journal is compacted into
+	 * @param compactionListener runs on the writer thread after the journal has been compacted
+	 */
+	MountainSaveService(MountainJournal journal, Path csvFile, Runnable compactionListener) {
+		this.journal = journal;
+		this.csvFile = csvFile;
+		this.compactionListener = compactionListener;
+	}
+
+
+	/**
+	 * Requests the given records to be saved. If a write is in progress, the records are written as soon as it
+	 * has finished. The callbacks run on the FX thread if the save is requested from there, otherwise on the writer
+	 * thread.
+	 *
+	 * @param records the journal records of all changes which haven't been written yet, replacing the pending ones
+	 * @param onWritten runs as soon as the records have been written
+	 * @param onFailed runs if writing the records fails, the records are then kept for the next save
+	 */
+	void save(List<String> records, Runnable onWritten, Runnable onFailed) {
+		callbackExecutor = Platform.isFxApplicationThread() ? Platform::runLater : Runnable::run;
+		synchronized (this) {
+			pending = new ArrayList<>(records);
+			pendingCallbacks.add(onWritten);
+			pendingFailureCallbacks.add(onFailed);
+			if (writing) {
+				return;
+			}
+			writing = true;
+			callbackExecutor.execute(() -> saving.set(true));
+		}
+		writer.execute(this::writePending);
+	}
+
+
+	/**
+	 * Returns true if there are records which have been requested but not written, because their write failed or
+	 * is still to come.
+	 *
+	 * @return boolean true if there are pending records
+	 */
+	synchronized boolean hasPending() {
+		return !pendingCallbacks.isEmpty();
+	}
+
+
+	/**
+	 * Blocks until all requested records have been written or their write has failed.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	void awaitIdle() throws InterruptedException {
+		synchronized (this) {
+			while (writing) {
+				wait();
+			}
+		}
+	}
+
+
+	/**
+	 * Writes the pending records until there are none left and compacts the journal if needed. If a write fails,
+	 * its records are kept for the next save, unless a newer save has replaced them in the meantime, and all
+	 * pending saves are reported as failed. A save requested while the failure is reported is tried right away.
+	 */
+	private void writePending() {
+		while (true) {
+			List<String> records;
+			List<Runnable> callbacks;
+			List<Runnable> failureCallbacks;
+			synchronized (this) {
+				records = pending;
+				callbacks = pendingCallbacks;
+				failureCallbacks = pendingFailureCallbacks;
+				if (callbacks.isEmpty()) {
+					finish(null);
+					return;
+				}
+				pending = new ArrayList<>();
+				pendingCallbacks = new ArrayList<>();
+				pendingFailureCallbacks = new ArrayList<>();
+			}
+			try {
+				if (!records.isEmpty()) {
+					journal.append(records);
+				}
+			} catch (IOException | RuntimeException exception) {
+				LOGGER.log(Level.SEVERE, "save failed", exception);
+				synchronized (this) {
+					if (pendingCallbacks.isEmpty()) {
+						pending = records;
+					}
+					callbacks.addAll(pendingCallbacks);
+					pendingCallbacks = callbacks;
+					failureCallbacks.addAll(pendingFailureCallbacks);
+					pendingFailureCallbacks = new ArrayList<>();
+				}
+				failureCallbacks.forEach(callbackExecutor::execute);
+				synchronized (this) {
+					if (pendingFailureCallbacks.isEmpty()) {
+						finish("Speichern fehlgeschlagen: " + exception.getMessage());
+						return;
+					}
+				}
+			}
+			callbacks.forEach(callbackExecutor::execute);
+			compactIfNeeded();
+		}
+	}
+
+
+	/**
+	 * Reports the result of the save and marks the writer as idle. Must be called while holding the lock, so a
+	 * save requested at the same time starts a new write.
+	 *
+	 * @param error the message of the failure, null if the save succeeded
+	 */
+	private void finish(String error) {
+		callbackExecutor.execute(() -> {
+			saveError.set(error);
+			saving.set(false);
+		});
+		writing = false;
+		notifyAll();
+	}
+
+
+	/**
+	 * Compacts the journal into the csv file, if the journal has grown to a quarter of the csv file. A failed
+	 * compaction is only logged, because the journal still contains all changes.
+	 */
+	private void compactIfNeeded() {
+		try {
+			long journalSize = journal.size();
+			if (journalSize < MIN_COMPACTION_SIZE || journalSize * 4 < Files.size(csvFile)) {
+				return;
+			}
+			journal.compact();
+			compactionListener.run();
+		} catch (IOException | RuntimeException exception) {
+			LOGGER.log(Level.SEVERE, "journal compaction failed", exception);
+		}
+	}
+
+
+	/**
+	 * Returns the property that defines if a save is being written.
+	 *
+	 * @return saving the property that defines if a save is being written
+	 */
+	BooleanProperty savingProperty() {
+		return saving;
+	}
+
+
+	/**
+	 * Returns the property that contains the message of the last failed save.
+	 *
+	 * @return saveError the property that contains the message of the last failed save, null if it succeeded
+	 */
+	StringProperty saveErrorProperty() {
+		return saveError;
+	}
+}
@@ -0,0 +1,162 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.Arrays;
+
+/**
+ * Steps forward and backward through the mountains whose name contains a search string. The slots of all matching
+ * mountains are looked up once per search string, and the cursor remembers its position in them, so every step
+ * afterwards takes constant time. If the cursor isn't on the given mountain anymore, it is placed next to it by a
+ * binary search.
+ *
+ * The matches are looked up again as soon as a mountain is added, removed or renamed, or the mountains are
+ * renumbered.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainSearchCursor {
+
+	/**
+	 * the slots of the mountains which are searched
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the index used to look up the matches
+	 */
+	private final MountainTrigramIndex index;
+
+	/**
+	 * the search string of the matches, null if the matches have to be looked up again
+	 */
+	private String search;
+
+	/**
+	 * the sorted slots of the matching mountains
+	 */
+	private int[] matches = new int[0];
+
+	/**
+	 * the position of the cursor in the matches, -1 if it is before the first match
+	 */
+	private int position = -1;
+
+
+	/**
+	 * Constructs a new cursor over the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are searched
+	 * @param index the index used to look up the matches
+	 */
+	MountainSearchCursor(MountainSlots slots, MountainTrigramIndex index) {
+		this.slots = slots;
+		this.index = index;
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				invalidate();
+			}
+
+			@Override
+			public void removed(int slot) {
+				invalidate();
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				if (field == Mountain.Field.NAME) {
+					invalidate();
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				invalidate();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the first matching mountain after the given one in the order of the data list.
+	 *
+	 * @param search the search string
+	 * @param current the mountain after which the search starts, null to search from the beginning
+	 * @return Mountain the next matching mountain, null if there is none
+	 */
+	Mountain next(String search, Mountain current) {
+		int next = locate(search, current, true) + 1;
+		return moveTo(next);
+	}
+
+
+	/**
+	 * Returns the last matching mountain before the given one in the order of the data list.
+	 *
+	 * @param search the search string
+	 * @param current the mountain before which the search starts, null to search from the end
+	 * @return Mountain the previous matching mountain, null if there is none
+	 */
+	Mountain previous(String search, Mountain current) {
+		int previous = locate(search, current, false) - 1;
+		return moveTo(previous);
+	}
+
+
+	/**
+	 * Returns the position in the matches from which a step starts. If the cursor is on the given mountain, this is
+	 * the position of the cursor. Otherwise it is the position where the mountain would be in the matches.
+	 *
+	 * @param search the search string
+	 * @param current the mountain from which the step starts, null to start before the first or after the last match
+	 * @param forward true for a step to the next match, false for a step to the previous one
+	 * @return int the position from which the step starts, between -1 and the number of matches
+	 */
+	private int locate(String search, Mountain current, boolean forward) {
+		if (!search.equals(this.search)) {
+			this.search = search;
+			matches = index.findSlots(search);
+			position = -1;
+		}
+		if (current == null) {
+			return forward ? -1 : matches.length;
+		}
+		if (position >= 0 && position < matches.length && slots.get(matches[position]) == current) {
+			return position;
+		}
+		int slot = slots.slotOf(current);
+		int found = Arrays.binarySearch(matches, slot);
+		if (found >= 0) {
+			return found;
+		}
+		int insertion = -found - 1;
+		return forward ? insertion - 1 : insertion;
+	}
+
+
+	/**
+	 * Moves the cursor to a position in the matches.
+	 *
+	 * @param target the new position
+	 * @return Mountain the match at the new position, null if the position is outside of the matches
+	 */
+	private Mountain moveTo(int target) {
+		if (target < 0 || target >= matches.length) {
+			position = -1;
+			return null;
+		}
+		position = target;
+		return slots.get(matches[target]);
+	}
+
+
+	/**
+	 * Drops the matches, so they are looked up again by the next step.
+	 */
+	private void invalidate() {
+		search = null;
+		position = -1;
+	}
+}
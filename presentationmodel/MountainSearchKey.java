@@ -0,0 +1,75 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.text.Normalizer;
+
+/**
+ * Normalizes names and search strings, so they can be compared regardless of case, diacritics and punctuation. The
+ * key of a string is lower case, letters with diacritics are replaced by the base letters, e.g. "Brglen" by
+ * "burglen", and every run of other characters than letters and digits is collapsed into a single space.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+final class MountainSearchKey {
+
+	/**
+	 * This class only contains static methods.
+	 */
+	private MountainSearchKey() {
+	}
+
+
+	/**
+	 * Returns the normalized key of a string.
+	 *
+	 * @param text the string, may be null
+	 * @return String the key, empty if the string is null or has no letters or digits
+	 */
+	static String of(String text) {
+		if (text == null) {
+			return "";
+		}
+		if (!isAscii(text)) {
+			text = Normalizer.normalize(text, Normalizer.Form.NFD);
+		}
+		StringBuilder key = new StringBuilder(text.length());
+		boolean separator = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.getType(c) == Character.NON_SPACING_MARK) {
+				continue;
+			}
+			if (!Character.isLetterOrDigit(c)) {
+				separator = key.length() > 0;
+				continue;
+			}
+			if (separator) {
+				key.append(' ');
+				separator = false;
+			}
+			if (c == '') {
+				key.append("ss");
+			} else {
+				key.append(Character.toLowerCase(c));
+			}
+		}
+		return key.toString();
+	}
+
+
+	/**
+	 * Returns true if a string only contains ASCII characters, which have no diacritics.
+	 *
+	 * @param text the string
+	 * @return boolean true if all characters are below 128
+	 */
+	private static boolean isAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 128) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,258 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Gives every mountain in the data list a slot number, which increases in the order of the list. Indexes use the
+ * slots to refer to mountains in primitive arrays and to return results in the order of the list, without having
+ * to look up the position of a mountain in the list.
+ *
+ * Mountains are normally appended to the data list, which gives them the next slot. The slots of removed
+ * mountains stay free. If the list is reordered or a mountain is inserted before the end, or if too many slots are
+ * free, all mountains are renumbered.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainSlots {
+
+	/**
+	 * observes the slots and the mountains in them
+	 */
+	interface Listener {
+
+		/**
+		 * Is called after a mountain has been added to a slot.
+		 *
+		 * @param slot the slot of the added mountain
+		 */
+		void added(int slot);
+
+		/**
+		 * Is called before a mountain is removed from its slot, so it can still be looked up.
+		 *
+		 * @param slot the slot of the removed mountain
+		 */
+		void removed(int slot);
+
+		/**
+		 * Is called after a field of a mountain has changed.
+		 *
+		 * @param slot the slot of the changed mountain
+		 * @param field the changed field
+		 * @param oldValue the old value of the field
+		 */
+		void changed(int slot, Mountain.Field field, Object oldValue);
+
+		/**
+		 * Is called after all mountains have been renumbered. The old slots aren't valid anymore.
+		 */
+		void renumbered();
+	}
+
+	/**
+	 * the list of mountains which gets slots
+	 */
+	private final ObservableList<Mountain> data;
+
+	/**
+	 * the listeners of the slots
+	 */
+	private final List<Listener> listeners = new ArrayList<>();
+
+	/**
+	 * the slot of every mountain in the data list
+	 */
+	private final Map<Mountain, Integer> slots = new IdentityHashMap<>();
+
+	/**
+	 * the mountain in every slot, null if the slot is free
+	 */
+	private Mountain[] mountains = new Mountain[16];
+
+	/**
+	 * the slot the next appended mountain gets
+	 */
+	private int end;
+
+	/**
+	 * observes the fields of the mountains
+	 */
+	private final Mountain.Listener mountainChangeListener = (mountain, field, oldValue, newValue) -> {
+		int slot = slots.get(mountain);
+		for (Listener listener : listeners) {
+			listener.changed(slot, field, oldValue);
+		}
+	};
+
+	/**
+	 * observes the data list for added and removed mountains
+	 */
+	private final ListChangeListener<Mountain> dataChangeListener = change -> {
+		boolean outOfOrder = false;
+		while (change.next()) {
+			if (change.wasPermutated()) {
+				outOfOrder = true;
+				continue;
+			}
+			if (change.wasUpdated()) {
+				continue;
+			}
+			for (Mountain mountain : change.getRemoved()) {
+				remove(mountain);
+			}
+			if (change.wasAdded()) {
+				outOfOrder |= change.getTo() != change.getList().size();
+				for (Mountain mountain : change.getAddedSubList()) {
+					add(mountain);
+				}
+			}
+		}
+		if (outOfOrder || end > 2 * slots.size() + 64) {
+			renumber();
+		}
+	};
+
+
+	/**
+	 * Constructs slots for the given data list.
+	 *
+	 * @param data the list of mountains which gets slots
+	 */
+	MountainSlots(ObservableList<Mountain> data) {
+		this.data = data;
+		data.forEach(this::add);
+		data.addListener(dataChangeListener);
+	}
+
+
+	/**
+	 * Adds a listener, which observes the slots.
+	 *
+	 * @param listener the listener to add
+	 */
+	void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+
+	/**
+	 * Removes a listener of the slots.
+	 *
+	 * @param listener the listener to remove
+	 */
+	void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+
+	/**
+	 * Returns the slot of a mountain.
+	 *
+	 * @param mountain the mountain
+	 * @return int the slot of the mountain, -1 if it isn't in the data list
+	 */
+	int slotOf(Mountain mountain) {
+		Integer slot = mountain == null ? null : slots.get(mountain);
+		return slot == null ? -1 : slot;
+	}
+
+
+	/**
+	 * Returns the mountain in a slot.
+	 *
+	 * @param slot the slot
+	 * @return Mountain the mountain in the slot, null if the slot is free
+	 */
+	Mountain get(int slot) {
+		return mountains[slot];
+	}
+
+
+	/**
+	 * Returns the slot after the last used one.
+	 *
+	 * @return int the slot after the last used one
+	 */
+	int end() {
+		return end;
+	}
+
+
+	/**
+	 * Returns the number of mountains with a slot.
+	 *
+	 * @return int the number of mountains
+	 */
+	int size() {
+		return slots.size();
+	}
+
+
+	/**
+	 * Gives a mountain the next slot.
+	 *
+	 * @param mountain the mountain to add
+	 */
+	private void add(Mountain mountain) {
+		if (slots.containsKey(mountain)) {
+			return;
+		}
+		if (end == mountains.length) {
+			mountains = Arrays.copyOf(mountains, end * 2);
+		}
+		int slot = end++;
+		mountains[slot] = mountain;
+		slots.put(mountain, slot);
+		mountain.addListener(mountainChangeListener);
+		for (Listener listener : listeners) {
+			listener.added(slot);
+		}
+	}
+
+
+	/**
+	 * Frees the slot of a mountain.
+	 *
+	 * @param mountain the mountain to remove
+	 */
+	private void remove(Mountain mountain) {
+		Integer slot = slots.get(mountain);
+		if (slot == null) {
+			return;
+		}
+		for (Listener listener : listeners) {
+			listener.removed(slot);
+		}
+		slots.remove(mountain);
+		mountain.removeListener(mountainChangeListener);
+		mountains[slot] = null;
+	}
+
+
+	/**
+	 * Gives all mountains new slots in the order of the data list.
+	 */
+	private void renumber() {
+		slots.clear();
+		mountains = new Mountain[Math.max(16, data.size())];
+		end = 0;
+		for (Mountain mountain : data) {
+			if (!slots.containsKey(mountain)) {
+				mountains[end] = mountain;
+				slots.put(mountain, end++);
+			}
+		}
+		for (Listener listener : listeners) {
+			listener.renumbered();
+		}
+	}
+}
@@ -0,0 +1,354 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary snapshot of the mountains, which can be loaded much faster than the csv file. The snapshot stores
+ * the numeric values in fixed width columns and every distinct string once in a string table, which the string
+ * columns refer to by index. Snapshots are opened through a memory mapped file.
+ *
+ * <pre>
+ * int magic, int version, int rows, int strings
+ * int[rows] id, double[rows] height, double[rows] isolation, double[rows] prominence
+ * int[rows] for each of the STRING_COLUMNS
+ * int[strings + 1] string offsets, byte[] UTF-8 string data
+ * </pre>
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainSnapshot {
+
+	/**
+	 * identifies a snapshot file
+	 */
+	private static final int MAGIC = 0x534D4E54;
+
+	/**
+	 * the version of the file format
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * the number of string columns
+	 */
+	private static final int STRING_COLUMNS = 8;
+
+	/**
+	 * the size of the header in bytes
+	 */
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * the mapped content of the snapshot file
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * the number of mountains in this snapshot
+	 */
+	private final int rows;
+
+	/**
+	 * the strings of the string table, decoded on first use
+	 */
+	private final String[] strings;
+
+	/**
+	 * the position of the string offsets
+	 */
+	private final int stringOffsets;
+
+	/**
+	 * the position of the string data
+	 */
+	private final int stringData;
+
+
+	/**
+	 * Constructs a new snapshot from the mapped content of a snapshot file.
+	 *
+	 * @param buffer the mapped content of the snapshot file
+	 * @throws IOException if the content isn't a valid snapshot
+	 */
+	private MountainSnapshot(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("not a mountain snapshot");
+		}
+		rows = buffer.getInt(8);
+		int stringCount = buffer.getInt(12);
+		long offsets = HEADER_SIZE + (long) rows * (4 + 3 * 8 + STRING_COLUMNS * 4);
+		long data = offsets + (stringCount + 1L) * 4;
+		if (rows < 0 || stringCount < 0 || data > buffer.limit()
+				|| data + buffer.getInt((int) data - 4) != buffer.limit()) {
+			throw new IOException("truncated mountain snapshot");
+		}
+		strings = new String[stringCount];
+		stringOffsets = (int) offsets;
+		stringData = (int) data;
+		validate();
+	}
+
+
+	/**
+	 * Checks that every string column refers to an entry of the string table and that the string offsets lie within
+	 * the string data, so reading the rows can't fail on a corrupt file.
+	 *
+	 * @throws IOException if a string index or offset is out of bounds
+	 */
+	private void validate() throws IOException {
+		int previous = 0;
+		for (int index = 0; index <= strings.length; index++) {
+			int offset = buffer.getInt(stringOffsets + index * 4);
+			if (offset < previous || index == 0 && offset != 0) {
+				throw new IOException("corrupt string table in mountain snapshot");
+			}
+			previous = offset;
+		}
+		int columns = HEADER_SIZE + rows * (4 + 3 * 8);
+		for (int position = columns; position < stringOffsets; position += 4) {
+			int index = buffer.getInt(position);
+			if (index < 0 || index >= strings.length) {
+				throw new IOException("corrupt string column in mountain snapshot");
+			}
+		}
+	}
+
+
+	/**
+	 * Opens the given snapshot file.
+	 *
+	 * @param file the snapshot file
+	 * @return MountainSnapshot the opened snapshot
+	 * @throws IOException if the file can't be read or isn't a valid snapshot
+	 */
+	static MountainSnapshot open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new MountainSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+
+	/**
+	 * Returns the number of mountains in this snapshot.
+	 *
+	 * @return rows the number of mountains in this snapshot
+	 */
+	int size() {
+		return rows;
+	}
+
+
+	/**
+	 * Creates the mountains in the given range of rows. The mountains share one columnar store.
+	 *
+	 * @param from the first row
+	 * @param to the row after the last row
+	 * @return List the mountains in the order of the snapshot
+	 */
+	List<Mountain> read(int from, int to) {
+		List<Mountain> mountains = new ArrayList<>(to - from);
+		MountainStore store = new MountainStore(to - from);
+		for (int row = from; row < to; row++) {
+			mountains.add(store.add(
+					buffer.getInt(HEADER_SIZE + row * 4),
+					string(0, row),
+					buffer.getDouble(doubleColumn(0) + row * 8),
+					string(1, row),
+					string(2, row),
+					string(3, row),
+					string(4, row),
+					buffer.getDouble(doubleColumn(1) + row * 8),
+					string(5, row),
+					buffer.getDouble(doubleColumn(2) + row * 8),
+					string(6, row),
+					string(7, row)));
+		}
+		return mountains;
+	}
+
+
+	/**
+	 * Returns the position of a double column.
+	 *
+	 * @param column the index of the double column
+	 * @return int the position of the column
+	 */
+	private int doubleColumn(int column) {
+		return HEADER_SIZE + rows * 4 + column * rows * 8;
+	}
+
+
+	/**
+	 * Returns the value of a string column in the given row.
+	 *
+	 * @param column the index of the string column
+	 * @param row the row
+	 * @return String the value, which is shared between all rows with the same value
+	 */
+	private String string(int column, int row) {
+		int index = buffer.getInt(HEADER_SIZE + rows * (4 + 3 * 8) + (column * rows + row) * 4);
+		String string = strings[index];
+		if (string == null) {
+			int start = buffer.getInt(stringOffsets + index * 4);
+			byte[] bytes = new byte[buffer.getInt(stringOffsets + index * 4 + 4) - start];
+			buffer.get(stringData + start, bytes);
+			string = new String(bytes, StandardCharsets.UTF_8);
+			strings[index] = string;
+		}
+		return string;
+	}
+
+
+	/**
+	 * Collects mountains and writes them into a snapshot file. The values are copied when the mountains are added,
+	 * so later changes on the mountains don't end up in the snapshot.
+	 */
+	static class Writer {
+
+		/**
+		 * the number of collected mountains
+		 */
+		private int rows;
+
+		/**
+		 * the IDs of the collected mountains
+		 */
+		private int[] ids = new int[1024];
+
+		/**
+		 * the heights, isolations and prominences of the collected mountains
+		 */
+		private double[][] doubles = new double[3][1024];
+
+		/**
+		 * the string table indexes of the string values of the collected mountains
+		 */
+		private int[][] stringIndexes = new int[STRING_COLUMNS][1024];
+
+		/**
+		 * the index of every distinct string in the string table
+		 */
+		private final Map<String, Integer> stringTable = new HashMap<>();
+
+		/**
+		 * the distinct strings in the order of the string table
+		 */
+		private final List<byte[]> strings = new ArrayList<>();
+
+
+		/**
+		 * Adds the given mountains to the snapshot.
+		 *
+		 * @param mountains the mountains to add
+		 * @return Writer this writer
+		 */
+		Writer add(List<Mountain> mountains) {
+			for (Mountain mountain : mountains) {
+				if (rows == ids.length) {
+					grow();
+				}
+				ids[rows] = mountain.getId();
+				doubles[0][rows] = mountain.getHeight();
+				doubles[1][rows] = mountain.getIsolation();
+				doubles[2][rows] = mountain.getProminence();
+				stringIndexes[0][rows] = stringIndex(mountain.getName());
+				stringIndexes[1][rows] = stringIndex(mountain.getType());
+				stringIndexes[2][rows] = stringIndex(mountain.getRegion());
+				stringIndexes[3][rows] = stringIndex(mountain.getCantons());
+				stringIndexes[4][rows] = stringIndex(mountain.getRange());
+				stringIndexes[5][rows] = stringIndex(mountain.getIsolationPoint());
+				stringIndexes[6][rows] = stringIndex(mountain.getProminencePoint());
+				stringIndexes[7][rows] = stringIndex(mountain.getCaption());
+				rows++;
+			}
+			return this;
+		}
+
+
+		/**
+		 * Writes the collected mountains into a temporary file, which then replaces the given file.
+		 *
+		 * @param file the snapshot file
+		 * @throws IOException if the file can't be written
+		 */
+		void write(Path file) throws IOException {
+			Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(rows);
+				out.writeInt(strings.size());
+				for (int row = 0; row < rows; row++) {
+					out.writeInt(ids[row]);
+				}
+				for (double[] column : doubles) {
+					for (int row = 0; row < rows; row++) {
+						out.writeDouble(column[row]);
+					}
+				}
+				for (int[] column : stringIndexes) {
+					for (int row = 0; row < rows; row++) {
+						out.writeInt(column[row]);
+					}
+				}
+				int offset = 0;
+				out.writeInt(offset);
+				for (byte[] string : strings) {
+					offset += string.length;
+					out.writeInt(offset);
+				}
+				for (byte[] string : strings) {
+					out.write(string);
+				}
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+
+		/**
+		 * Returns the index of the given string in the string table and adds it, if it isn't in there yet.
+		 *
+		 * @param string the string, null is stored as empty string
+		 * @return int the index of the string in the string table
+		 */
+		private int stringIndex(String string) {
+			String value = string == null ? "" : string;
+			return stringTable.computeIfAbsent(value, s -> {
+				strings.add(s.getBytes(StandardCharsets.UTF_8));
+				return strings.size() - 1;
+			});
+		}
+
+
+		/**
+		 * Doubles the capacity of all columns.
+		 */
+		private void grow() {
+			int capacity = ids.length * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			for (int i = 0; i < doubles.length; i++) {
+				doubles[i] = Arrays.copyOf(doubles[i], capacity);
+			}
+			for (int i = 0; i < stringIndexes.length; i++) {
+				stringIndexes[i] = Arrays.copyOf(stringIndexes[i], capacity);
+			}
+		}
+	}
+}
@@ -0,0 +1,583 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+
+/**
+ * Stores the values of many mountains column by column in primitive arrays, instead of one object per value. The
+ * columns with repeating values only store the dictionary codes of the values. A mountain is a view of one row of
+ * a store, so mountains which are loaded together share one store. The dictionary codes are released once the store
+ * is no longer used.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainStore {
+
+	/**
+	 * releases the dictionary codes of the stores which are no longer used
+	 */
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	/**
+	 * the IDs
+	 */
+	private int[] ids;
+
+	/**
+	 * the names
+	 */
+	private String[] names;
+
+	/**
+	 * the normalized search keys of the names, null until a key is needed after the name has been set
+	 */
+	private String[] keys;
+
+	/**
+	 * the heights
+	 */
+	private double[] heights;
+
+	/**
+	 * the isolations
+	 */
+	private double[] isolations;
+
+	/**
+	 * the prominences
+	 */
+	private double[] prominences;
+
+	/**
+	 * the captions
+	 */
+	private String[] captions;
+
+	/**
+	 * the dictionary codes of the columns with repeating values
+	 */
+	private final Codes codes;
+
+	/**
+	 * the number of rows in this store
+	 */
+	private int size;
+
+
+	/**
+	 * Constructs a new empty store.
+	 *
+	 * @param capacity the number of rows, which can be added before the columns have to grow
+	 */
+	MountainStore(int capacity) {
+		capacity = Math.max(1, capacity);
+		ids = new int[capacity];
+		names = new String[capacity];
+		keys = new String[capacity];
+		heights = new double[capacity];
+		isolations = new double[capacity];
+		prominences = new double[capacity];
+		captions = new String[capacity];
+		codes = new Codes(capacity);
+		CLEANER.register(this, codes);
+	}
+
+
+	/**
+	 * Adds a row and returns the mountain which is a view of it.
+	 *
+	 * @param id the ID of the mountain
+	 * @param name the name of the mountain
+	 * @param height the height of the mountain
+	 * @param type the type the mountain is of
+	 * @param region the region, which contains the mountain
+	 * @param cantons the cantons in which the mountain is
+	 * @param range the area in which the mountain is
+	 * @param isolation the dominance of the mountain
+	 * @param isolationPoint the isolation point from which the isolation of the mountain is measured from
+	 * @param prominence the prominence of the mountain
+	 * @param prominencePoint the prominence point from which the prominence of the mountain is measured from
+	 * @param caption the caption of the picture of the mountain
+	 * @return Mountain the view of the added row
+	 */
+	Mountain add(int id, String name, double height, String type, String region, String cantons, String range,
+			double isolation, String isolationPoint, double prominence, String prominencePoint, String caption) {
+		return new Mountain(this, append(id, name, height, type, region, cantons, range, isolation, isolationPoint,
+				prominence, prominencePoint, caption));
+	}
+
+
+	/**
+	 * Adds a row.
+	 *
+	 * @param id the ID of the mountain
+	 * @param name the name of the mountain
+	 * @param height the height of the mountain
+	 * @param type the type the mountain is of
+	 * @param region the region, which contains the mountain
+	 * @param cantons the cantons in which the mountain is
+	 * @param range the area in which the mountain is
+	 * @param isolation the dominance of the mountain
+	 * @param isolationPoint the isolation point from which the isolation of the mountain is measured from
+	 * @param prominence the prominence of the mountain
+	 * @param prominencePoint the prominence point from which the prominence of the mountain is measured from
+	 * @param caption the caption of the picture of the mountain
+	 * @return int the index of the added row
+	 */
+	int append(int id, String name, double height, String type, String region, String cantons, String range,
+			double isolation, String isolationPoint, double prominence, String prominencePoint, String caption) {
+		if (size == ids.length) {
+			grow(size * 2);
+		}
+		int row = size++;
+		ids[row] = id;
+		names[row] = name;
+		heights[row] = height;
+		codes.types[row] = MountainDictionary.TYPE.acquire(type);
+		codes.regions[row] = MountainDictionary.REGION.acquire(region);
+		codes.cantons[row] = MountainDictionary.CANTONS.acquire(cantons);
+		codes.ranges[row] = MountainDictionary.RANGE.acquire(range);
+		isolations[row] = isolation;
+		codes.isolationPoints[row] = MountainDictionary.ISOLATION_POINT.acquire(isolationPoint);
+		prominences[row] = prominence;
+		codes.prominencePoints[row] = MountainDictionary.PROMINENCE_POINT.acquire(prominencePoint);
+		captions[row] = caption;
+		codes.size = size;
+		return row;
+	}
+
+
+	/**
+	 * Returns the number of rows in this store.
+	 *
+	 * @return int the number of rows
+	 */
+	int size() {
+		return size;
+	}
+
+
+	/**
+	 * Returns a value of a row.
+	 *
+	 * @param field the column of the value
+	 * @param row the row of the value
+	 * @return Object the value
+	 */
+	Object get(Mountain.Field field, int row) {
+		switch (field) {
+		case ID:
+			return ids[row];
+		case NAME:
+			return names[row];
+		case HEIGHT:
+			return heights[row];
+		case TYPE:
+			return getType(row);
+		case REGION:
+			return getRegion(row);
+		case CANTONS:
+			return getCantons(row);
+		case RANGE:
+			return getRange(row);
+		case ISOLATION:
+			return isolations[row];
+		case ISOLATION_POINT:
+			return getIsolationPoint(row);
+		case PROMINENCE:
+			return prominences[row];
+		case PROMINENCE_POINT:
+			return getProminencePoint(row);
+		default:
+			return captions[row];
+		}
+	}
+
+
+	/**
+	 * Sets a value of a row.
+	 *
+	 * @param field the column of the value
+	 * @param row the row of the value
+	 * @param value the new value, a number for the numeric columns
+	 */
+	void set(Mountain.Field field, int row, Object value) {
+		switch (field) {
+		case ID:
+			ids[row] = ((Number) value).intValue();
+			break;
+		case NAME:
+			names[row] = (String) value;
+			keys[row] = null;
+			break;
+		case HEIGHT:
+			heights[row] = ((Number) value).doubleValue();
+			break;
+		case TYPE:
+			codes.types[row] = replace(MountainDictionary.TYPE, codes.types[row], (String) value);
+			break;
+		case REGION:
+			codes.regions[row] = replace(MountainDictionary.REGION, codes.regions[row], (String) value);
+			break;
+		case CANTONS:
+			codes.cantons[row] = replace(MountainDictionary.CANTONS, codes.cantons[row], (String) value);
+			break;
+		case RANGE:
+			codes.ranges[row] = replace(MountainDictionary.RANGE, codes.ranges[row], (String) value);
+			break;
+		case ISOLATION:
+			isolations[row] = ((Number) value).doubleValue();
+			break;
+		case ISOLATION_POINT:
+			codes.isolationPoints[row] = replace(MountainDictionary.ISOLATION_POINT, codes.isolationPoints[row], (String) value);
+			break;
+		case PROMINENCE:
+			prominences[row] = ((Number) value).doubleValue();
+			break;
+		case PROMINENCE_POINT:
+			codes.prominencePoints[row] = replace(MountainDictionary.PROMINENCE_POINT, codes.prominencePoints[row], (String) value);
+			break;
+		default:
+			captions[row] = (String) value;
+		}
+	}
+
+
+	/**
+	 * Returns the ID of a row.
+	 *
+	 * @param row the row
+	 * @return int the ID
+	 */
+	int getId(int row) {
+		return ids[row];
+	}
+
+
+	/**
+	 * Returns the name of a row.
+	 *
+	 * @param row the row
+	 * @return String the name
+	 */
+	String getName(int row) {
+		return names[row];
+	}
+
+
+	/**
+	 * Returns the normalized search key of the name of a row. The key is computed when it is needed for the first
+	 * time after the name has been set.
+	 *
+	 * @param row the row
+	 * @return String the search key of the name
+	 */
+	String getSearchKey(int row) {
+		String key = keys[row];
+		if (key == null) {
+			key = MountainSearchKey.of(names[row]);
+			keys[row] = key;
+		}
+		return key;
+	}
+
+
+	/**
+	 * Returns the height of a row.
+	 *
+	 * @param row the row
+	 * @return double the height
+	 */
+	double getHeight(int row) {
+		return heights[row];
+	}
+
+
+	/**
+	 * Returns the type of a row.
+	 *
+	 * @param row the row
+	 * @return String the type
+	 */
+	String getType(int row) {
+		return MountainDictionary.TYPE.value(codes.types[row]);
+	}
+
+
+	/**
+	 * Returns the dictionary code of the type of a row.
+	 *
+	 * @param row the row
+	 * @return int the dictionary code of the type
+	 */
+	int getTypeCode(int row) {
+		return codes.types[row];
+	}
+
+
+	/**
+	 * Returns the region of a row.
+	 *
+	 * @param row the row
+	 * @return String the region
+	 */
+	String getRegion(int row) {
+		return MountainDictionary.REGION.value(codes.regions[row]);
+	}
+
+
+	/**
+	 * Returns the dictionary code of the region of a row.
+	 *
+	 * @param row the row
+	 * @return int the dictionary code of the region
+	 */
+	int getRegionCode(int row) {
+		return codes.regions[row];
+	}
+
+
+	/**
+	 * Returns the cantons of a row.
+	 *
+	 * @param row the row
+	 * @return String the cantons
+	 */
+	String getCantons(int row) {
+		return MountainDictionary.CANTONS.value(codes.cantons[row]);
+	}
+
+
+	/**
+	 * Returns the dictionary code of the cantons of a row.
+	 *
+	 * @param row the row
+	 * @return int the dictionary code of the cantons
+	 */
+	int getCantonsCode(int row) {
+		return codes.cantons[row];
+	}
+
+
+	/**
+	 * Returns the range of a row.
+	 *
+	 * @param row the row
+	 * @return String the range
+	 */
+	String getRange(int row) {
+		return MountainDictionary.RANGE.value(codes.ranges[row]);
+	}
+
+
+	/**
+	 * Returns the dictionary code of the range of a row.
+	 *
+	 * @param row the row
+	 * @return int the dictionary code of the range
+	 */
+	int getRangeCode(int row) {
+		return codes.ranges[row];
+	}
+
+
+	/**
+	 * Returns the isolation of a row.
+	 *
+	 * @param row the row
+	 * @return double the isolation
+	 */
+	double getIsolation(int row) {
+		return isolations[row];
+	}
+
+
+	/**
+	 * Returns the isolation point of a row.
+	 *
+	 * @param row the row
+	 * @return String the isolation point
+	 */
+	String getIsolationPoint(int row) {
+		return MountainDictionary.ISOLATION_POINT.value(codes.isolationPoints[row]);
+	}
+
+
+	/**
+	 * Returns the dictionary code of the isolation point of a row.
+	 *
+	 * @param row the row
+	 * @return int the dictionary code of the isolation point
+	 */
+	int getIsolationPointCode(int row) {
+		return codes.isolationPoints[row];
+	}
+
+
+	/**
+	 * Returns the prominence of a row.
+	 *
+	 * @param row the row
+	 * @return double the prominence
+	 */
+	double getProminence(int row) {
+		return prominences[row];
+	}
+
+
+	/**
+	 * Returns the prominence point of a row.
+	 *
+	 * @param row the row
+	 * @return String the prominence point
+	 */
+	String getProminencePoint(int row) {
+		return MountainDictionary.PROMINENCE_POINT.value(codes.prominencePoints[row]);
+	}
+
+
+	/**
+	 * Returns the dictionary code of the prominence point of a row.
+	 *
+	 * @param row the row
+	 * @return int the dictionary code of the prominence point
+	 */
+	int getProminencePointCode(int row) {
+		return codes.prominencePoints[row];
+	}
+
+
+	/**
+	 * Returns the caption of a row.
+	 *
+	 * @param row the row
+	 * @return String the caption
+	 */
+	String getCaption(int row) {
+		return captions[row];
+	}
+
+
+	/**
+	 * Grows all columns to the given capacity.
+	 *
+	 * @param capacity the new number of rows the columns can hold
+	 */
+	private void grow(int capacity) {
+		ids = Arrays.copyOf(ids, capacity);
+		names = Arrays.copyOf(names, capacity);
+		keys = Arrays.copyOf(keys, capacity);
+		heights = Arrays.copyOf(heights, capacity);
+		isolations = Arrays.copyOf(isolations, capacity);
+		prominences = Arrays.copyOf(prominences, capacity);
+		captions = Arrays.copyOf(captions, capacity);
+		codes.grow(capacity);
+	}
+
+
+	/**
+	 * Replaces a value of a dictionary column. The new value is acquired before the old one is released, so a value
+	 * which is set again keeps its code.
+	 *
+	 * @param dictionary the dictionary of the column
+	 * @param code the code of the old value
+	 * @param value the new value
+	 * @return int the code of the new value
+	 */
+	private static int replace(MountainDictionary dictionary, int code, String value) {
+		int newCode = dictionary.acquire(value);
+		dictionary.release(code);
+		return newCode;
+	}
+
+
+	/**
+	 * The dictionary codes of the rows of a store. They are kept apart from the store, so they can still be released
+	 * after the store has become unreachable.
+	 */
+	private static class Codes implements Runnable {
+
+		/**
+		 * the dictionary codes of the types
+		 */
+		private int[] types;
+
+		/**
+		 * the dictionary codes of the regions
+		 */
+		private int[] regions;
+
+		/**
+		 * the dictionary codes of the cantons
+		 */
+		private int[] cantons;
+
+		/**
+		 * the dictionary codes of the ranges
+		 */
+		private int[] ranges;
+
+		/**
+		 * the dictionary codes of the isolation points
+		 */
+		private int[] isolationPoints;
+
+		/**
+		 * the dictionary codes of the prominence points
+		 */
+		private int[] prominencePoints;
+
+		/**
+		 * the number of rows which hold codes
+		 */
+		private int size;
+
+
+		/**
+		 * Constructs the codes of an empty store.
+		 *
+		 * @param capacity the number of rows, which can be added before the columns have to grow
+		 */
+		Codes(int capacity) {
+			types = new int[capacity];
+			regions = new int[capacity];
+			cantons = new int[capacity];
+			ranges = new int[capacity];
+			isolationPoints = new int[capacity];
+			prominencePoints = new int[capacity];
+		}
+
+
+		/**
+		 * Grows all columns to the given capacity.
+		 *
+		 * @param capacity the new number of rows the columns can hold
+		 */
+		void grow(int capacity) {
+			types = Arrays.copyOf(types, capacity);
+			regions = Arrays.copyOf(regions, capacity);
+			cantons = Arrays.copyOf(cantons, capacity);
+			ranges = Arrays.copyOf(ranges, capacity);
+			isolationPoints = Arrays.copyOf(isolationPoints, capacity);
+			prominencePoints = Arrays.copyOf(prominencePoints, capacity);
+		}
+
+
+		/**
+		 * Releases the codes of all rows, once the store is no longer used.
+		 */
+		@Override
+		public void run() {
+			for (int row = 0; row < size; row++) {
+				MountainDictionary.TYPE.release(types[row]);
+				MountainDictionary.REGION.release(regions[row]);
+				MountainDictionary.CANTONS.release(cantons[row]);
+				MountainDictionary.RANGE.release(ranges[row]);
+				MountainDictionary.ISOLATION_POINT.release(isolationPoints[row]);
+				MountainDictionary.PROMINENCE_POINT.release(prominencePoints[row]);
+			}
+		}
+	}
+}
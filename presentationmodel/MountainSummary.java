@@ -0,0 +1,273 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+/**
+ * The count and the minimum, maximum, sum and average of the height, prominence and isolation of a group of
+ * mountains, as properties a view can bind to. The aggregates are updated from the changes of the group: adding or
+ * removing a mountain or changing one of its values takes constant time for the count, sum and average, and
+ * logarithmic time for the minimum and maximum, which are kept in a sorted multiset of the values.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+public class MountainSummary {
+
+	/**
+	 * the aggregated fields
+	 */
+	static final Mountain.Field[] MEASURES = { Mountain.Field.HEIGHT, Mountain.Field.PROMINENCE,
+			Mountain.Field.ISOLATION };
+
+	/**
+	 * the number of mountains in the group
+	 */
+	private final ReadOnlyIntegerWrapper count = new ReadOnlyIntegerWrapper();
+
+	/**
+	 * the smallest value of every aggregated field, NaN if the group is empty
+	 */
+	private final ReadOnlyDoubleWrapper[] min = wrappers(Double.NaN);
+
+	/**
+	 * the largest value of every aggregated field, NaN if the group is empty
+	 */
+	private final ReadOnlyDoubleWrapper[] max = wrappers(Double.NaN);
+
+	/**
+	 * the sum of the values of every aggregated field
+	 */
+	private final ReadOnlyDoubleWrapper[] sum = wrappers(0.0);
+
+	/**
+	 * the average value of every aggregated field, NaN if the group is empty
+	 */
+	private final ReadOnlyDoubleWrapper[] average = wrappers(Double.NaN);
+
+	/**
+	 * how often every value of every aggregated field occurs in the group
+	 */
+	private final List<TreeMap<Double, Integer>> values = new ArrayList<>(MEASURES.length);
+
+
+	/**
+	 * Constructs a new summary of an empty group.
+	 */
+	MountainSummary() {
+		for (int m = 0; m < MEASURES.length; m++) {
+			values.add(new TreeMap<>());
+		}
+	}
+
+
+	/**
+	 * Adds the values of a mountain to the group.
+	 *
+	 * @param mountain the mountain
+	 */
+	void add(Mountain mountain) {
+		count.set(count.get() + 1);
+		for (int m = 0; m < MEASURES.length; m++) {
+			addValue(m, value(mountain.get(MEASURES[m])));
+		}
+	}
+
+
+	/**
+	 * Removes the values of a mountain from the group.
+	 *
+	 * @param mountain the mountain, whose values have been added before
+	 */
+	void remove(Mountain mountain) {
+		count.set(count.get() - 1);
+		for (int m = 0; m < MEASURES.length; m++) {
+			removeValue(m, value(mountain.get(MEASURES[m])));
+		}
+	}
+
+
+	/**
+	 * Replaces a value of a mountain in the group.
+	 *
+	 * @param field the changed field
+	 * @param oldValue the old value, which has been added before
+	 * @param newValue the new value
+	 */
+	void change(Mountain.Field field, Object oldValue, Object newValue) {
+		int m = indexOf(field);
+		if (m >= 0) {
+			removeValue(m, value(oldValue));
+			addValue(m, value(newValue));
+		}
+	}
+
+
+	/**
+	 * Returns the property of the number of mountains in the group
+	 *
+	 * @return count the property of the number of mountains
+	 */
+	public ReadOnlyIntegerProperty countProperty() {
+		return count.getReadOnlyProperty();
+	}
+
+
+	/**
+	 * Returns the number of mountains in the group
+	 *
+	 * @return count the number of mountains
+	 */
+	public int getCount() {
+		return count.get();
+	}
+
+
+	/**
+	 * Returns the property of the smallest value of a field
+	 *
+	 * @param field the height, prominence or isolation
+	 * @return min the property of the smallest value, NaN if the group is empty
+	 */
+	public ReadOnlyDoubleProperty minProperty(Mountain.Field field) {
+		return min[measure(field)].getReadOnlyProperty();
+	}
+
+
+	/**
+	 * Returns the property of the largest value of a field
+	 *
+	 * @param field the height, prominence or isolation
+	 * @return max the property of the largest value, NaN if the group is empty
+	 */
+	public ReadOnlyDoubleProperty maxProperty(Mountain.Field field) {
+		return max[measure(field)].getReadOnlyProperty();
+	}
+
+
+	/**
+	 * Returns the property of the sum of the values of a field
+	 *
+	 * @param field the height, prominence or isolation
+	 * @return sum the property of the sum of the values
+	 */
+	public ReadOnlyDoubleProperty sumProperty(Mountain.Field field) {
+		return sum[measure(field)].getReadOnlyProperty();
+	}
+
+
+	/**
+	 * Returns the property of the average value of a field
+	 *
+	 * @param field the height, prominence or isolation
+	 * @return average the property of the average value, NaN if the group is empty
+	 */
+	public ReadOnlyDoubleProperty averageProperty(Mountain.Field field) {
+		return average[measure(field)].getReadOnlyProperty();
+	}
+
+
+	/**
+	 * Adds a value of an aggregated field.
+	 *
+	 * @param m the position of the field in the aggregated fields
+	 * @param value the value
+	 */
+	private void addValue(int m, double value) {
+		values.get(m).merge(value, 1, Integer::sum);
+		sum[m].set(sum[m].get() + value);
+		update(m);
+	}
+
+
+	/**
+	 * Removes a value of an aggregated field.
+	 *
+	 * @param m the position of the field in the aggregated fields
+	 * @param value the value, which has been added before
+	 */
+	private void removeValue(int m, double value) {
+		values.get(m).computeIfPresent(value, (key, occurrences) -> occurrences > 1 ? occurrences - 1 : null);
+		sum[m].set(values.get(m).isEmpty() ? 0.0 : sum[m].get() - value);
+		update(m);
+	}
+
+
+	/**
+	 * Updates the minimum, maximum and average of an aggregated field.
+	 *
+	 * @param m the position of the field in the aggregated fields
+	 */
+	private void update(int m) {
+		TreeMap<Double, Integer> occurrences = values.get(m);
+		boolean empty = occurrences.isEmpty();
+		min[m].set(empty ? Double.NaN : occurrences.firstKey());
+		max[m].set(empty ? Double.NaN : occurrences.lastKey());
+		average[m].set(empty || count.get() == 0 ? Double.NaN : sum[m].get() / count.get());
+	}
+
+
+	/**
+	 * Returns the position of an aggregated field.
+	 *
+	 * @param field the field
+	 * @return int the position of the field in the aggregated fields
+	 * @throws IllegalArgumentException if the field isn't aggregated
+	 */
+	private static int measure(Mountain.Field field) {
+		int m = indexOf(field);
+		if (m < 0) {
+			throw new IllegalArgumentException("no aggregates of " + field);
+		}
+		return m;
+	}
+
+
+	/**
+	 * Returns the position of a field in the aggregated fields.
+	 *
+	 * @param field the field
+	 * @return int the position of the field, -1 if it isn't aggregated
+	 */
+	private static int indexOf(Mountain.Field field) {
+		for (int m = 0; m < MEASURES.length; m++) {
+			if (MEASURES[m] == field) {
+				return m;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Returns the numeric value of a field.
+	 *
+	 * @param value the value of the field
+	 * @return double the value as a double
+	 */
+	private static double value(Object value) {
+		return ((Number) value).doubleValue();
+	}
+
+
+	/**
+	 * Returns a property for every aggregated field.
+	 *
+	 * @param initial the initial value of the properties
+	 * @return ReadOnlyDoubleWrapper[] the properties
+	 */
+	private static ReadOnlyDoubleWrapper[] wrappers(double initial) {
+		ReadOnlyDoubleWrapper[] wrappers = new ReadOnlyDoubleWrapper[MEASURES.length];
+		for (int m = 0; m < MEASURES.length; m++) {
+			wrappers[m] = new ReadOnlyDoubleWrapper(initial);
+		}
+		return wrappers;
+	}
+}
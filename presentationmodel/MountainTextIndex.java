@@ -0,0 +1,388 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An inverted index over the words of the text fields of the mountains, used for a full-text search ranked by BM25.
+ * The values of the fields are split into words after normalizing them to search keys. For every field and word,
+ * the index holds the slots of the mountains containing the word and how often they contain it.
+ *
+ * A search only visits the posting lists of the words of the search string. The score of a mountain is the sum of
+ * the BM25 scores of the words in every field, multiplied by the boost of the field, so a word in the name counts
+ * more than a word in the caption. The best mountains are kept in a bounded heap.
+ *
+ * The index is kept in sync with the slots and the fields of the mountains, and is rebuilt when the mountains are
+ * renumbered.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainTextIndex {
+
+	/**
+	 * the indexed fields
+	 */
+	static final Mountain.Field[] FIELDS = { Mountain.Field.NAME, Mountain.Field.CAPTION, Mountain.Field.RANGE,
+			Mountain.Field.REGION, Mountain.Field.ISOLATION_POINT, Mountain.Field.PROMINENCE_POINT };
+
+	/**
+	 * the factor the score of every indexed field is multiplied with
+	 */
+	private static final double[] BOOSTS = { 3.0, 1.0, 2.0, 1.5, 1.0, 1.0 };
+
+	/**
+	 * the saturation of the score of a word which occurs several times in a field
+	 */
+	private static final double K1 = 1.2;
+
+	/**
+	 * the influence of the length of a field on the score, between 0 and 1
+	 */
+	private static final double B = 0.75;
+
+	/**
+	 * the position of every field in the indexed fields, -1 if it isn't indexed
+	 */
+	private static final int[] FIELD_INDEXES = new int[Mountain.Field.values().length];
+
+	static {
+		Arrays.fill(FIELD_INDEXES, -1);
+		for (int f = 0; f < FIELDS.length; f++) {
+			FIELD_INDEXES[FIELDS[f].ordinal()] = f;
+		}
+	}
+
+	/**
+	 * the slots of the mountains which are indexed
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the posting list of every word, for every indexed field
+	 */
+	private final List<Map<String, Postings>> postings = new ArrayList<>();
+
+	/**
+	 * the number of words in every indexed field of the mountain in every slot
+	 */
+	private int[][] lengths = new int[FIELDS.length][16];
+
+	/**
+	 * the number of words in every indexed field of all mountains
+	 */
+	private final long[] totalLengths = new long[FIELDS.length];
+
+	/**
+	 * the score of the mountain in every slot during a search, 0 if it hasn't been scored
+	 */
+	private double[] scores = new double[16];
+
+	/**
+	 * the slots which have been scored during a search
+	 */
+	private int[] scored = new int[16];
+
+
+	/**
+	 * Constructs a new index over the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are indexed
+	 */
+	MountainTextIndex(MountainSlots slots) {
+		this.slots = slots;
+		for (int f = 0; f < FIELDS.length; f++) {
+			postings.add(new HashMap<>());
+		}
+		rebuild();
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				add(slot);
+			}
+
+			@Override
+			public void removed(int slot) {
+				Mountain mountain = slots.get(slot);
+				for (int f = 0; f < FIELDS.length; f++) {
+					removeField(slot, f, mountain.get(FIELDS[f]));
+				}
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				int f = FIELD_INDEXES[field.ordinal()];
+				if (f >= 0) {
+					removeField(slot, f, oldValue);
+					addField(slot, f, slots.get(slot).get(field));
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				rebuild();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the mountains which contain at least one word of the search string in an indexed field, ranked by
+	 * their BM25 score.
+	 *
+	 * @param search the search string
+	 * @param limit the largest number of mountains to return
+	 * @return List the best matching mountains, the best one first
+	 */
+	List<Mountain> search(String search, int limit) {
+		List<Mountain> result = new ArrayList<>();
+		String[] terms = distinct(tokenize(search));
+		int count = slots.size();
+		if (limit <= 0 || terms.length == 0 || count == 0) {
+			return result;
+		}
+		if (scores.length < slots.end()) {
+			scores = new double[Math.max(slots.end(), scores.length * 2)];
+		}
+		int scoredCount = 0;
+		for (String term : terms) {
+			for (int f = 0; f < FIELDS.length; f++) {
+				Postings list = postings.get(f).get(term);
+				if (list == null) {
+					continue;
+				}
+				double idf = Math.log(1 + (count - list.size + 0.5) / (list.size + 0.5));
+				double averageLength = (double) totalLengths[f] / count;
+				for (int i = 0; i < list.size; i++) {
+					int slot = list.slots[i];
+					int frequency = list.frequencies[i];
+					double norm = K1 * (1 - B + B * lengths[f][slot] / averageLength);
+					if (scores[slot] == 0) {
+						if (scoredCount == scored.length) {
+							scored = Arrays.copyOf(scored, scoredCount * 2);
+						}
+						scored[scoredCount++] = slot;
+					}
+					scores[slot] += BOOSTS[f] * idf * frequency * (K1 + 1) / (frequency + norm);
+				}
+			}
+		}
+		PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, scoredCount) + 1, (a, b) -> compare(b, a));
+		for (int i = 0; i < scoredCount; i++) {
+			int slot = scored[i];
+			if (best.size() < limit) {
+				best.add(slot);
+			} else if (compare(slot, best.peek()) < 0) {
+				best.poll();
+				best.add(slot);
+			}
+		}
+		Integer[] ranked = best.toArray(new Integer[0]);
+		Arrays.sort(ranked, this::compare);
+		for (Integer slot : ranked) {
+			result.add(slots.get(slot));
+		}
+		for (int i = 0; i < scoredCount; i++) {
+			scores[scored[i]] = 0;
+		}
+		return result;
+	}
+
+
+	/**
+	 * Compares two scored slots, the one with the higher score first and the one earlier in the data list first if
+	 * the scores are equal.
+	 *
+	 * @param lhs the first slot
+	 * @param rhs the second slot
+	 * @return int a negative number if the first slot ranks before the second one
+	 */
+	private int compare(int lhs, int rhs) {
+		if (scores[lhs] != scores[rhs]) {
+			return Double.compare(scores[rhs], scores[lhs]);
+		}
+		return Integer.compare(lhs, rhs);
+	}
+
+
+	/**
+	 * Adds all indexed fields of the mountain in a slot.
+	 *
+	 * @param slot the slot of the mountain
+	 */
+	private void add(int slot) {
+		if (slot >= lengths[0].length) {
+			for (int f = 0; f < FIELDS.length; f++) {
+				lengths[f] = Arrays.copyOf(lengths[f], Math.max(slot + 1, lengths[f].length * 2));
+			}
+		}
+		Mountain mountain = slots.get(slot);
+		for (int f = 0; f < FIELDS.length; f++) {
+			addField(slot, f, mountain.get(FIELDS[f]));
+		}
+	}
+
+
+	/**
+	 * Adds the words of a field value of the mountain in a slot.
+	 *
+	 * @param slot the slot of the mountain
+	 * @param f the position of the field in the indexed fields
+	 * @param value the value of the field
+	 */
+	private void addField(int slot, int f, Object value) {
+		String[] tokens = tokenize((String) value);
+		lengths[f][slot] = tokens.length;
+		totalLengths[f] += tokens.length;
+		for (Map.Entry<String, Integer> entry : frequencies(tokens).entrySet()) {
+			postings.get(f).computeIfAbsent(entry.getKey(), word -> new Postings()).add(slot, entry.getValue());
+		}
+	}
+
+
+	/**
+	 * Removes the words of a field value of the mountain in a slot.
+	 *
+	 * @param slot the slot of the mountain
+	 * @param f the position of the field in the indexed fields
+	 * @param value the value of the field, which has been added before
+	 */
+	private void removeField(int slot, int f, Object value) {
+		totalLengths[f] -= lengths[f][slot];
+		lengths[f][slot] = 0;
+		for (String word : distinct(tokenize((String) value))) {
+			Postings list = postings.get(f).get(word);
+			if (list != null && list.remove(slot) && list.size == 0) {
+				postings.get(f).remove(word);
+			}
+		}
+	}
+
+
+	/**
+	 * Rebuilds the index from all slots.
+	 */
+	private void rebuild() {
+		for (int f = 0; f < FIELDS.length; f++) {
+			postings.get(f).clear();
+			lengths[f] = new int[Math.max(16, slots.end())];
+			totalLengths[f] = 0;
+		}
+		for (int slot = 0; slot < slots.end(); slot++) {
+			if (slots.get(slot) != null) {
+				add(slot);
+			}
+		}
+	}
+
+
+	/**
+	 * Splits a text into the words of its search key.
+	 *
+	 * @param text the text, may be null
+	 * @return String[] the words
+	 */
+	static String[] tokenize(String text) {
+		String key = MountainSearchKey.of(text);
+		return key.isEmpty() ? new String[0] : key.split(" ");
+	}
+
+
+	/**
+	 * Returns how often every word occurs.
+	 *
+	 * @param tokens the words
+	 * @return Map the number of occurrences of every distinct word, in the order of their first occurrence
+	 */
+	private static Map<String, Integer> frequencies(String[] tokens) {
+		Map<String, Integer> frequencies = new LinkedHashMap<>();
+		for (String token : tokens) {
+			frequencies.merge(token, 1, Integer::sum);
+		}
+		return frequencies;
+	}
+
+
+	/**
+	 * Returns the distinct words.
+	 *
+	 * @param tokens the words
+	 * @return String[] the distinct words in the order of their first occurrence
+	 */
+	private static String[] distinct(String[] tokens) {
+		return frequencies(tokens).keySet().toArray(new String[0]);
+	}
+
+
+	/**
+	 * The sorted slots of the mountains containing a word in a field, and how often they contain it.
+	 */
+	private static class Postings {
+
+		/**
+		 * the sorted slots
+		 */
+		private int[] slots = new int[4];
+
+		/**
+		 * the number of occurrences of the word in the mountain in every slot
+		 */
+		private int[] frequencies = new int[4];
+
+		/**
+		 * the number of slots
+		 */
+		private int size;
+
+
+		/**
+		 * Adds a slot, keeping the slots sorted.
+		 *
+		 * @param slot the slot to add
+		 * @param frequency the number of occurrences of the word
+		 */
+		void add(int slot, int frequency) {
+			int position = size > 0 && slots[size - 1] < slot ? size : Arrays.binarySearch(slots, 0, size, slot);
+			if (position < 0) {
+				position = -position - 1;
+			} else if (position < size) {
+				frequencies[position] = frequency;
+				return;
+			}
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+			System.arraycopy(slots, position, slots, position + 1, size - position);
+			System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+			slots[position] = slot;
+			frequencies[position] = frequency;
+			size++;
+		}
+
+
+		/**
+		 * Removes a slot.
+		 *
+		 * @param slot the slot to remove
+		 * @return boolean true if the slot was in the list
+		 */
+		boolean remove(int slot) {
+			int position = Arrays.binarySearch(slots, 0, size, slot);
+			if (position < 0) {
+				return false;
+			}
+			System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+			System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+			size--;
+			return true;
+		}
+	}
+}
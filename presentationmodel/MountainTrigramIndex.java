@@ -0,0 +1,379 @@
+package ch.fhnw.oop2.swissmountainsfx.presentationmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index from every trigram of the search keys to the mountains containing it, used to search for
+ * mountains whose name contains a string. The posting list of a trigram holds the sorted slots of its mountains,
+ * which are in the order of the data list. A search intersects the posting lists of the trigrams of the search
+ * string, so only the mountains in the intersection have to be checked. Names and search strings are compared by
+ * their search keys, so case, diacritics and punctuation don't matter. Search strings shorter than a trigram can't
+ * use the index, so all names are scanned, in parallel chunks if there are many.
+ *
+ * The index is kept in sync with the slots and the names of the mountains, and is rebuilt when the mountains are
+ * renumbered.
+ *
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ *
+ */
+class MountainTrigramIndex {
+
+	/**
+	 * the number of characters in a gram
+	 */
+	private static final int GRAM_LENGTH = 3;
+
+	/**
+	 * the slots of the mountains which are indexed
+	 */
+	private final MountainSlots slots;
+
+	/**
+	 * the posting list of every trigram, by the trigram packed into a long
+	 */
+	private final Map<Long, Postings> postings = new HashMap<>();
+
+	/**
+	 * the search key of the mountain in every slot
+	 */
+	private String[] keys = new String[16];
+
+
+	/**
+	 * Constructs a new index over the mountains in the given slots.
+	 *
+	 * @param slots the slots of the mountains which are indexed
+	 */
+	MountainTrigramIndex(MountainSlots slots) {
+		this.slots = slots;
+		rebuild();
+		slots.addListener(new MountainSlots.Listener() {
+
+			@Override
+			public void added(int slot) {
+				if (slot >= keys.length) {
+					keys = Arrays.copyOf(keys, Math.max(slot + 1, keys.length * 2));
+				}
+				keys[slot] = slots.get(slot).getSearchKey();
+				addPostings(slot);
+			}
+
+			@Override
+			public void removed(int slot) {
+				removePostings(slot);
+				keys[slot] = null;
+			}
+
+			@Override
+			public void changed(int slot, Mountain.Field field, Object oldValue) {
+				if (field == Mountain.Field.NAME) {
+					removePostings(slot);
+					keys[slot] = slots.get(slot).getSearchKey();
+					addPostings(slot);
+				}
+			}
+
+			@Override
+			public void renumbered() {
+				rebuild();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the first mountain after the given one in the order of the data list, whose search key contains
+	 * the search key of the search string.
+	 *
+	 * @param search the search string
+	 * @param after the mountain after which the search starts, null to search from the beginning
+	 * @return Mountain the first matching mountain, null if there is none
+	 */
+	Mountain findNext(String search, Mountain after) {
+		int from = slots.slotOf(after) + 1;
+		String query = MountainSearchKey.of(search);
+		int[] candidates = candidates(query);
+		if (candidates == null) {
+			String[] keys = this.keys;
+			int slot = MountainParallelScan.findFirst(from, slots.end(),
+					s -> keys[s] != null && keys[s].contains(query), MountainParallelScan.NEVER_CANCELLED);
+			return slot < 0 ? null : slots.get(slot);
+		}
+		for (int i = lowerBound(candidates, candidates.length, from); i < candidates.length; i++) {
+			int slot = candidates[i];
+			if (keys[slot] != null && keys[slot].contains(query)) {
+				return slots.get(slot);
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Returns all mountains in the order of the data list, whose search key contains the search key of the
+	 * search string.
+	 *
+	 * @param search the search string
+	 * @return List the matching mountains
+	 */
+	List<Mountain> findAll(String search) {
+		List<Mountain> result = new ArrayList<>();
+		for (int slot : findSlots(search)) {
+			result.add(slots.get(slot));
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns the slots of all mountains, whose search key contains the search key of the search string.
+	 *
+	 * @param search the search string
+	 * @return int[] the sorted slots of the matching mountains
+	 */
+	int[] findSlots(String search) {
+		String query = MountainSearchKey.of(search);
+		int[] candidates = candidates(query);
+		if (candidates == null) {
+			String[] keys = this.keys;
+			return MountainParallelScan.findAll(0, slots.end(), s -> keys[s] != null && keys[s].contains(query),
+					MountainParallelScan.NEVER_CANCELLED);
+		}
+		int[] result = new int[Math.min(candidates.length, 16)];
+		int size = 0;
+		for (int slot : candidates) {
+			if (keys[slot] != null && keys[slot].contains(query)) {
+				if (size == result.length) {
+					result = Arrays.copyOf(result, size * 2);
+				}
+				result[size++] = slot;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+
+	/**
+	 * Returns an upper bound of the number of mountains, whose search key contains the search key of the search
+	 * string, from the length of the shortest posting list of its trigrams.
+	 *
+	 * @param search the search string, normalized to a search key
+	 * @return int the largest possible number of matching mountains, the number of all mountains if the search
+	 *         string is too short to use the index
+	 */
+	int estimate(String search) {
+		if (search.length() < GRAM_LENGTH) {
+			return slots.size();
+		}
+		int estimate = slots.size();
+		for (int i = 0; i + GRAM_LENGTH <= search.length(); i++) {
+			Postings list = postings.get(gram(search, i));
+			estimate = Math.min(estimate, list == null ? 0 : list.size);
+		}
+		return estimate;
+	}
+
+
+	/**
+	 * Returns the slots of the mountains which contain all trigrams of the query, by intersecting the posting lists
+	 * starting with the shortest one.
+	 *
+	 * @param query the search key of the search string
+	 * @return int[] the sorted candidate slots, null if the query is too short to use the index
+	 */
+	private int[] candidates(String query) {
+		if (query.length() < GRAM_LENGTH) {
+			return null;
+		}
+		List<Postings> lists = new ArrayList<>();
+		for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+			Postings list = postings.get(gram(query, i));
+			if (list == null) {
+				return new int[0];
+			}
+			if (!lists.contains(list)) {
+				lists.add(list);
+			}
+		}
+		lists.sort((a, b) -> Integer.compare(a.size, b.size));
+		int[] result = Arrays.copyOf(lists.get(0).slots, lists.get(0).size);
+		int size = result.length;
+		for (int l = 1; l < lists.size() && size > 0; l++) {
+			Postings list = lists.get(l);
+			int kept = 0;
+			int position = 0;
+			for (int i = 0; i < size; i++) {
+				position = lowerBound(list.slots, list.size, result[i], position);
+				if (position == list.size) {
+					break;
+				}
+				if (list.slots[position] == result[i]) {
+					result[kept++] = result[i];
+				}
+			}
+			size = kept;
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+
+	/**
+	 * Rebuilds the index from all slots.
+	 */
+	private void rebuild() {
+		postings.clear();
+		keys = new String[Math.max(16, slots.end())];
+		for (int slot = 0; slot < slots.end(); slot++) {
+			Mountain mountain = slots.get(slot);
+			if (mountain != null) {
+				keys[slot] = mountain.getSearchKey();
+				addPostings(slot);
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a slot to the posting lists of all trigrams of its key.
+	 *
+	 * @param slot the slot to add
+	 */
+	private void addPostings(int slot) {
+		String key = keys[slot];
+		for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+			postings.computeIfAbsent(gram(key, i), gram -> new Postings()).add(slot);
+		}
+	}
+
+
+	/**
+	 * Removes a slot from the posting lists of all trigrams of its key.
+	 *
+	 * @param slot the slot to remove
+	 */
+	private void removePostings(int slot) {
+		String key = keys[slot];
+		for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+			Long gram = gram(key, i);
+			Postings list = postings.get(gram);
+			if (list != null && list.remove(slot) && list.size == 0) {
+				postings.remove(gram);
+			}
+		}
+	}
+
+
+	/**
+	 * Packs the trigram at the given position into a long.
+	 *
+	 * @param text the text
+	 * @param position the position of the trigram
+	 * @return Long the packed trigram
+	 */
+	private static Long gram(String text, int position) {
+		return (long) text.charAt(position) << 32 | (long) text.charAt(position + 1) << 16 | text.charAt(position + 2);
+	}
+
+
+	/**
+	 * Returns the position of the first slot, which is not smaller than the given one.
+	 *
+	 * @param slots the sorted slots
+	 * @param size the number of slots
+	 * @param slot the slot to search for
+	 * @return int the position of the first slot which is not smaller, size if there is none
+	 */
+	private static int lowerBound(int[] slots, int size, int slot) {
+		return lowerBound(slots, size, slot, 0);
+	}
+
+
+	/**
+	 * Returns the position of the first slot, which is not smaller than the given one, starting at a position.
+	 * The search gallops forward, so walking through a long list with increasing slots stays cheap.
+	 *
+	 * @param slots the sorted slots
+	 * @param size the number of slots
+	 * @param slot the slot to search for
+	 * @param from the position to start at
+	 * @return int the position of the first slot which is not smaller, size if there is none
+	 */
+	private static int lowerBound(int[] slots, int size, int slot, int from) {
+		int step = 1;
+		int low = from;
+		int high = from;
+		while (high < size && slots[high] < slot) {
+			low = high + 1;
+			high += step;
+			step *= 2;
+		}
+		high = Math.min(high, size);
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (slots[middle] < slot) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * The sorted slots of the mountains containing a trigram.
+	 */
+	private static class Postings {
+
+		/**
+		 * the sorted slots
+		 */
+		private int[] slots = new int[4];
+
+		/**
+		 * the number of slots
+		 */
+		private int size;
+
+
+		/**
+		 * Adds a slot, keeping the slots sorted. A slot, which is already in the list, is only added once.
+		 *
+		 * @param slot the slot to add
+		 */
+		void add(int slot) {
+			int position = size > 0 && slots[size - 1] < slot ? size : lowerBound(slots, size, slot);
+			if (position < size && slots[position] == slot) {
+				return;
+			}
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			System.arraycopy(slots, position, slots, position + 1, size - position);
+			slots[position] = slot;
+			size++;
+		}
+
+
+		/**
+		 * Removes a slot.
+		 *
+		 * @param slot the slot to remove
+		 * @return boolean true if the slot was in the list
+		 */
+		boolean remove(int slot) {
+			int position = lowerBound(slots, size, slot);
+			if (position == size || slots[position] != slot) {
+				return false;
+			}
+			System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+			size--;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package ch.fhnw.oop2.swissmountainsfx.view;
+
+import ch.fhnw.oop2.swissmountainsfx.presentationmodel.Mountain;
+import ch.fhnw.oop2.swissmountainsfx.presentationmodel.MountainModel;
+import ch.fhnw.oop2.swissmountainsfx.presentationmodel.MountainSummary;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.StringExpression;
+import javafx.collections.MapChangeListener;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+
+
+/**
+ * the bar at the bottom, which summarizes all mountains and the region of the selected mountain
+ * 
+ * @author Benjamin Huber
+ * @author Tabea Eggler
+ */
+public class MountainSummaryBar extends HBox {
+
+	/**
+	 * the presentation model, which contains the functionality of this application
+	 */
+    private final MountainModel model;
+    
+    /**
+     * label with the number and the average height of all mountains
+     */
+    private Label lblTotal;
+    
+    /**
+     * label with the number and the average height of the mountains in the region of the selected mountain
+     */
+    private Label lblRegion;
+    
+    
+    /**
+     * Constructs a new summary bar.
+     * 
+     * @param model the presentation model, which contains the functionality of this application
+     */
+    public MountainSummaryBar(MountainModel model) {
+        this.model = model;
+        initializeControls();
+        layoutControls();
+        setupBindings();
+        setupValueChangedListeners();
+    }
+    
+    
+    /**
+     * Initializes the nodes.
+     */
+    private void initializeControls() {
+        lblTotal = new Label();
+        lblRegion = new Label();
+    }
+    
+    
+    /**
+     * Layouts the nodes.
+     */
+    private void layoutControls() {
+        getChildren().addAll(lblTotal, lblRegion);
+        getStyleClass().add("summary");
+    }
+    
+    
+    /**
+     * Binds the labels to the summary of all mountains.
+     */
+    private void setupBindings() {
+        lblTotal.textProperty().bind(format("Alle Berge", model.getSummary()));
+    }
+    
+    
+    /**
+     * Adds listeners to the region and the selection of the selected mountain and to the summaries of the regions, which bind
+     * the region label to the summary of the region. A summary is only created once the region of the mountain has changed,
+     * after the region of the proxy, so the label is bound again whenever a summary is added or removed.
+     */
+    private void setupValueChangedListeners() {
+        model.getMountainProxy().regionProperty().addListener((source, oldValue, newValue) -> bindRegion());
+        model.selectedMountainIDProperty().addListener((source, oldValue, newValue) -> bindRegion());
+        model.getSummariesByRegion().addListener((MapChangeListener<String, MountainSummary>) change -> bindRegion());
+        bindRegion();
+    }
+    
+    
+    /**
+     * Binds the region label to the summary of the region of the selected mountain, or empties it if there is no such summary.
+     */
+    private void bindRegion() {
+        String region = model.getMountainProxy().getRegion();
+        MountainSummary summary = region == null ? null : model.getSummariesByRegion().get(region);
+        if (summary == null) {
+            lblRegion.textProperty().unbind();
+            lblRegion.setText("");
+        } else {
+            lblRegion.textProperty().bind(format(region, summary));
+        }
+    }
+    
+    
+    /**
+     * Returns a binding with the number, the average height and the largest height of the mountains of a summary.
+     * 
+     * @param title the name of the summarized mountains
+     * @param summary the summary
+     * @return StringExpression the formatted summary
+     */
+    private StringExpression format(String title, MountainSummary summary) {
+        return Bindings.format("%s: %d Berge,  Hhe %.0f m, hchster %.0f m", title, summary.countProperty(),
+        		summary.averageProperty(Mountain.Field.HEIGHT), summary.maxProperty(Mountain.Field.HEIGHT));
+    }
+}
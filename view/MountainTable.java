@@ -21,7 +21,7 @@ public class MountainTable extends TableView<Mountain>{
 	 */
 	public MountainTable(MountainModel model) {
         this.model = model;
-        this.setItems(model.getData());
+        this.setItems(model.isRangeFiltered() ? model.getRangeResults() : model.getData());
         getStyleClass().add("table");
         initializeControls();
         setupValueChangedListeners();
@@ -72,9 +72,13 @@ public class MountainTable extends TableView<Mountain>{
 
 	 
     /**
-     * Adds listeners to the selected mountain ID property of the model.
+     * Adds listeners to the range filter and the selected mountain ID property of the model.
      */
 	private void setupValueChangedListeners() {
+        model.rangeFilteredProperty().addListener((source, oldValue, newValue) -> {
+                     setItems(newValue ? model.getRangeResults() : model.getData());
+               });
+
         getSelectionModel().selectedItemProperty().addListener((source, oldValue, newValue) -> {
                      if (newValue == null) {
                     	 model.setSelectedMountainID(MountainModel.NO_SELECTION);
@@ -1,7 +1,9 @@
 package ch.fhnw.oop2.swissmountainsfx.view;
 
 import ch.fhnw.oop2.swissmountainsfx.presentationmodel.MountainModel;
+import javafx.beans.binding.Bindings;
 import javafx.scene.control.Button;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToolBar;
 import javafx.scene.control.Tooltip;
@@ -94,6 +96,16 @@ public class MountainToolbar extends ToolBar{
      */
     private TextField txtSearch;
     
+    /**
+     * shows the progress while the data is loaded in the background
+     */
+    private ProgressBar progressLoading;
+    
+    /**
+     * the search which has been requested while the data was still loading, null if there is none
+     */
+    private Runnable pendingSearch;
+    
     
     /**
      * Constructs a new toolbar.
@@ -133,6 +145,7 @@ public class MountainToolbar extends ToolBar{
         btnSwapView = new Button();
         spacer = new HBox();
         txtSearch = new TextField();
+        progressLoading = new ProgressBar();
         btnSearchScharf = new Button();
         btnSearchUnscharf = new Button();
         pen = new ImageView(new Image(getClass().getResourceAsStream("../ownresources/pen.png")));
@@ -152,6 +165,7 @@ public class MountainToolbar extends ToolBar{
         		btnRedo,
         		btnSwapView,
         		spacer,
+        		progressLoading,
         		txtSearch,
         		btnSearchScharf,
         		btnSearchUnscharf
@@ -239,20 +253,47 @@ public class MountainToolbar extends ToolBar{
     		if(txtSearch.textProperty().get().equals("") || txtSearch.textProperty().get().equals(null)) {
     			return;
     		}
-    		model.searchScharf();
-    		selector.scrollTo(model.getSelectedMountainID());
-    		table.scrollTo(model.getSelectedMountainID());
+    		searchWhenLoaded(() -> {
+    			model.searchScharf();
+    			selector.scrollTo(model.getSelectedMountainID());
+    			table.scrollTo(model.getSelectedMountainID());
+    		});
     	});
     	
     	btnSearchUnscharf.setOnAction(e -> {
     		if(txtSearch.textProperty().get().equals("") || txtSearch.textProperty().get().equals(null)) {
     			return;
     		}
-    		model.searchUnscharf();
-    		selector.scrollTo(model.getSelectedMountainID());
-    		table.scrollTo(model.getSelectedMountainID());
+    		searchWhenLoaded(() -> {
+    			model.searchUnscharf();
+    			selector.scrollTo(model.getSelectedMountainID());
+    			table.scrollTo(model.getSelectedMountainID());
+    		});
+    	});
+    	
+    	model.fullyLoadedProperty().addListener((source, oldValue, newValue) -> {
+    		if (newValue && pendingSearch != null) {
+    			Runnable search = pendingSearch;
+    			pendingSearch = null;
+    			search.run();
+    		}
     	});
     }
+    
+    
+    /**
+     * Runs the given search right away, or as soon as the data is fully loaded. Only the last search requested
+     * while loading is run.
+     * 
+     * @param search the search to run
+     */
+    private void searchWhenLoaded(Runnable search) {
+    	if (model.getFullyLoaded()) {
+    		search.run();
+    	} else {
+    		pendingSearch = search;
+    	}
+    }
 
     
 	/**
@@ -261,6 +302,20 @@ public class MountainToolbar extends ToolBar{
     private void setupBindings() {
     	btnUndo.disableProperty().bind(model.undoDisabledProperty());
     	btnRedo.disableProperty().bind(model.redoDisabledProperty());
+    	btnSave.disableProperty().bind(model.fullyLoadedProperty().not());
+    	btnSave.opacityProperty().bind(Bindings.when(model.savingProperty()).then(0.6).otherwise(1.0));
+    	btnSave.getTooltip().textProperty().bind(Bindings.when(model.saveErrorProperty().isNull())
+    			.then("Speichern")
+    			.otherwise(model.saveErrorProperty()));
+    	model.saveErrorProperty().addListener((source, oldValue, newValue) -> {
+    		btnSave.getStyleClass().remove("save-failed");
+    		if (newValue != null) {
+    			btnSave.getStyleClass().add("save-failed");
+    		}
+    	});
+    	progressLoading.progressProperty().bind(model.loadProgressProperty());
+    	progressLoading.visibleProperty().bind(model.fullyLoadedProperty().not());
+    	progressLoading.managedProperty().bind(progressLoading.visibleProperty());
     	model.searchContentProperty().bind(txtSearch.textProperty());
     }
 }
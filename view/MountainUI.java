@@ -40,6 +40,11 @@ public class MountainUI extends VBox {
 	 */
     private MountainTable table;
     
+    /**
+     * the summary bar on the bottom
+     */
+    private MountainSummaryBar summaryBar;
+    
     /**
      * the container in the middle
      */
@@ -82,9 +87,10 @@ public class MountainUI extends VBox {
     	edit = new MountainEdit(model);
     	table = new MountainTable(model);
     	selector = new MountainSelector(model);
-    	selector.setItems(model.getData());
+    	selector.setItems(model.getSearchResults());
     	selector.setCellFactory(e -> new ListCellMountain());
     	toolbar = new MountainToolbar(model, selector, table);
+    	summaryBar = new MountainSummaryBar(model);
     	stackPane = new StackPane();
     	splitpane = new SplitPane();
     }
@@ -97,7 +103,7 @@ public class MountainUI extends VBox {
     	stackPane.getChildren().addAll(selector, table);
     	splitpane.getItems().addAll(stackPane, edit);
     	splitpane.setDividerPositions(0.325f, 0.675f);
-    	getChildren().addAll(toolbar, splitpane);
+    	getChildren().addAll(toolbar, splitpane, summaryBar);
     	table.setVisible(model.getTableVisibility());
     	selector.setVisible(!model.getTableVisibility());
     	